@@ -0,0 +1,147 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.benchmarks.Payloads;
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.models.User;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs complete client calls (URL building, pooled connection, request, response parsing) against an
+ * in-process HTTP server, so the numbers exclude network latency and Harvest's own response time.
+ * Rate limiting is disabled.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequestPathBenchmark
+{
+    @Param({"10", "1000"})
+    public int dayEntries;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HarvestClient client;
+    private AsyncHarvestClient asyncClient;
+    private GetDayEntriesByProjectParameters byProject;
+
+    @Setup
+    public void setUp()
+            throws IOException
+    {
+        final byte[] user = Payloads.single("user");
+        final byte[] entries = Payloads.collection("day-entry", this.dayEntries);
+
+        this.serverExecutor = Executors.newFixedThreadPool(8, r -> {
+            Thread thread = new Thread(r, "benchmark-http-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        this.server.createContext("/people/", respond(200, user));
+        this.server.createContext("/projects/", respond(200, entries));
+        this.server.createContext("/invoices/", respond(201, new byte[0]));
+        this.server.setExecutor(this.serverExecutor);
+        this.server.start();
+
+        HarvestClientConfig config = new HarvestClientConfig();
+        config.setBaseUrl("http://127.0.0.1:" + this.server.getAddress().getPort());
+        config.setRequestsPerPeriod(0);
+        HarvestClientFactory factory = new HarvestClientFactory();
+        this.client = factory.create("benchmark", "user", "password", config);
+        this.asyncClient = factory.createAsync("benchmark", "user", "password", config);
+
+        this.byProject = new GetDayEntriesByProjectParameters();
+        this.byProject.projectId = 1001;
+        this.byProject.fromDate = new Date(1388534400000L);
+        this.byProject.toDate = new Date(1394582400000L);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.client.close();
+        this.asyncClient.close();
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public User getUser()
+    {
+        return this.client.getUser(3001);
+    }
+
+    @Benchmark
+    public DayEntryCollection getDayEntriesByProject()
+    {
+        return this.client.getDayEntriesByProject(this.byProject);
+    }
+
+    @Benchmark
+    public DayEntryCollection getDayEntriesByProjectAsync()
+    {
+        return this.asyncClient.getDayEntriesByProject(this.byProject).join();
+    }
+
+    @Benchmark
+    public void postInvoicePayment()
+    {
+        this.client.postInvoicePayment(4711, "Bank transfer 2014-0042", new BigDecimal("12500.00"));
+    }
+
+    private static HttpHandler respond(final int status, final byte[] body)
+    {
+        return new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange)
+                    throws IOException
+            {
+                try (InputStream request = exchange.getRequestBody())
+                {
+                    while (request.read() != -1)
+                    {
+                        // Drain the request so the connection can be reused
+                    }
+                }
+
+                exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+                try (OutputStream response = exchange.getResponseBody())
+                {
+                    response.write(body);
+                }
+            }
+        };
+    }
+}
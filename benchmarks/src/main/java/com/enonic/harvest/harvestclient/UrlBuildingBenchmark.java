@@ -0,0 +1,95 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the request URLs the clients send. Lives in the client package since {@link HarvestUrls} is package-private.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlBuildingBenchmark
+{
+    private GetDayEntriesByUserParameters byUser;
+    private GetDayEntriesByProjectParameters byProject;
+    private GetRecentInvoicesParameters recentInvoices;
+    private Date updatedSince;
+
+    @Setup
+    public void setUp()
+    {
+        this.updatedSince = new Date(1394617287000L);
+
+        this.byUser = new GetDayEntriesByUserParameters();
+        this.byUser.userId = 3001;
+        this.byUser.fromDate = new Date(1388534400000L);
+        this.byUser.toDate = new Date(1394582400000L);
+        this.byUser.updatedSince = this.updatedSince;
+
+        this.byProject = new GetDayEntriesByProjectParameters();
+        this.byProject.projectId = 1001;
+        this.byProject.fromDate = this.byUser.fromDate;
+        this.byProject.toDate = this.byUser.toDate;
+
+        this.recentInvoices = new GetRecentInvoicesParameters();
+        this.recentInvoices.setPage(3);
+        this.recentInvoices.setFromDate(this.byUser.fromDate);
+        this.recentInvoices.setToDate(this.byUser.toDate);
+        this.recentInvoices.setStatus("open");
+        this.recentInvoices.setClient(101);
+    }
+
+    @Benchmark
+    public String user()
+    {
+        return HarvestUrls.user(3001);
+    }
+
+    @Benchmark
+    public String usersUpdatedSince()
+    {
+        return HarvestUrls.users(this.updatedSince);
+    }
+
+    @Benchmark
+    public String dayEntriesByUser()
+    {
+        return HarvestUrls.dayEntriesByUser(this.byUser);
+    }
+
+    @Benchmark
+    public String dayEntriesByProject()
+    {
+        return HarvestUrls.dayEntriesByProject(this.byProject);
+    }
+
+    @Benchmark
+    public String recentInvoices()
+    {
+        return HarvestUrls.recentInvoices(this.recentInvoices);
+    }
+
+    @Benchmark
+    public String invoiceMessage()
+    {
+        return HarvestUrls.invoiceMessage(4711, 12);
+    }
+}
@@ -0,0 +1,93 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.DayEntry;
+import com.enonic.harvest.harvestclient.models.DayEntryAggregator;
+import com.enonic.harvest.harvestclient.models.DayEntryGroup;
+import com.enonic.harvest.harvestclient.models.DayEntryTable;
+import com.enonic.harvest.harvestclient.models.HoursSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls up the hours of day entries by project and month with {@link DayEntryAggregator}, and by
+ * project with a HashMap of BigDecimal over DayEntry objects for comparison.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AggregationBenchmark
+{
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private List<DayEntry> dayEntries;
+    private DayEntryTable table;
+    private DayEntryAggregator byProject;
+    private DayEntryAggregator byProjectAndMonth;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(42);
+        this.dayEntries = new ArrayList<DayEntry>(this.size);
+        this.table = new DayEntryTable(this.size);
+        for (int i = 0; i < this.size; i++)
+        {
+            DayEntry dayEntry = new DayEntry();
+            dayEntry.setId(i);
+            dayEntry.setProjectId(1000 + random.nextInt(300));
+            dayEntry.setTaskId(2000 + random.nextInt(11));
+            dayEntry.setUserId(3000 + random.nextInt(50));
+            dayEntry.setHours(BigDecimal.valueOf(random.nextInt(33) * 25, 2));
+            dayEntry.setBilled(random.nextBoolean());
+            dayEntry.setSpentAt(new Date(1388534400000L + 86400000L * random.nextInt(730)));
+            this.dayEntries.add(dayEntry);
+            this.table.add(dayEntry);
+        }
+
+        this.byProject = new DayEntryAggregator(DayEntryAggregator.GroupBy.PROJECT);
+        this.byProjectAndMonth = new DayEntryAggregator(DayEntryAggregator.GroupBy.PROJECT, DayEntryAggregator.GroupBy.MONTH);
+    }
+
+    @Benchmark
+    public Map<DayEntryGroup, HoursSummary> aggregateByProject()
+    {
+        return this.byProject.aggregate(this.table);
+    }
+
+    @Benchmark
+    public Map<DayEntryGroup, HoursSummary> aggregateByProjectAndMonth()
+    {
+        return this.byProjectAndMonth.aggregate(this.table);
+    }
+
+    @Benchmark
+    public Map<Integer, BigDecimal> hashMapByProject()
+    {
+        Map<Integer, BigDecimal> hours = new HashMap<Integer, BigDecimal>();
+        for (DayEntry dayEntry : this.dayEntries)
+            hours.merge(dayEntry.getProjectId(), dayEntry.getHours(), BigDecimal::add);
+        return hours;
+    }
+}
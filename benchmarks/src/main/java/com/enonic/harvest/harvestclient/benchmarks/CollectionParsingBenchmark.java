@@ -0,0 +1,75 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.ClientCollection;
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.models.InvoiceCollection;
+import com.enonic.harvest.harvestclient.models.InvoiceItemCategoryCollection;
+import com.enonic.harvest.harvestclient.models.InvoiceMessageCollection;
+import com.enonic.harvest.harvestclient.models.InvoicePaymentCollection;
+import com.enonic.harvest.harvestclient.models.ProjectCollection;
+import com.enonic.harvest.harvestclient.models.TaskAssignmentCollection;
+import com.enonic.harvest.harvestclient.models.TaskCollection;
+import com.enonic.harvest.harvestclient.models.UserAssignmentCollection;
+import com.enonic.harvest.harvestclient.models.UserCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses synthetic collection responses of 10, 1k and 100k elements with each collection's fromInputStream.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectionParsingBenchmark
+{
+    @Param({"day-entry", "user", "client", "project", "task", "user-assignment", "task-assignment",
+            "invoice", "invoice-item-category", "invoice-message", "payment"})
+    public String model;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp()
+    {
+        this.payload = Payloads.collection(this.model, this.size);
+    }
+
+    @Benchmark
+    public Object fromInputStream()
+    {
+        ByteArrayInputStream xml = new ByteArrayInputStream(this.payload);
+        switch (this.model)
+        {
+            case "day-entry": return DayEntryCollection.fromInputStream(xml);
+            case "user": return UserCollection.fromInputStream(xml);
+            case "client": return ClientCollection.fromInputStream(xml);
+            case "project": return ProjectCollection.fromInputStream(xml);
+            case "task": return TaskCollection.fromInputStream(xml);
+            case "user-assignment": return UserAssignmentCollection.fromInputStream(xml);
+            case "task-assignment": return TaskAssignmentCollection.fromInputStream(xml);
+            case "invoice": return InvoiceCollection.fromInputStream(xml);
+            case "invoice-item-category": return InvoiceItemCategoryCollection.fromInputStream(xml);
+            case "invoice-message": return InvoiceMessageCollection.fromInputStream(xml);
+            case "payment": return InvoicePaymentCollection.fromInputStream(xml);
+            default: throw new IllegalStateException(this.model);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.HarvestDates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.DatatypeConverter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a Harvest date and timestamp with HarvestDates and with DatatypeConverter, which JAXB uses.
+ * Run with {@code -prof gc} to compare allocation per value.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateParsingBenchmark
+{
+    @Param({"2013-05-01", "2013-05-01T12:34:56Z"})
+    public String value;
+
+    @Benchmark
+    public long harvestDates()
+    {
+        return HarvestDates.parseEpochMillis(this.value);
+    }
+
+    @Benchmark
+    public long datatypeConverter()
+    {
+        return DatatypeConverter.parseDateTime(this.value).getTimeInMillis();
+    }
+}
@@ -0,0 +1,50 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.DayEntryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads day entry responses one element at a time with {@link DayEntryReader}, for comparison with
+ * the day-entry case of {@link CollectionParsingBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DayEntryStreamingBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp()
+    {
+        this.payload = Payloads.collection("day-entry", this.size);
+    }
+
+    @Benchmark
+    public void streamDayEntries(Blackhole blackhole)
+    {
+        DayEntryReader reader = DayEntryReader.fromInputStream(new ByteArrayInputStream(this.payload));
+        while (reader.hasNext())
+            blackhole.consume(reader.next());
+    }
+}
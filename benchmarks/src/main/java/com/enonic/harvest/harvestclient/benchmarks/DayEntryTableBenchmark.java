@@ -0,0 +1,84 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.DayEntry;
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.models.DayEntryTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses day entries into a {@link DayEntryTable} and into a {@link DayEntryCollection}, and sums the
+ * hours of the billed entries of each.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DayEntryTableBenchmark
+{
+    @Param({"1000", "100000"})
+    public int size;
+
+    private byte[] payload;
+    private DayEntryTable table;
+    private DayEntryCollection collection;
+
+    @Setup
+    public void setUp()
+    {
+        this.payload = Payloads.collection("day-entry", this.size);
+        this.table = DayEntryTable.fromInputStream(new ByteArrayInputStream(this.payload));
+        this.collection = DayEntryCollection.fromInputStream(new ByteArrayInputStream(this.payload));
+    }
+
+    @Benchmark
+    public DayEntryTable parseTable()
+    {
+        return DayEntryTable.fromInputStream(new ByteArrayInputStream(this.payload));
+    }
+
+    @Benchmark
+    public DayEntryCollection parseCollection()
+    {
+        return DayEntryCollection.fromInputStream(new ByteArrayInputStream(this.payload));
+    }
+
+    @Benchmark
+    public double scanTable()
+    {
+        double hours = 0;
+        for (int row = 0; row < this.table.size(); row++)
+        {
+            if (this.table.isBilled(row))
+                hours += this.table.getHoursAsDouble(row);
+        }
+        return hours;
+    }
+
+    @Benchmark
+    public BigDecimal scanCollection()
+    {
+        BigDecimal hours = BigDecimal.ZERO;
+        for (DayEntry dayEntry : this.collection)
+        {
+            if (dayEntry.isBilled())
+                hours = hours.add(dayEntry.getHours());
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,84 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.models.InvoiceCollection;
+import com.enonic.harvest.harvestclient.models.JaxbContextRegistry;
+import com.enonic.harvest.harvestclient.models.ProjectCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.Unmarshaller;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written decoders behind fromInputStream with JAXB unmarshalling of the same
+ * collection. XmlDecoderTest checks that both produce the same value in every field.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecoderBenchmark
+{
+    @Param({"day-entry", "invoice", "project"})
+    public String model;
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private byte[] payload;
+    private Class<?> collectionType;
+
+    @Setup
+    public void setUp()
+    {
+        this.payload = Payloads.collection(this.model, this.size);
+        switch (this.model)
+        {
+            case "day-entry": this.collectionType = DayEntryCollection.class; break;
+            case "invoice": this.collectionType = InvoiceCollection.class; break;
+            case "project": this.collectionType = ProjectCollection.class; break;
+            default: throw new IllegalStateException(this.model);
+        }
+    }
+
+    @Benchmark
+    public Object jaxb()
+            throws Exception
+    {
+        Unmarshaller unmarshaller = JaxbContextRegistry.acquireUnmarshaller(this.collectionType);
+        try
+        {
+            return unmarshaller.unmarshal(new ByteArrayInputStream(this.payload));
+        }
+        finally
+        {
+            JaxbContextRegistry.releaseUnmarshaller(this.collectionType, unmarshaller);
+        }
+    }
+
+    @Benchmark
+    public Object decoder()
+    {
+        ByteArrayInputStream xml = new ByteArrayInputStream(this.payload);
+        switch (this.model)
+        {
+            case "day-entry": return DayEntryCollection.fromInputStream(xml);
+            case "invoice": return InvoiceCollection.fromInputStream(xml);
+            case "project": return ProjectCollection.fromInputStream(xml);
+            default: throw new IllegalStateException(this.model);
+        }
+    }
+}
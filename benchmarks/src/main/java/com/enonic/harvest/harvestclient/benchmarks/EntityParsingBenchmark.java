@@ -0,0 +1,65 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.Client;
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.models.InvoiceItemCategory;
+import com.enonic.harvest.harvestclient.models.InvoiceMessage;
+import com.enonic.harvest.harvestclient.models.InvoicePayment;
+import com.enonic.harvest.harvestclient.models.Project;
+import com.enonic.harvest.harvestclient.models.Task;
+import com.enonic.harvest.harvestclient.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses single-entity responses, as returned by the get-by-id methods.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityParsingBenchmark
+{
+    @Param({"user", "client", "project", "task", "invoice", "invoice-item-category", "invoice-message", "payment"})
+    public String model;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp()
+    {
+        this.payload = Payloads.single(this.model);
+    }
+
+    @Benchmark
+    public Object fromInputStream()
+    {
+        ByteArrayInputStream xml = new ByteArrayInputStream(this.payload);
+        switch (this.model)
+        {
+            case "user": return User.fromInputStream(xml);
+            case "client": return Client.fromInputStream(xml);
+            case "project": return Project.fromInputStream(xml);
+            case "task": return Task.fromInputStream(xml);
+            case "invoice": return Invoice.fromInputStream(xml);
+            case "invoice-item-category": return InvoiceItemCategory.fromInputStream(xml);
+            case "invoice-message": return InvoiceMessage.fromInputStream(xml);
+            case "payment": return InvoicePayment.fromInputStream(xml);
+            default: throw new IllegalStateException(this.model);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import com.enonic.harvest.harvestclient.models.InvoicePayment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes an invoice payment the way postInvoicePayment does before sending it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarshalBenchmark
+{
+    private InvoicePayment payment;
+
+    @Setup
+    public void setUp()
+    {
+        this.payment = new InvoicePayment();
+        this.payment.setAmount(new BigDecimal("12500.00"));
+        this.payment.setInvoiceId(4711);
+        this.payment.setNotes("Bank transfer & reference 2014-0042");
+        this.payment.setPaidAt(new Date(1394617287000L));
+    }
+
+    @Benchmark
+    public String marshal()
+    {
+        return InvoicePayment.marshal(this.payment);
+    }
+}
@@ -0,0 +1,239 @@
+package com.enonic.harvest.harvestclient.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic Harvest API responses, shaped like the real ones, for every model type.
+ */
+public final class Payloads
+{
+    private static final String TIMESTAMP = "2014-03-12T09:41:27Z";
+
+    private Payloads()
+    {
+    }
+
+    public static byte[] collection(String model, int size)
+    {
+        String root = rootElement(model);
+        StringBuilder xml = new StringBuilder(size * 512 + 64);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<").append(root).append(" type=\"array\">\n");
+        for (int i = 1; i <= size; i++)
+            appendItem(xml, model, i);
+        xml.append("</").append(root).append(">\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] single(String model)
+    {
+        StringBuilder xml = new StringBuilder(1024);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        appendItem(xml, model, 1);
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String rootElement(String model)
+    {
+        switch (model)
+        {
+            case "day-entry": return "day-entries";
+            case "user": return "users";
+            case "client": return "clients";
+            case "project": return "projects";
+            case "task": return "tasks";
+            case "user-assignment": return "user-assignments";
+            case "task-assignment": return "task-assignments";
+            case "invoice": return "invoices";
+            case "invoice-item-category": return "invoice-item-categories";
+            // Harvest uses the same element name for the message list and its items
+            case "invoice-message": return "invoice-message";
+            case "payment": return "payments";
+            default: throw new IllegalArgumentException(model);
+        }
+    }
+
+    private static void appendItem(StringBuilder xml, String model, int i)
+    {
+        xml.append("  <").append(model).append(">\n");
+        switch (model)
+        {
+            case "day-entry":
+                element(xml, "id", i);
+                element(xml, "hours", (i % 16) * 0.5 + 0.25);
+                element(xml, "notes", "Worked on ticket #" + i + " & reviewed pull requests");
+                element(xml, "project-id", 1000 + i % 37);
+                element(xml, "spent-at", String.format("2014-%02d-%02d", 1 + i % 12, 1 + i % 28));
+                element(xml, "task-id", 2000 + i % 11);
+                element(xml, "user-id", 3000 + i % 23);
+                element(xml, "is-billed", i % 3 == 0);
+                element(xml, "is-closed", i % 5 == 0);
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "user":
+                element(xml, "id", i);
+                element(xml, "email", "user" + i + "@example.com");
+                element(xml, "first-name", "First" + i);
+                element(xml, "last-name", "Last" + i);
+                element(xml, "has-access-to-all-future-projects", false);
+                element(xml, "default-hourly-rate", "120.0");
+                element(xml, "is-active", true);
+                element(xml, "is-admin", i % 10 == 0);
+                element(xml, "is-contractor", false);
+                element(xml, "telephone", "+47 555 0" + i);
+                element(xml, "department", "Engineering");
+                element(xml, "timezone", "Europe/Oslo");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "client":
+                element(xml, "id", i);
+                element(xml, "name", "Client " + i);
+                element(xml, "active", true);
+                element(xml, "currency", "Norwegian Krone - NOK");
+                element(xml, "currency-symbol", "kr");
+                element(xml, "highrise-id", i);
+                element(xml, "cache-version", 1);
+                element(xml, "details", "Street " + i + "\n0150 Oslo");
+                element(xml, "default-invoice-timeframe", "2014-01-01,2014-01-31");
+                element(xml, "last-invoice-kind", "project");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "project":
+                element(xml, "id", i);
+                element(xml, "name", "Project " + i);
+                element(xml, "client-id", 100 + i % 17);
+                element(xml, "code", "P" + i);
+                element(xml, "active", true);
+                element(xml, "notes", "Notes for project " + i);
+                element(xml, "billable", true);
+                element(xml, "bill-by", "Project");
+                element(xml, "hourly-rate", "1150.0");
+                element(xml, "budget-by", "project");
+                element(xml, "budget", "400.0");
+                element(xml, "cost-budget", "80000.0");
+                element(xml, "cost-budget-include-expenses", false);
+                element(xml, "notify-when-over-budget", true);
+                element(xml, "over-budget-notification-percentage", "80.0");
+                element(xml, "over-budget-notified-at", TIMESTAMP);
+                element(xml, "show-budget-to-all", false);
+                element(xml, "hint-earliest-record-at", "2013-01-02");
+                element(xml, "hint-latest-record-at", "2014-03-11");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "task":
+                element(xml, "id", i);
+                element(xml, "name", "Task " + i);
+                element(xml, "billable-by-default", true);
+                element(xml, "deactivated", false);
+                element(xml, "default-hourly-rate", "950.0");
+                element(xml, "is-default", i % 4 == 0);
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "user-assignment":
+                element(xml, "id", i);
+                element(xml, "user-id", 3000 + i % 23);
+                element(xml, "project-id", 1000 + i % 37);
+                element(xml, "deactivated", false);
+                element(xml, "hourly-rate", "1000.0");
+                element(xml, "is-project-manager", i % 7 == 0);
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "task-assignment":
+                element(xml, "id", i);
+                element(xml, "project-id", 1000 + i % 37);
+                element(xml, "task-id", 2000 + i % 11);
+                element(xml, "billable", true);
+                element(xml, "deactivated", false);
+                element(xml, "budget", "100.0");
+                element(xml, "hourlyRate", "900.0");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "invoice":
+                element(xml, "id", i);
+                element(xml, "amount", "12500.00");
+                element(xml, "due-amount", "0.0");
+                element(xml, "due-at", "2014-04-12");
+                element(xml, "due-at-human-format", "NET 30");
+                element(xml, "period-start", "2014-02-01");
+                element(xml, "period-end", "2014-02-28");
+                element(xml, "client-id", 100 + i % 17);
+                element(xml, "subject", i);
+                element(xml, "currency", "Norwegian Krone - NOK");
+                element(xml, "issued-at", "2014-03-12");
+                element(xml, "created-by-id", 3000);
+                element(xml, "notes", "Invoice notes " + i);
+                element(xml, "number", "2014-" + i);
+                element(xml, "purchase-order", "PO" + i);
+                element(xml, "client-key", "abc" + i);
+                element(xml, "state", i % 2 == 0 ? "paid" : "open");
+                element(xml, "tax", "25.0");
+                element(xml, "tax2", "");
+                element(xml, "tax-amount", "2500.0");
+                element(xml, "tax-amount2", "0.0");
+                element(xml, "discount-amount", "0.0");
+                element(xml, "discount", "");
+                element(xml, "recurring-invoice-id", "");
+                element(xml, "estimate-id", "");
+                element(xml, "retainer-id", "");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "invoice-item-category":
+                element(xml, "id", i);
+                element(xml, "name", "Category " + i);
+                element(xml, "use-as-expense", i % 2 == 0);
+                element(xml, "use-as-service", i % 2 != 0);
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "invoice-message":
+                element(xml, "id", i);
+                element(xml, "body", "Please find the invoice attached.");
+                element(xml, "invoice-id", i);
+                element(xml, "send-me-a-copy", true);
+                element(xml, "sent-by", "Accounting");
+                element(xml, "sent-by-email", "accounting@example.com");
+                element(xml, "full-recipient-list", "client" + i + "@example.com");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            case "payment":
+                element(xml, "id", i);
+                element(xml, "amount", "12500.00");
+                element(xml, "invoice-id", i);
+                element(xml, "notes", "Bank transfer " + i);
+                element(xml, "paid-at", TIMESTAMP);
+                element(xml, "recorded-by", "Accounting");
+                element(xml, "recorded-by-email", "accounting@example.com");
+                element(xml, "updated-at", TIMESTAMP);
+                element(xml, "created-at", TIMESTAMP);
+                break;
+            default:
+                throw new IllegalArgumentException(model);
+        }
+        xml.append("  </").append(model).append(">\n");
+    }
+
+    private static void element(StringBuilder xml, String name, Object value)
+    {
+        xml.append("    <").append(name).append('>');
+        String text = String.valueOf(value);
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '&')
+                xml.append("&amp;");
+            else if (c == '<')
+                xml.append("&lt;");
+            else
+                xml.append(c);
+        }
+        xml.append("</").append(name).append(">\n");
+    }
+}
@@ -0,0 +1,121 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+import com.enonic.harvest.harvestclient.models.*;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link HarvestClient}.
+ *
+ * Every method returns immediately with a future that completes with the parsed result, or
+ * exceptionally with a {@link com.enonic.harvest.harvestclient.exceptions.HarvestClientException}.
+ * Missing required parameters are reported immediately by throwing a
+ * {@link com.enonic.harvest.harvestclient.exceptions.MissingParameterException}.
+ */
+public interface AsyncHarvestClient
+        extends Closeable
+{
+    CompletableFuture<UserCollection> getUsers();
+
+    CompletableFuture<UserCollection> getUsers(Date updatedSince);
+
+    CompletableFuture<User> getUser(int id);
+
+    CompletableFuture<ClientCollection> getClients();
+
+    CompletableFuture<ClientCollection> getClients(Date updatedSince);
+
+    CompletableFuture<Client> getClient(int id);
+
+    CompletableFuture<DayEntryCollection> getDayEntriesByUser(GetDayEntriesByUserParameters params);
+
+    CompletableFuture<DayEntryCollection> getDayEntriesByProject(GetDayEntriesByProjectParameters params);
+
+    /**
+     * @see HarvestClient#streamDayEntriesByUser(GetDayEntriesByUserParameters)
+     */
+    CompletableFuture<DayEntryReader> streamDayEntriesByUser(GetDayEntriesByUserParameters params);
+
+    /**
+     * @see HarvestClient#streamDayEntriesByProject(GetDayEntriesByProjectParameters)
+     */
+    CompletableFuture<DayEntryReader> streamDayEntriesByProject(GetDayEntriesByProjectParameters params);
+
+    CompletableFuture<ProjectCollection> getProjects();
+
+    CompletableFuture<ProjectCollection> getProjects(Date updatedSince);
+
+    CompletableFuture<ProjectCollection> getProjects(int clientId);
+
+    CompletableFuture<ProjectCollection> getProjects(int clientId, Date updatedSince);
+
+    CompletableFuture<Project> getProject(int id);
+
+    CompletableFuture<TaskCollection> getTasks();
+
+    CompletableFuture<TaskCollection> getTasks(Date updatedSince);
+
+    CompletableFuture<Task> getTask(int id);
+
+    CompletableFuture<UserAssignmentCollection> getUserAssignments(int projectId);
+
+    CompletableFuture<UserAssignmentCollection> getUserAssignments(int projectId, Date updatedSince);
+
+    CompletableFuture<TaskAssignmentCollection> getTaskAssignments(int projectId);
+
+    CompletableFuture<TaskAssignmentCollection> getTaskAssignments(int projectId, Date updatedSince);
+
+    CompletableFuture<InvoiceCollection> getRecentInvoices(GetRecentInvoicesParameters params);
+
+    CompletableFuture<Invoice> getInvoice(int id);
+
+    CompletableFuture<InvoiceItemCategoryCollection> getInvoiceItemCategories();
+
+    CompletableFuture<InvoiceMessageCollection> getInvoiceMessages(int invoiceId);
+
+    CompletableFuture<InvoiceMessage> getInvoiceMessage(int invoiceId, int id);
+
+    CompletableFuture<InvoicePaymentCollection> getInvoicePayments(int invoiceId);
+
+    CompletableFuture<InvoicePayment> getInvoicePayment(int invoiceId, int id);
+
+    /**
+     * @see HarvestClient#populateInvoiceCache(Date, Date)
+     */
+    CompletableFuture<Integer> populateInvoiceCache(Date from, Date to);
+
+    /**
+     * @see HarvestClient#populateInvoiceCache(Date, Date, InvoiceCacheListener)
+     */
+    CompletableFuture<Integer> populateInvoiceCache(Date from, Date to, InvoiceCacheListener listener);
+
+    /**
+     * @see HarvestClient#postInvoicePayment(int, String, BigDecimal)
+     */
+    CompletableFuture<Void> postInvoicePayment(int invoiceId, String paymentReference, BigDecimal paymentAmount);
+
+    /**
+     * @see HarvestClient#postInvoicePayment(String, String, BigDecimal)
+     */
+    CompletableFuture<Void> postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount);
+
+    /**
+     * Invoice numbers are resolved from the cache filled by {@link #populateInvoiceCache(Date, Date)}.
+     *
+     * @see HarvestClient#postInvoicePayments(Iterable)
+     */
+    CompletableFuture<InvoicePaymentBatchResult> postInvoicePayments(Iterable<PostInvoicePaymentParameters> payments);
+
+    /**
+     * Shuts down the non-blocking HTTP transport. Requests still in flight are aborted.
+     */
+    @Override
+    void close();
+}
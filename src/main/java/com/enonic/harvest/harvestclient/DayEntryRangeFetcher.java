@@ -0,0 +1,362 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.MissingParameterException;
+import com.enonic.harvest.harvestclient.models.DayEntry;
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Fetches day entries for long date ranges by splitting the range into chunks and requesting
+ * several chunks concurrently through an {@link AsyncHarvestClient}.
+ *
+ * Requests are paced by the client's rate limiter. Results are merged in spent-at order, either into
+ * a single {@link DayEntryCollection} or as an iterator that only keeps a window of chunks in memory.
+ */
+public class DayEntryRangeFetcher
+{
+    public enum Chunk
+    {
+        DAY(Calendar.DAY_OF_MONTH),
+        WEEK(Calendar.WEEK_OF_YEAR),
+        MONTH(Calendar.MONTH);
+
+        private final int calendarField;
+
+        Chunk(int calendarField)
+        {
+            this.calendarField = calendarField;
+        }
+    }
+
+    private static final Comparator<DayEntry> SPENT_AT_ORDER = new Comparator<DayEntry>()
+    {
+        @Override
+        public int compare(DayEntry a, DayEntry b)
+        {
+            if (a.getSpentAt() == null)
+                return b.getSpentAt() == null ? 0 : 1;
+            if (b.getSpentAt() == null)
+                return -1;
+            return a.getSpentAt().compareTo(b.getSpentAt());
+        }
+    };
+
+    private final AsyncHarvestClient client;
+    private final Chunk chunk;
+    private final int chunkCount;
+    private final int parallelism;
+
+    /**
+     * @param client the client to fetch chunks with
+     * @param chunk the unit the date range is split by
+     * @param chunkCount how many units go in one chunk
+     * @param parallelism the maximum number of chunks in flight at once
+     */
+    public DayEntryRangeFetcher(AsyncHarvestClient client, Chunk chunk, int chunkCount, int parallelism)
+    {
+        if (chunkCount < 1)
+            throw new IllegalArgumentException("chunkCount must be at least 1");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+
+        this.client = client;
+        this.chunk = chunk;
+        this.chunkCount = chunkCount;
+        this.parallelism = parallelism;
+    }
+
+    public DayEntryRangeFetcher(AsyncHarvestClient client, Chunk chunk, int parallelism)
+    {
+        this(client, chunk, 1, parallelism);
+    }
+
+    /**
+     * @return the day entries of the whole range, or a failed future if a date is missing or a chunk fails
+     */
+    public CompletableFuture<DayEntryCollection> getDayEntriesByUser(final GetDayEntriesByUserParameters params)
+    {
+        List<Date[]> ranges;
+        try
+        {
+            ranges = this.split(params.fromDate, params.toDate);
+        }
+        catch (HarvestClientException e)
+        {
+            return failed(e);
+        }
+        return this.fetchAll(ranges, range -> this.client.getDayEntriesByUser(copy(params, range)));
+    }
+
+    /**
+     * @see #getDayEntriesByUser(GetDayEntriesByUserParameters)
+     */
+    public CompletableFuture<DayEntryCollection> getDayEntriesByProject(final GetDayEntriesByProjectParameters params)
+    {
+        List<Date[]> ranges;
+        try
+        {
+            ranges = this.split(params.fromDate, params.toDate);
+        }
+        catch (HarvestClientException e)
+        {
+            return failed(e);
+        }
+        return this.fetchAll(ranges, range -> this.client.getDayEntriesByProject(copy(params, range)));
+    }
+
+    /**
+     * Iterates day entries in spent-at order. Only the chunk being read and the next chunks up to the
+     * configured parallelism are held in memory; later chunks are requested as the caller advances.
+     */
+    public Iterator<DayEntry> streamDayEntriesByUser(final GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return new ChunkIterator(this.split(params.fromDate, params.toDate), range -> this.client.getDayEntriesByUser(copy(params, range)));
+    }
+
+    /**
+     * @see #streamDayEntriesByUser(GetDayEntriesByUserParameters)
+     */
+    public Iterator<DayEntry> streamDayEntriesByProject(final GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return new ChunkIterator(this.split(params.fromDate, params.toDate), range -> this.client.getDayEntriesByProject(copy(params, range)));
+    }
+
+    /**
+     * Splits the inclusive range of days [from, to] into consecutive inclusive chunks. Harvest only
+     * looks at the day of the dates, so the time of day is dropped before splitting.
+     */
+    List<Date[]> split(Date from, Date to)
+            throws HarvestClientException
+    {
+        if (from == null)
+            throw new MissingParameterException("fromDate");
+        if (to == null)
+            throw new MissingParameterException("toDate");
+
+        List<Date[]> ranges = new ArrayList<Date[]>();
+        Calendar start = startOfDay(from);
+        Date last = startOfDay(to).getTime();
+
+        while (!start.getTime().after(last))
+        {
+            Calendar end = (Calendar) start.clone();
+            end.add(this.chunk.calendarField, this.chunkCount);
+            end.add(Calendar.DAY_OF_MONTH, -1);
+
+            Date chunkEnd = end.getTime().after(last) ? last : end.getTime();
+            ranges.add(new Date[]{start.getTime(), chunkEnd});
+
+            start = end;
+            start.add(Calendar.DAY_OF_MONTH, 1);
+        }
+
+        return ranges;
+    }
+
+    private static Calendar startOfDay(Date date)
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+
+    private CompletableFuture<DayEntryCollection> fetchAll(final List<Date[]> ranges, final Function<Date[], CompletableFuture<DayEntryCollection>> fetch)
+    {
+        final List<CompletableFuture<DayEntryCollection>> results = new ArrayList<CompletableFuture<DayEntryCollection>>();
+        for (int i = 0; i < ranges.size(); i++)
+            results.add(new CompletableFuture<DayEntryCollection>());
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int i = 0; i < Math.min(this.parallelism, ranges.size()); i++)
+            dispatchNext(ranges, fetch, results, next, failure);
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[results.size()])).thenApply(v -> {
+            DayEntryCollection merged = new DayEntryCollection();
+            for (CompletableFuture<DayEntryCollection> result : results)
+                merged.getList().addAll(result.join().getList());
+            return merged;
+        });
+    }
+
+    /**
+     * Starts the next pending chunk, and chains the one after it on completion, so at most
+     * {@code parallelism} chunks are in flight. After a failure the remaining chunks are not fetched.
+     * Chunks that need no request, or whose request completed while it was sent, are recorded right away
+     * and the loop moves on.
+     */
+    private static void dispatchNext(final List<Date[]> ranges, final Function<Date[], CompletableFuture<DayEntryCollection>> fetch,
+                                     final List<CompletableFuture<DayEntryCollection>> results, final AtomicInteger next,
+                                     final AtomicReference<Throwable> failure)
+    {
+        while (true)
+        {
+            final int index = next.getAndIncrement();
+            if (index >= ranges.size())
+                return;
+
+            if (failure.get() != null)
+            {
+                results.get(index).completeExceptionally(failure.get());
+                continue;
+            }
+
+            CompletableFuture<DayEntryCollection> fetched = fetch.apply(ranges.get(index));
+            if (fetched.isDone())
+            {
+                // Fetched inline: continuing from the callback would add a stack frame per chunk
+                fetched.whenComplete((collection, e) -> fetched(index, collection, e, results, failure));
+                continue;
+            }
+
+            fetched.whenComplete((collection, e) -> {
+                fetched(index, collection, e, results, failure);
+                dispatchNext(ranges, fetch, results, next, failure);
+            });
+            return;
+        }
+    }
+
+    private static void fetched(int index, DayEntryCollection collection, Throwable error,
+                                List<CompletableFuture<DayEntryCollection>> results, AtomicReference<Throwable> failure)
+    {
+        if (error != null)
+        {
+            failure.compareAndSet(null, error);
+            results.get(index).completeExceptionally(error);
+        }
+        else
+        {
+            results.get(index).complete(sorted(collection));
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e)
+    {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * @return a sorted copy; the collection itself may be shared with other callers by the request coalescer
+     */
+    private static DayEntryCollection sorted(DayEntryCollection collection)
+    {
+        List<DayEntry> list = new ArrayList<DayEntry>(collection.getList());
+        Collections.sort(list, SPENT_AT_ORDER);
+
+        DayEntryCollection sorted = new DayEntryCollection();
+        sorted.setList(list);
+        return sorted;
+    }
+
+    private static GetDayEntriesByUserParameters copy(GetDayEntriesByUserParameters params, Date[] range)
+    {
+        GetDayEntriesByUserParameters copy = new GetDayEntriesByUserParameters();
+        copy.userId = params.userId;
+        copy.updatedSince = params.updatedSince;
+        copy.fromDate = range[0];
+        copy.toDate = range[1];
+        return copy;
+    }
+
+    private static GetDayEntriesByProjectParameters copy(GetDayEntriesByProjectParameters params, Date[] range)
+    {
+        GetDayEntriesByProjectParameters copy = new GetDayEntriesByProjectParameters();
+        copy.projectId = params.projectId;
+        copy.updatedSince = params.updatedSince;
+        copy.fromDate = range[0];
+        copy.toDate = range[1];
+        return copy;
+    }
+
+    /**
+     * Reads chunks in order while keeping the following chunks in flight.
+     */
+    private class ChunkIterator
+            implements Iterator<DayEntry>
+    {
+        private final List<Date[]> ranges;
+        private final Function<Date[], CompletableFuture<DayEntryCollection>> fetch;
+        private final List<CompletableFuture<DayEntryCollection>> inFlight = new ArrayList<CompletableFuture<DayEntryCollection>>();
+        private Iterator<DayEntry> current = Collections.<DayEntry>emptyList().iterator();
+        private int nextChunk;
+
+        public ChunkIterator(List<Date[]> ranges, Function<Date[], CompletableFuture<DayEntryCollection>> fetch)
+        {
+            this.ranges = ranges;
+            this.fetch = fetch;
+            for (int i = 0; i < Math.min(parallelism, ranges.size()); i++)
+                this.inFlight.add(fetch.apply(ranges.get(i)));
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (!this.current.hasNext())
+            {
+                if (this.inFlight.isEmpty())
+                    return false;
+
+                CompletableFuture<DayEntryCollection> future = this.inFlight.remove(0);
+                int following = this.nextChunk + parallelism;
+                if (following < this.ranges.size())
+                    this.inFlight.add(this.fetch.apply(this.ranges.get(following)));
+                this.nextChunk++;
+
+                try
+                {
+                    this.current = sorted(future.join()).iterator();
+                }
+                catch (CompletionException e)
+                {
+                    for (CompletableFuture<DayEntryCollection> pending : this.inFlight)
+                        pending.cancel(false);
+                    this.inFlight.clear();
+
+                    if (e.getCause() instanceof HarvestClientException)
+                        throw (HarvestClientException) e.getCause();
+                    throw new HarvestClientException("Could not fetch day entries.", e.getCause());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public DayEntry next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return this.current.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+import com.enonic.harvest.harvestclient.models.*;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Default {@link AsyncHarvestClient} implementation, backed by a non-blocking HTTP transport.
+ *
+ * Responses are parsed on the executor from {@link HarvestClientConfig#getExecutor()}, never on the
+ * I/O threads. Instances are safe for concurrent use.
+ */
+public class DefaultAsyncHarvestClient
+        implements AsyncHarvestClient
+{
+    private final String username;
+    private final String password;
+    private final String subDomain;
+    private final String baseUrl;
+
+    private final HarvestAsyncTransport transport;
+    private final int invoicePagesInFlight;
+    private final int maxPaymentsInFlight;
+
+    // Cache of recent invoices used for mapping invoice number to invoice ID (not included in Harvest CSV export).
+    // Replaced as a whole when repopulated, so readers never see a half-built cache.
+    private volatile Map<String, Integer> invoiceCache = new ConcurrentHashMap<String, Integer>();
+
+    private final boolean compression;
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+
+    // Parsed responses served on 304 Not Modified, or null if conditional requests are disabled
+    private final ResponseStore responseStore;
+
+    // Requests in flight shared by concurrent callers, or null if coalescing is disabled
+    private final RequestCoalescer coalescer;
+
+    public DefaultAsyncHarvestClient(String username, String password, String subDomain)
+    {
+        this(username, password, subDomain, new HarvestClientConfig());
+    }
+
+    public DefaultAsyncHarvestClient(String username, String password, String subDomain, HarvestClientConfig config)
+    {
+        this.username = username;
+        this.password = password;
+        this.subDomain = subDomain;
+        this.baseUrl = config.getBaseUrl();
+        this.transport = new HarvestAsyncTransport(config);
+        this.invoicePagesInFlight = config.getInvoicePagesInFlight();
+        this.maxPaymentsInFlight = config.getMaxPaymentsInFlight();
+        this.compression = config.isCompression();
+        this.responseStore = config.getResponseStoreSize() > 0 ? new ResponseStore(config.getResponseStoreSize()) : null;
+        this.coalescer = config.isRequestCoalescing() ? new RequestCoalescer() : null;
+    }
+
+    @Override
+    public CompletableFuture<UserCollection> getUsers()
+    {
+        return this.get(() -> HarvestUrls.users(), UserCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<UserCollection> getUsers(Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.users(updatedSince), UserCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(int id)
+    {
+        return this.get(() -> HarvestUrls.user(id), User::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ClientCollection> getClients()
+    {
+        return this.get(() -> HarvestUrls.clients(), ClientCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ClientCollection> getClients(Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.clients(updatedSince), ClientCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<Client> getClient(int id)
+    {
+        return this.get(() -> HarvestUrls.client(id), Client::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<DayEntryCollection> getDayEntriesByUser(GetDayEntriesByUserParameters params)
+    {
+        return this.get(() -> HarvestUrls.dayEntriesByUser(params), DayEntryCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<DayEntryCollection> getDayEntriesByProject(GetDayEntriesByProjectParameters params)
+    {
+        return this.get(() -> HarvestUrls.dayEntriesByProject(params), DayEntryCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<DayEntryReader> streamDayEntriesByUser(GetDayEntriesByUserParameters params)
+    {
+        return this.stream(() -> HarvestUrls.dayEntriesByUser(params), DayEntryReader::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<DayEntryReader> streamDayEntriesByProject(GetDayEntriesByProjectParameters params)
+    {
+        return this.stream(() -> HarvestUrls.dayEntriesByProject(params), DayEntryReader::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ProjectCollection> getProjects()
+    {
+        return this.get(() -> HarvestUrls.projects(), ProjectCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ProjectCollection> getProjects(Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.projects(updatedSince), ProjectCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ProjectCollection> getProjects(int clientId)
+    {
+        return this.get(() -> HarvestUrls.projects(clientId), ProjectCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<ProjectCollection> getProjects(int clientId, Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.projects(clientId, updatedSince), ProjectCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<Project> getProject(int id)
+    {
+        return this.get(() -> HarvestUrls.project(id), Project::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<TaskCollection> getTasks()
+    {
+        return this.get(() -> HarvestUrls.tasks(), TaskCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<TaskCollection> getTasks(Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.tasks(updatedSince), TaskCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<Task> getTask(int id)
+    {
+        return this.get(() -> HarvestUrls.task(id), Task::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<UserAssignmentCollection> getUserAssignments(int projectId)
+    {
+        return this.get(() -> HarvestUrls.userAssignments(projectId), UserAssignmentCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<UserAssignmentCollection> getUserAssignments(int projectId, Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.userAssignments(projectId, updatedSince), UserAssignmentCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<TaskAssignmentCollection> getTaskAssignments(int projectId)
+    {
+        return this.get(() -> HarvestUrls.taskAssignments(projectId), TaskAssignmentCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<TaskAssignmentCollection> getTaskAssignments(int projectId, Date updatedSince)
+    {
+        return this.get(() -> HarvestUrls.taskAssignments(projectId, updatedSince), TaskAssignmentCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoiceCollection> getRecentInvoices(GetRecentInvoicesParameters params)
+    {
+        return this.get(() -> HarvestUrls.recentInvoices(params), InvoiceCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<Invoice> getInvoice(int id)
+    {
+        return this.get(() -> HarvestUrls.invoice(id), Invoice::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoiceItemCategoryCollection> getInvoiceItemCategories()
+    {
+        return this.get(() -> HarvestUrls.invoiceItemCategories(), InvoiceItemCategoryCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoiceMessageCollection> getInvoiceMessages(int invoiceId)
+    {
+        return this.get(() -> HarvestUrls.invoiceMessages(invoiceId), InvoiceMessageCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoiceMessage> getInvoiceMessage(int invoiceId, int id)
+    {
+        return this.get(() -> HarvestUrls.invoiceMessage(invoiceId, id), InvoiceMessage::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoicePaymentCollection> getInvoicePayments(int invoiceId)
+    {
+        return this.get(() -> HarvestUrls.invoicePayments(invoiceId), InvoicePaymentCollection::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<InvoicePayment> getInvoicePayment(int invoiceId, int id)
+    {
+        return this.get(() -> HarvestUrls.invoicePayment(invoiceId, id), InvoicePayment::fromInputStream);
+    }
+
+    @Override
+    public CompletableFuture<Integer> populateInvoiceCache(Date from, Date to)
+    {
+        return this.populateInvoiceCache(from, to, null);
+    }
+
+    @Override
+    public CompletableFuture<Integer> populateInvoiceCache(Date from, Date to, InvoiceCacheListener listener)
+    {
+        InvoicePagePrefetcher prefetcher = new InvoicePagePrefetcher(from, to, this.invoicePagesInFlight, this::getRecentInvoices, listener);
+        return prefetcher.start().thenApply(cache -> {
+            this.invoiceCache = cache;
+            return prefetcher.getTotal();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> postInvoicePayment(int invoiceId, String paymentReference, BigDecimal paymentAmount)
+    {
+        String body;
+        try
+        {
+            body = InvoicePaymentBatch.marshal(paymentReference, paymentAmount);
+        }
+        catch (HarvestClientException e)
+        {
+            return failed(e);
+        }
+
+        return this.createRequest(HarvestUrls.invoicePayments(invoiceId)).executePostRequest(body);
+    }
+
+    @Override
+    public CompletableFuture<Void> postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount)
+    {
+        Integer invoiceId = invoiceNumber != null ? invoiceCache.get(invoiceNumber) : null;
+
+        if (invoiceId != null)
+            return postInvoicePayment(invoiceId, paymentReference, paymentAmount);
+        else
+            return failed(new HarvestClientException("Unable to find invoice number " + invoiceNumber + " in cache."));
+    }
+
+    @Override
+    public CompletableFuture<InvoicePaymentBatchResult> postInvoicePayments(Iterable<PostInvoicePaymentParameters> payments)
+    {
+        List<PostInvoicePaymentParameters> list = new ArrayList<PostInvoicePaymentParameters>();
+        Map<String, Integer> cache = this.invoiceCache;
+        Map<String, Integer> invoiceIds = new HashMap<String, Integer>();
+        for (PostInvoicePaymentParameters payment : payments)
+        {
+            list.add(payment);
+            Integer invoiceId = payment.getInvoiceNumber() != null ? cache.get(payment.getInvoiceNumber()) : null;
+            if (invoiceId != null)
+                invoiceIds.put(payment.getInvoiceNumber(), invoiceId);
+        }
+
+        return new InvoicePaymentBatch(list, invoiceIds, this.maxPaymentsInFlight, (invoiceId, body) -> {
+            HarvestAsyncRequest request = this.createRequest(HarvestUrls.invoicePayments(invoiceId));
+            return request.executePostRequest(body).thenApply(v -> request.getThrottleRetries());
+        }).start();
+    }
+
+    /**
+     * @see DefaultHarvestClient#getRetryPolicy()
+     */
+    public HarvestRetryPolicy getRetryPolicy()
+    {
+        return this.transport.getRetryPolicy();
+    }
+
+    /**
+     * @return the rate limiter pacing this client's requests, with metrics on time spent waiting
+     */
+    public HarvestRateLimiter getRateLimiter()
+    {
+        return this.transport.getRateLimiter();
+    }
+
+    @Override
+    public void close()
+    {
+        this.transport.close();
+    }
+
+    /**
+     * @return response body sizes per endpoint, over the wire and decompressed
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.transferStatistics;
+    }
+
+    /**
+     * @see DefaultHarvestClient#getResponseStore()
+     */
+    public ResponseStore getResponseStore()
+    {
+        return this.responseStore;
+    }
+
+    /**
+     * @see DefaultHarvestClient#getRequestCoalescer()
+     */
+    public RequestCoalescer getRequestCoalescer()
+    {
+        return this.coalescer;
+    }
+
+    /**
+     * Fetches and parses a response, retrying transient failures without blocking. With coalescing, callers
+     * asking for a URL that is already being fetched share that request instead.
+     *
+     * @param urlSupplier builds the URL; a failure, such as a missing parameter, fails the returned future
+     */
+    private <T> CompletableFuture<T> get(Supplier<String> urlSupplier, Function<InputStream, T> parser)
+    {
+        String url;
+        try
+        {
+            url = urlSupplier.get();
+        }
+        catch (RuntimeException e)
+        {
+            return failed(e);
+        }
+
+        Supplier<CompletableFuture<T>> request;
+        if (this.responseStore == null)
+            request = () -> this.stream(url, parser);
+        else
+            request = () -> this.transport.getRetryPolicy().callAsync(() -> this.fetch(url, parser), this.transport.getScheduler());
+
+        return this.coalescer != null ? this.coalescer.callAsync(url, request) : request.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> fetch(String url, Function<InputStream, T> parser)
+    {
+        HarvestAsyncRequest request = this.createRequest(url);
+        ResponseStore.StoredResponse stored = this.responseStore.get(url);
+        if (stored != null)
+            request.setValidators(stored.etag, stored.lastModified);
+
+        return request.getInputStream().thenApplyAsync(stream -> {
+            if (request.isNotModified())
+            {
+                this.responseStore.notModified();
+                return (T) stored.value;
+            }
+
+            T value = parser.apply(stream);
+            this.responseStore.put(url, request.getETag(), request.getLastModified(), value, stored != null);
+            return value;
+        }, this.transport.getExecutor());
+    }
+
+    /**
+     * Fetches a response unconditionally, for readers that consume the body as they go.
+     *
+     * @see #get(Supplier, Function)
+     */
+    private <T> CompletableFuture<T> stream(Supplier<String> urlSupplier, Function<InputStream, T> parser)
+    {
+        String url;
+        try
+        {
+            url = urlSupplier.get();
+        }
+        catch (RuntimeException e)
+        {
+            return failed(e);
+        }
+
+        return this.stream(url, parser);
+    }
+
+    private <T> CompletableFuture<T> stream(String url, Function<InputStream, T> parser)
+    {
+        return this.transport.getRetryPolicy().callAsync(
+                () -> this.createRequest(url).getInputStream().thenApplyAsync(parser, this.transport.getExecutor()),
+                this.transport.getScheduler());
+    }
+
+    private HarvestAsyncRequest createRequest(String url)
+    {
+        HarvestAsyncRequest request = new HarvestAsyncRequest();
+        request.setUrl(url);
+        request.setSubdomain(this.subDomain);
+        request.setUsername(this.username);
+        request.setPassword(this.password);
+        request.setBaseUrl(this.baseUrl);
+        request.setAsyncTransport(this.transport);
+        request.setCompression(this.compression);
+        request.setTransferStatistics(this.transferStatistics);
+        return request;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e)
+    {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
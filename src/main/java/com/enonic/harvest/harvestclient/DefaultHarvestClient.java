@@ -1,423 +1,669 @@
 package com.enonic.harvest.harvestclient;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
-import com.enonic.harvest.harvestclient.exceptions.MissingParameterException;
 import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
 import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
 import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
 import com.enonic.harvest.harvestclient.models.*;
-
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.message.BasicNameValuePair;
+import org.reactivestreams.Publisher;
 
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
-import java.net.URLEncoder;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
-
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+
+/**
+ * Default {@link HarvestClient} implementation.
+ *
+ * Instances are safe for concurrent use; share one client between threads so they also share
+ * its connection pool and rate limiter.
+ */
 public class DefaultHarvestClient
         implements HarvestClient
 {
-    private String username;
-    private String password;
-    private String subDomain;
+    private final String username;
+    private final String password;
+    private final String subDomain;
+    private final String baseUrl;
+
+    private final HarvestTransport transport;
+    private final Executor executor;
+    // Virtual thread per task executor created for this client, or null when using the configured executor
+    private final ExecutorService virtualThreadExecutor;
+    // Pool created for this client when the config has no executor, or null
+    private final ExecutorService defaultExecutor;
+    private final int fanOutParallelism;
+    private final int invoicePagesInFlight;
+    private final int maxPaymentsInFlight;
 
-    private SimpleDateFormat dateFormatter     = new SimpleDateFormat("yyyyMMdd");
-    private SimpleDateFormat dateTimeFormatter = new SimpleDateFormat("yyyy-MM-dd hh:mm");
-    
     // Cache of recent invoices used for mapping invoice number to invoice ID (not included in Harvest CSV export).
-    private Map<String, Integer> invoiceCache = new HashMap<String, Integer>();
+    // Replaced as a whole when repopulated, so readers never see a half-built cache.
+    private volatile Map<String, Integer> invoiceCache = new ConcurrentHashMap<String, Integer>();
+
+    private final boolean compression;
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+
+    // Parsed responses served on 304 Not Modified, or null if conditional requests are disabled
+    private final ResponseStore responseStore;
+
+    // Requests in flight shared by concurrent callers, or null if coalescing is disabled
+    private final RequestCoalescer coalescer;
+
+    // Persistent invoice number index, or null if the config has no index file
+    private final InvoiceNumberIndex invoiceIndex;
 
     public DefaultHarvestClient(String username, String password, String subDomain)
+    {
+        this(username, password, subDomain, new HarvestClientConfig());
+    }
+
+    public DefaultHarvestClient(String username, String password, String subDomain, HarvestClientConfig config)
     {
         this.username = username;
         this.password = password;
         this.subDomain = subDomain;
+        this.baseUrl = config.getBaseUrl();
+        this.transport = new HarvestTransport(config);
+        this.virtualThreadExecutor = config.isVirtualThreads() ? VirtualThreads.newExecutor() : null;
+        this.defaultExecutor = this.virtualThreadExecutor == null && config.getExecutor() == null
+                ? HarvestExecutors.newExecutor(config, "harvestclient-worker") : null;
+        this.executor = this.virtualThreadExecutor != null ? this.virtualThreadExecutor
+                : this.defaultExecutor != null ? this.defaultExecutor : config.getExecutor();
+        this.fanOutParallelism = config.getMaxConnectionsPerRoute();
+        this.invoicePagesInFlight = config.getInvoicePagesInFlight();
+        this.maxPaymentsInFlight = config.getMaxPaymentsInFlight();
+        this.compression = config.isCompression();
+        this.responseStore = config.getResponseStoreSize() > 0 ? new ResponseStore(config.getResponseStoreSize()) : null;
+        this.coalescer = config.isRequestCoalescing() ? new RequestCoalescer() : null;
+        this.invoiceIndex = config.getInvoiceIndexFile() != null ? InvoiceNumberIndex.open(config.getInvoiceIndexFile()) : null;
     }
 
     @Override
     public UserCollection getUsers()
             throws HarvestClientException
     {
-        return UserCollection.fromInputStream(this.getInputStream("/people"));
+        return this.get(HarvestUrls.users(), UserCollection::fromInputStream);
     }
 
     @Override
     public UserCollection getUsers(Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return UserCollection.fromInputStream(this.getInputStream("/people?updated_since=%s", updatedSinceUrlString));
+        return this.get(HarvestUrls.users(updatedSince), UserCollection::fromInputStream);
     }
 
     @Override
     public User getUser(int id)
             throws HarvestClientException
     {
-        return User.fromInputStream(this.getInputStream("/people/%s", id));
+        return this.get(HarvestUrls.user(id), User::fromInputStream);
     }
 
     @Override
     public ClientCollection getClients()
             throws HarvestClientException
     {
-        return ClientCollection.fromInputStream(this.getInputStream("/clients"));
+        return this.get(HarvestUrls.clients(), ClientCollection::fromInputStream);
     }
 
     @Override
     public ClientCollection getClients(Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return ClientCollection.fromInputStream(this.getInputStream("/clients?updated_since=%s", updatedSinceUrlString));
+        return this.get(HarvestUrls.clients(updatedSince), ClientCollection::fromInputStream);
     }
 
     @Override
     public Client getClient(int id)
             throws HarvestClientException
     {
-        return Client.fromInputStream(this.getInputStream("/clients/%s", id));
+        return this.get(HarvestUrls.client(id), Client::fromInputStream);
     }
 
     @Override
     public DayEntryCollection getDayEntriesByUser(GetDayEntriesByUserParameters params)
             throws HarvestClientException
     {
-        if (params.fromDate == null)
-            throw new MissingParameterException("fromDate");
-        if (params.toDate == null)
-            throw new MissingParameterException("toDate");
-
-        List<NameValuePair> urlParams = new ArrayList<NameValuePair>();
-        urlParams.add(new BasicNameValuePair("from", this.dateFormatter.format(params.fromDate)));
-        urlParams.add(new BasicNameValuePair("to", this.dateFormatter.format(params.toDate)));
-
-        if (params.updatedSince != null)
-        {
-            urlParams.add(new BasicNameValuePair("updated_since", this.dateTimeFormatter.format(params.updatedSince)));
-        }
-
-        String urlParamString = URLEncodedUtils.format(urlParams, "utf-8");
+        return this.get(HarvestUrls.dayEntriesByUser(params), DayEntryCollection::fromInputStream);
+    }
 
-        return DayEntryCollection.fromInputStream(this.getInputStream("/people/%s/entries?%s", params.userId, urlParamString));
+    @Override
+    public DayEntryReader streamDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return DayEntryReader.fromInputStream(this.getInputStream(HarvestUrls.dayEntriesByUser(params)));
     }
 
     @Override
     public DayEntryCollection getDayEntriesByProject(GetDayEntriesByProjectParameters params)
             throws HarvestClientException
     {
-        if (params.fromDate == null)
-            throw new MissingParameterException("fromDate");
-        if (params.toDate == null)
-            throw new MissingParameterException("toDate");
-
-        List<NameValuePair> urlParams = new ArrayList<NameValuePair>();
-        urlParams.add(new BasicNameValuePair("from", this.dateFormatter.format(params.fromDate)));
-        urlParams.add(new BasicNameValuePair("to", this.dateFormatter.format(params.toDate)));
-
-        if (params.updatedSince != null)
-        {
-            urlParams.add(new BasicNameValuePair("updated_since", this.dateTimeFormatter.format(params.updatedSince)));
-        }
-
-        String urlParamString = URLEncodedUtils.format(urlParams, "utf-8");
+        return this.get(HarvestUrls.dayEntriesByProject(params), DayEntryCollection::fromInputStream);
+    }
 
-        return DayEntryCollection.fromInputStream(this.getInputStream("/projects/%s/entries?%s", params.projectId, urlParamString));
+    @Override
+    public DayEntryReader streamDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return DayEntryReader.fromInputStream(this.getInputStream(HarvestUrls.dayEntriesByProject(params)));
     }
 
     @Override
     public ProjectCollection getProjects()
             throws HarvestClientException
     {
-        return ProjectCollection.fromInputStream(this.getInputStream("/projects"));
+        return this.get(HarvestUrls.projects(), ProjectCollection::fromInputStream);
     }
 
     @Override
     public ProjectCollection getProjects(Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return ProjectCollection.fromInputStream(this.getInputStream("/projects?updated_since=%s", updatedSinceUrlString));
+        return this.get(HarvestUrls.projects(updatedSince), ProjectCollection::fromInputStream);
     }
 
     @Override
     public ProjectCollection getProjects(int clientId)
             throws HarvestClientException
     {
-        return ProjectCollection.fromInputStream(this.getInputStream("/projects?client=%s", clientId));
+        return this.get(HarvestUrls.projects(clientId), ProjectCollection::fromInputStream);
     }
 
     @Override
     public ProjectCollection getProjects(int clientId, Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return ProjectCollection.fromInputStream(this.getInputStream("/projects?client=%s&updated_since=%s", clientId, updatedSinceUrlString));
+        return this.get(HarvestUrls.projects(clientId, updatedSince), ProjectCollection::fromInputStream);
     }
 
     @Override
     public Project getProject(int id)
             throws HarvestClientException
     {
-        return Project.fromInputStream(this.getInputStream("/projects/%s", id));
+        return this.get(HarvestUrls.project(id), Project::fromInputStream);
     }
 
     @Override
     public UserAssignmentCollection getUserAssignments(int projectId)
             throws HarvestClientException
     {
-        return UserAssignmentCollection.fromInputStream(this.getInputStream("/projects/%s/user_assignments", projectId));
+        return this.get(HarvestUrls.userAssignments(projectId), UserAssignmentCollection::fromInputStream);
     }
 
     @Override
     public UserAssignmentCollection getUserAssignments(int projectId, Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return UserAssignmentCollection.fromInputStream(this.getInputStream("/projects/%s/user_assignments?updated_since=%s", projectId, updatedSinceUrlString));
+        return this.get(HarvestUrls.userAssignments(projectId, updatedSince), UserAssignmentCollection::fromInputStream);
     }
 
     @Override
     public TaskCollection getTasks()
             throws HarvestClientException
     {
-        return TaskCollection.fromInputStream(this.getInputStream("/tasks"));
+        return this.get(HarvestUrls.tasks(), TaskCollection::fromInputStream);
     }
 
     @Override
     public TaskCollection getTasks(Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return TaskCollection.fromInputStream(this.getInputStream("/tasks?updated_since=%s", updatedSinceUrlString));
+        return this.get(HarvestUrls.tasks(updatedSince), TaskCollection::fromInputStream);
     }
 
     @Override
     public Task getTask(int id)
             throws HarvestClientException
     {
-        return Task.fromInputStream(this.getInputStream("/tasks/%s", id));
+        return this.get(HarvestUrls.task(id), Task::fromInputStream);
     }
 
     @Override
     public TaskAssignmentCollection getTaskAssignments(int projectId)
             throws HarvestClientException
     {
-        return TaskAssignmentCollection.fromInputStream(this.getInputStream("/projects/%s/task_assignments", projectId));
+        return this.get(HarvestUrls.taskAssignments(projectId), TaskAssignmentCollection::fromInputStream);
     }
 
     @Override
     public TaskAssignmentCollection getTaskAssignments(int projectId, Date updatedSince)
             throws HarvestClientException
     {
-        String updatedSinceUrlString;
-        try
-        {
-            updatedSinceUrlString = URLEncoder.encode(this.dateTimeFormatter.format(updatedSince), "utf-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new HarvestClientException("Unsupported encoding.", e);
-        }
-        return TaskAssignmentCollection.fromInputStream(this.getInputStream("/projects/%s/task_assignments?updated_since=%s", projectId, updatedSinceUrlString));
+        return this.get(HarvestUrls.taskAssignments(projectId, updatedSince), TaskAssignmentCollection::fromInputStream);
     }
 
     @Override
     public InvoiceCollection getRecentInvoices(GetRecentInvoicesParameters params)
             throws HarvestClientException
     {
-        List<NameValuePair> urlParams = new ArrayList<NameValuePair>();
-
-        if (params.getPage() != null)
-            urlParams.add(new BasicNameValuePair("page", params.getPage().toString()));
-        if (params.getFromDate() != null)
-            urlParams.add(new BasicNameValuePair("from", this.dateFormatter.format(params.getFromDate())));
-        if (params.getToDate() != null)
-            urlParams.add(new BasicNameValuePair("to", this.dateFormatter.format(params.getToDate())));
-        if (params.getUpdatedSince() != null)
-            urlParams.add(new BasicNameValuePair("updated_since", this.dateFormatter.format(params.getUpdatedSince())));
-        if (params.getStatus() != null)
-            urlParams.add(new BasicNameValuePair("status", params.getStatus()));
-        if (params.getClient() != null)
-            urlParams.add(new BasicNameValuePair("client", params.getClient().toString()));
-
-        String urlParamString = URLEncodedUtils.format(urlParams, "utf-8");
-
-        return InvoiceCollection.fromInputStream(this.getInputStream("/invoices?%s", urlParamString));
+        return this.get(HarvestUrls.recentInvoices(params), InvoiceCollection::fromInputStream);
     }
 
     @Override
     public Invoice getInvoice(int id)
             throws HarvestClientException
     {
-        return Invoice.fromInputStream(this.getInputStream("/invoices/%s", id));
+        return this.get(HarvestUrls.invoice(id), Invoice::fromInputStream);
     }
 
     @Override
     public InvoiceItemCategoryCollection getInvoiceItemCategories()
             throws HarvestClientException
     {
-        return InvoiceItemCategoryCollection.fromInputStream(this.getInputStream("/invoice_item_categories"));
+        return this.get(HarvestUrls.invoiceItemCategories(), InvoiceItemCategoryCollection::fromInputStream);
     }
 
     @Override
     public InvoiceMessageCollection getInvoiceMessages(int invoiceId)
             throws HarvestClientException
     {
-        return InvoiceMessageCollection.fromInputStream(this.getInputStream("/invoices/%s/messages", invoiceId));
+        return this.get(HarvestUrls.invoiceMessages(invoiceId), InvoiceMessageCollection::fromInputStream);
     }
 
     @Override
     public InvoiceMessage getInvoiceMessage(int invoiceId, int id)
-            throws  HarvestClientException
+            throws HarvestClientException
     {
-        return InvoiceMessage.fromInputStream(this.getInputStream("/invoices/%s/messages/%s", invoiceId, id));
+        return this.get(HarvestUrls.invoiceMessage(invoiceId, id), InvoiceMessage::fromInputStream);
     }
 
     @Override
     public InvoicePaymentCollection getInvoicePayments(int invoiceId)
             throws HarvestClientException
     {
-        return InvoicePaymentCollection.fromInputStream(this.getInputStream("/invoices/%s/payments", invoiceId));
+        return this.get(HarvestUrls.invoicePayments(invoiceId), InvoicePaymentCollection::fromInputStream);
     }
 
     @Override
     public InvoicePayment getInvoicePayment(int invoiceId, int id)
             throws HarvestClientException
     {
-        return InvoicePayment.fromInputStream(this.getInputStream("/invoices/%s/payments/%s", invoiceId, id));
+        return this.get(HarvestUrls.invoicePayment(invoiceId, id), InvoicePayment::fromInputStream);
+    }
+
+    /**
+     * Reads the day entries of a project into a {@link DayEntryTable}, which takes a fraction of the
+     * memory of a {@link DayEntryCollection} for large reports.
+     */
+    @Override
+    public DayEntryTable getDayEntryTableByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return this.get(HarvestUrls.dayEntriesByProject(params), DayEntryTable::fromInputStream);
+    }
+
+    /**
+     * @see #getDayEntryTableByProject(GetDayEntriesByProjectParameters)
+     */
+    @Override
+    public DayEntryTable getDayEntryTableByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return this.get(HarvestUrls.dayEntriesByUser(params), DayEntryTable::fromInputStream);
+    }
+
+    /**
+     * Publishes the day entries of a project as they are parsed, reading the response only as fast as
+     * the subscriber requests entries.
+     *
+     * @see EntityPublisher
+     */
+    @Override
+    public Publisher<DayEntry> publishDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        String url = HarvestUrls.dayEntriesByProject(params);
+        return new EntityPublisher<DayEntry>(() -> DayEntryReader.fromInputStream(this.getInputStream(url)), this.executor);
+    }
+
+    /**
+     * @see #publishDayEntriesByProject(GetDayEntriesByProjectParameters)
+     */
+    @Override
+    public Publisher<DayEntry> publishDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        String url = HarvestUrls.dayEntriesByUser(params);
+        return new EntityPublisher<DayEntry>(() -> DayEntryReader.fromInputStream(this.getInputStream(url)), this.executor);
+    }
+
+    /**
+     * Publishes all projects as they are parsed.
+     */
+    @Override
+    public Publisher<Project> publishProjects()
+    {
+        return new EntityPublisher<Project>(
+                () -> EntityReader.fromInputStream(this.getInputStream(HarvestUrls.projects()), Project.class, "project", ProjectCollection.class),
+                this.executor);
+    }
+
+    /**
+     * Publishes the invoices matching the filters in params, from its page (the first by default) until
+     * the first empty page. The next page is requested once the subscriber has taken every invoice of
+     * the current one.
+     */
+    @Override
+    public Publisher<Invoice> publishInvoices(GetRecentInvoicesParameters params)
+    {
+        int firstPage = params.getPage() != null ? params.getPage() : 1;
+        return new EntityPublisher<Invoice>(() -> new PagedEntityReader<Invoice>(page -> {
+            GetRecentInvoicesParameters pageParams = new GetRecentInvoicesParameters();
+            pageParams.setFromDate(params.getFromDate());
+            pageParams.setToDate(params.getToDate());
+            pageParams.setUpdatedSince(params.getUpdatedSince());
+            pageParams.setStatus(params.getStatus());
+            pageParams.setClient(params.getClient());
+            pageParams.setPage(page);
+            String url = HarvestUrls.recentInvoices(pageParams);
+            return EntityReader.fromInputStream(this.getInputStream(url), Invoice.class, "invoice", InvoiceCollection.class);
+        }, firstPage), this.executor);
+    }
+
+    /**
+     * Opens a response for a reader that consumes it incrementally; closing the stream releases the connection.
+     */
+    private InputStream getInputStream(String url)
+            throws HarvestClientException
+    {
+        return this.transport.getRetryPolicy().call(() -> this.createGetRequest(url).getInputStream());
+    }
+
+    /**
+     * Fetches and parses a response, retrying transient failures of either step. With coalescing, callers
+     * asking for a URL that is already being fetched wait for that request instead.
+     */
+    private <T> T get(String url, Function<InputStream, T> parser)
+            throws HarvestClientException
+    {
+        if (this.coalescer != null)
+            return this.coalescer.call(url, () -> this.transport.getRetryPolicy().call(() -> this.fetch(url, parser)));
+        return this.transport.getRetryPolicy().call(() -> this.fetch(url, parser));
     }
 
-    private InputStream getInputStream(String url, Object... args)
+    /**
+     * Fetches and parses a response, then releases its connection. With a response store, the request is made conditional on the
+     * stored response for the URL, which is returned as is when Harvest reports it unchanged.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T fetch(String url, Function<InputStream, T> parser)
             throws HarvestClientException
+    {
+        HarvestGetRequest request = this.createGetRequest(url);
+        ResponseStore.StoredResponse stored = this.responseStore != null ? this.responseStore.get(url) : null;
+        if (stored != null)
+            request.setValidators(stored.etag, stored.lastModified);
+
+        // The response is released as soon as it is parsed, whether parsing succeeds or not
+        T value;
+        try (HarvestResponse response = request.getResponse())
+        {
+            if (request.isNotModified())
+            {
+                this.responseStore.notModified();
+                return (T) stored.value;
+            }
+            value = parser.apply(response.getContent());
+        }
+
+        if (this.responseStore != null)
+            this.responseStore.put(url, request.getETag(), request.getLastModified(), value, stored != null);
+        return value;
+    }
+
+    private HarvestGetRequest createGetRequest(String url)
     {
         HarvestGetRequest request = new HarvestGetRequest();
-        request.setUrl(String.format(url, args));
+        request.setUrl(url);
         request.setSubdomain(this.subDomain);
         request.setUsername(this.username);
         request.setPassword(this.password);
-        return request.getInputStream();
+        request.setBaseUrl(this.baseUrl);
+        request.setTransport(this.transport);
+        request.setCompression(this.compression);
+        request.setTransferStatistics(this.transferStatistics);
+        return request;
+    }
+
+    /**
+     * @return response body sizes per endpoint, over the wire and decompressed
+     */
+    public TransferStatistics getTransferStatistics()
+    {
+        return this.transferStatistics;
+    }
+
+    /**
+     * @return the detector of responses that are never closed, or null unless enabled with
+     * {@link HarvestClientConfig#setLeakDetection(boolean)}
+     */
+    public ResponseLeakDetector getLeakDetector()
+    {
+        return this.transport.getLeakDetector();
+    }
+
+    /**
+     * @return the store of parsed responses used for conditional requests, or null if disabled
+     */
+    public ResponseStore getResponseStore()
+    {
+        return this.responseStore;
+    }
+
+    /**
+     * @return the requests shared by concurrent callers, or null if coalescing is disabled
+     */
+    public RequestCoalescer getRequestCoalescer()
+    {
+        return this.coalescer;
+    }
+
+    /**
+     * @return the policy retrying failed GET requests, with its attempt and outcome counters
+     */
+    public HarvestRetryPolicy getRetryPolicy()
+    {
+        return this.transport.getRetryPolicy();
+    }
+
+    /**
+     * @return the rate limiter pacing this client's requests, with metrics on time spent waiting
+     */
+    public HarvestRateLimiter getRateLimiter()
+    {
+        return this.transport.getRateLimiter();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.virtualThreadExecutor != null)
+            this.virtualThreadExecutor.shutdown();
+        if (this.defaultExecutor != null)
+            this.defaultExecutor.shutdown();
+        this.transport.close();
+    }
+
+    /**
+     * Calls {@code call} for every project, concurrently on the client's executor with at most one call per
+     * pooled connection in flight, and returns the results by project id. With
+     * {@link HarvestClientConfig#setVirtualThreads(boolean)} each call gets its own virtual thread.
+     *
+     * @see ProjectFanOut
+     */
+    @Override
+    public <T> Map<Integer, T> forEachProject(Function<Project, T> call)
+            throws HarvestClientException
+    {
+        return new ProjectFanOut(this.executor, this.fanOutParallelism).apply(this.getProjects(), call);
+    }
+
+    /**
+     * @return whether work is run on virtual threads, which requires both the config option and Java 21 or later
+     */
+    public boolean isVirtualThreads()
+    {
+        return this.virtualThreadExecutor != null;
     }
     
-    public int populateInvoiceCache(Date from, Date to) {
-        // Clear the existing cache
-        invoiceCache.clear();
-        
-        int currentPage = 1;
-        GetRecentInvoicesParameters params = new GetRecentInvoicesParameters();
-        params.setFromDate(from);
-        params.setToDate(to);
-        params.setPage(currentPage);
-        boolean resultsExhausted = false;
-        List<Invoice> recentInvoices = new ArrayList<Invoice>();
-        
-        // Iterate through the result pages until no further invoices are found
-        while (!resultsExhausted) {
-            
-            System.out.println("Retrieving recent invoices, page " + currentPage);
-            InvoiceCollection invoiceCollection = getRecentInvoices(params);
-            List<Invoice> invoiceList = invoiceCollection.getList();
-
-            if (invoiceList.size() > 0)
-                recentInvoices.addAll(invoiceList);
-            else
-                resultsExhausted = true;
-            
-            currentPage++;
-            params.setPage(currentPage);
+    @Override
+    public int populateInvoiceCache(Date from, Date to)
+            throws HarvestClientException
+    {
+        return this.populateInvoiceCache(from, to, null);
+    }
+
+    @Override
+    public int populateInvoiceCache(Date from, Date to, InvoiceCacheListener listener)
+            throws HarvestClientException
+    {
+        // Pages ahead of the one being read are fetched on the executor, each blocking on its own connection
+        InvoicePagePrefetcher prefetcher = new InvoicePagePrefetcher(from, to, this.invoicePagesInFlight,
+                params -> CompletableFuture.supplyAsync(() -> this.getRecentInvoices(params), this.executor), listener);
+
+        try
+        {
+            this.invoiceCache = prefetcher.start().join();
         }
-            
-        // Populate the cache with the Number --> Id mapping
-        for (Invoice invoice:recentInvoices)
-            invoiceCache.put(invoice.getNumber(), invoice.getId());
-        
-        return recentInvoices.size();
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof HarvestClientException)
+                throw (HarvestClientException) e.getCause();
+            throw new HarvestClientException("Could not populate invoice cache.", e.getCause());
+        }
+
+        return prefetcher.getTotal();
     }
-    
-    public void postInvoicePayment(int invoiceId, String paymentReference, BigDecimal paymentAmount) throws HarvestClientException {
-        // Create and populate the payment object
-        InvoicePayment payment = new InvoicePayment();
-        payment.setPaidAt(new Date());
-        payment.setAmount(paymentAmount);
-        payment.setNotes(paymentReference);
-
-        // DIAGNOSTIC
-        System.out.println(InvoicePayment.marshal(payment));
-        
+
+    @Override
+    public void postInvoicePayment(int invoiceId, String paymentReference, BigDecimal paymentAmount)
+            throws HarvestClientException
+    {
+        this.post(invoiceId, InvoicePaymentBatch.marshal(paymentReference, paymentAmount));
+    }
+
+    @Override
+    public void postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount)
+            throws HarvestClientException
+    {
+        // Lookup the invoice Id from the cache, then from the persistent index
+        Integer invoiceId = invoiceNumber != null ? this.findInvoiceId(invoiceNumber) : null;
+
+        if (invoiceId != null)
+            postInvoicePayment(invoiceId, paymentReference, paymentAmount);
+        else
+            throw new HarvestClientException("Unable to find invoice number " + invoiceNumber + " in cache.");
+    }
+
+    @Override
+    public InvoicePaymentBatchResult postInvoicePayments(Iterable<PostInvoicePaymentParameters> payments)
+            throws HarvestClientException
+    {
+        List<PostInvoicePaymentParameters> list = new ArrayList<PostInvoicePaymentParameters>();
+        for (PostInvoicePaymentParameters payment : payments)
+            list.add(payment);
+
+        // Each payment blocks one executor thread on a pooled connection while it is posted
+        InvoicePaymentBatch batch = new InvoicePaymentBatch(list, this.resolveInvoiceNumbers(list), this.maxPaymentsInFlight,
+                (invoiceId, body) -> CompletableFuture.supplyAsync(() -> this.post(invoiceId, body), this.executor));
+        return batch.start().join();
+    }
+
+    /**
+     * Posts a marshalled payment.
+     *
+     * @return the number of retries after throttled responses
+     */
+    private int post(int invoiceId, String body)
+            throws HarvestClientException
+    {
         HarvestPostRequest request = new HarvestPostRequest();
-        request.setUrl(String.format("/invoices/%s/payments", invoiceId));
+        request.setUrl(HarvestUrls.invoicePayments(invoiceId));
         request.setSubdomain(this.subDomain);
         request.setUsername(this.username);
         request.setPassword(this.password);
+        request.setBaseUrl(this.baseUrl);
+        request.setTransport(this.transport);
+        request.executePostRequest(body);
+        return request.getThrottleRetries();
+    }
 
-        // Execute the POST request
-        request.executePostRequest(InvoicePayment.marshal(payment));
+    /**
+     * Looks up the invoice ids of all payments given by invoice number. The persistent index, if any,
+     * is updated at most once for the whole batch.
+     */
+    private Map<String, Integer> resolveInvoiceNumbers(List<PostInvoicePaymentParameters> payments)
+            throws HarvestClientException
+    {
+        Map<String, Integer> cache = this.invoiceCache;
+        Map<String, Integer> invoiceIds = new HashMap<String, Integer>();
+        Set<String> missing = new HashSet<String>();
+
+        for (PostInvoicePaymentParameters payment : payments)
+        {
+            String invoiceNumber = payment.getInvoiceNumber();
+            if (payment.getInvoiceId() != null || invoiceNumber == null || invoiceIds.containsKey(invoiceNumber))
+                continue;
+
+            Integer invoiceId = cache.get(invoiceNumber);
+            if (invoiceId == null && this.invoiceIndex != null)
+                invoiceId = this.invoiceIndex.get(invoiceNumber);
+
+            if (invoiceId != null)
+                invoiceIds.put(invoiceNumber, invoiceId);
+            else
+                missing.add(invoiceNumber);
+        }
+
+        if (!missing.isEmpty() && this.invoiceIndex != null)
+        {
+            this.invoiceIndex.update(this);
+            for (String invoiceNumber : missing)
+            {
+                Integer invoiceId = this.invoiceIndex.get(invoiceNumber);
+                if (invoiceId != null)
+                    invoiceIds.put(invoiceNumber, invoiceId);
+            }
+        }
+
+        return invoiceIds;
     }
 
-    public void postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount) throws HarvestClientException {
-        // Lookup the invoice Id from the cache
+    /**
+     * @return the persistent invoice number index, or null if no index file is configured
+     */
+    public InvoiceNumberIndex getInvoiceIndex()
+    {
+        return this.invoiceIndex;
+    }
+
+    private Integer findInvoiceId(String invoiceNumber)
+            throws HarvestClientException
+    {
         Integer invoiceId = invoiceCache.get(invoiceNumber);
-        
-        if (invoiceId != null)
-            postInvoicePayment(invoiceId, paymentReference, paymentAmount);
-        else
-            throw new HarvestClientException("Unable to find invoice number " + invoiceNumber + " in cache.");
+        if (invoiceId != null || this.invoiceIndex == null)
+            return invoiceId;
+
+        invoiceId = this.invoiceIndex.get(invoiceNumber);
+        if (invoiceId == null)
+        {
+            // Most likely an invoice created since the index was last updated
+            this.invoiceIndex.update(this);
+            invoiceId = this.invoiceIndex.get(invoiceNumber);
+        }
+        return invoiceId;
     }
 }
@@ -0,0 +1,186 @@
+package com.enonic.harvest.harvestclient;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Reactive Streams publisher of entities read from Harvest one at a time.
+ *
+ * Each subscriber gets its own reader, opened on the first request. Entities are read only as the
+ * subscriber requests them, on the executor, so a slow subscriber stops the response from being read
+ * instead of having entities buffered for it. Cancelling closes the reader and its connection.
+ */
+public class EntityPublisher<T>
+        implements Publisher<T>
+{
+    private final Supplier<? extends Iterator<T>> source;
+    private final Executor executor;
+
+    /**
+     * @param source opens a reader over the entities; readers that are {@link Closeable} are closed when done
+     * @param executor the executor that reads entities and signals the subscriber
+     */
+    public EntityPublisher(Supplier<? extends Iterator<T>> source, Executor executor)
+    {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber)
+    {
+        if (subscriber == null)
+            throw new NullPointerException("subscriber");
+
+        subscriber.onSubscribe(new EntitySubscription(subscriber));
+    }
+
+    private class EntitySubscription
+            implements Subscription, Runnable
+    {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Number of signals to drain; the thread that raises it from zero runs the drain loop
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        // Set by a request for zero or fewer entities; a long would not tell request(0) from no request
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only touched by the drain loop
+        private Iterator<T> entities;
+        private boolean done;
+
+        EntitySubscription(Subscriber<? super T> subscriber)
+        {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                this.invalidRequest = new IllegalArgumentException("Requested " + n + " entities; the request must be positive");
+            }
+            else
+            {
+                long current;
+                do
+                {
+                    current = this.demand.get();
+                }
+                while (!this.demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void cancel()
+        {
+            this.cancelled = true;
+            this.schedule();
+        }
+
+        private void schedule()
+        {
+            if (this.pending.getAndIncrement() == 0)
+            {
+                try
+                {
+                    executor.execute(this);
+                }
+                catch (RuntimeException e)
+                {
+                    this.done = true;
+                    this.subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            do
+            {
+                this.drain();
+                missed = this.pending.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void drain()
+        {
+            if (this.done)
+                return;
+
+            if (this.cancelled)
+            {
+                this.finish();
+                return;
+            }
+
+            if (this.invalidRequest != null)
+            {
+                this.finish();
+                this.subscriber.onError(this.invalidRequest);
+                return;
+            }
+
+            try
+            {
+                if (this.entities == null)
+                    this.entities = source.get();
+
+                while (this.demand.get() > 0 && !this.cancelled)
+                {
+                    if (!this.entities.hasNext())
+                    {
+                        this.finish();
+                        this.subscriber.onComplete();
+                        return;
+                    }
+
+                    T entity = this.entities.next();
+                    this.demand.decrementAndGet();
+                    this.subscriber.onNext(entity);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                this.finish();
+                this.subscriber.onError(e);
+                return;
+            }
+
+            if (this.cancelled)
+                this.finish();
+        }
+
+        private void finish()
+        {
+            this.done = true;
+            if (this.entities instanceof Closeable)
+            {
+                try
+                {
+                    ((Closeable) this.entities).close();
+                }
+                catch (IOException e)
+                {
+                    // Nothing left to read from it
+                }
+            }
+            this.entities = null;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous GET and POST requests executed on a {@link HarvestAsyncTransport}.
+ *
+ * The response body is buffered by the transport, so the returned stream can be parsed without
+ * holding a connection.
+ */
+class HarvestAsyncRequest
+        extends HarvestRequest
+{
+    protected HarvestAsyncTransport asyncTransport;
+
+    /**
+     * @return the response body, or null if a conditional request was answered with 304 Not Modified
+     */
+    public CompletableFuture<InputStream> getInputStream()
+    {
+        HttpGet request;
+
+        try
+        {
+            request = new HttpGet(this.getUrl());
+            this.addGetHeaders(request);
+        }
+        catch (Exception e)
+        {
+            return failed(new HarvestClientException("Could not perform request.", e));
+        }
+
+        return this.send(request).thenApply(response -> {
+            if (this.readValidators(response))
+                return null;
+
+            if (response.getStatusLine().getStatusCode() != 200)
+                throw new UnexpectedStatusException(response.getStatusLine().getStatusCode(), this.getUrl(), getRetryAfter(response, 0));
+
+            try
+            {
+                return this.getContent(response);
+            }
+            catch (Exception e)
+            {
+                throw new HarvestClientException("Failed to get InputStream from response.", e);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> executePostRequest(String requestBody)
+    {
+        HttpPost request;
+
+        try
+        {
+            request = new HttpPost(this.getUrl());
+            request.addHeader("Authorization", this.getAuthenticationHeader());
+            request.addHeader("Accept", "application/xml");
+            request.addHeader("Content-Type", "application/xml");
+            request.addHeader("User-Agent", "HarvestClient");
+            request.setEntity(new StringEntity(requestBody));
+        }
+        catch (Exception e)
+        {
+            return failed(new HarvestClientException("Could not perform request.", e));
+        }
+
+        return this.send(request).thenAccept(response -> {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != 200 && statusCode != 201)
+                throw new UnexpectedStatusException(statusCode, this.getUrl(), getRetryAfter(response, 0));
+        });
+    }
+
+    private CompletableFuture<HttpResponse> send(HttpUriRequest request)
+    {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+        this.schedule(request, future, 0);
+        return future;
+    }
+
+    /**
+     * Dispatches the request once the rate limiter allows it, without blocking the calling thread.
+     */
+    private void schedule(HttpUriRequest request, CompletableFuture<HttpResponse> future, int throttleRetries)
+    {
+        long wait = this.asyncTransport.getRateLimiter().reserve();
+        if (wait > 0)
+            this.asyncTransport.getScheduler().schedule(() -> this.dispatch(request, future, throttleRetries), wait, TimeUnit.NANOSECONDS);
+        else
+            this.dispatch(request, future, throttleRetries);
+    }
+
+    private void dispatch(HttpUriRequest request, CompletableFuture<HttpResponse> future, int throttleRetries)
+    {
+        this.asyncTransport.getHttpClient().execute(request, new FutureCallback<HttpResponse>()
+        {
+            @Override
+            public void completed(HttpResponse response)
+            {
+                HarvestAsyncRequest.this.throttleRetries = throttleRetries;
+                if (response.getStatusLine().getStatusCode() != 503)
+                {
+                    future.complete(response);
+                }
+                else if (throttleRetries >= asyncTransport.getMaxThrottleRetries())
+                {
+                    future.completeExceptionally(new ThrottleLimitReachedException());
+                }
+                else
+                {
+                    asyncTransport.getRateLimiter().pause(getRetryAfter(response, asyncTransport.getDefaultRetryAfter()));
+                    schedule(request, future, throttleRetries + 1);
+                }
+            }
+
+            @Override
+            public void failed(Exception e)
+            {
+                future.completeExceptionally(new HarvestClientException("Could not perform request.", e));
+            }
+
+            @Override
+            public void cancelled()
+            {
+                future.cancel(false);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e)
+    {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    public void setAsyncTransport(HarvestAsyncTransport asyncTransport)
+    {
+        this.asyncTransport = asyncTransport;
+    }
+}
@@ -0,0 +1,139 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link HarvestTransport}, owned by each {@link DefaultAsyncHarvestClient}.
+ *
+ * Requests are multiplexed over a small number of I/O reactor threads. Requests held back by the
+ * rate limiter are scheduled for later instead of parking a thread.
+ */
+class HarvestAsyncTransport
+{
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    // Pool created for this transport when the config has no executor, or null
+    private final ExecutorService defaultExecutor;
+    private final HarvestRateLimiter rateLimiter;
+    private final int maxThrottleRetries;
+    private final long defaultRetryAfter;
+    private final HarvestRetryPolicy retryPolicy;
+
+    public HarvestAsyncTransport(final HarvestClientConfig config)
+            throws HarvestClientException
+    {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .build();
+
+        try
+        {
+            this.connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+        }
+        catch (IOReactorException e)
+        {
+            throw new HarvestClientException("Could not start I/O reactor.", e);
+        }
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        this.connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .build();
+
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setKeepAliveStrategy(new HarvestTransport.KeepAliveStrategy(config.getKeepAliveDuration()))
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        this.httpClient.start();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "harvestclient-async-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long idleTimeout = config.getIdleConnectionTimeout();
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            this.connectionManager.closeExpiredConnections();
+            this.connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, config.getIdleEvictionInterval(), config.getIdleEvictionInterval(), TimeUnit.MILLISECONDS);
+
+        this.defaultExecutor = config.getExecutor() == null ? HarvestExecutors.newExecutor(config, "harvestclient-async-worker") : null;
+        this.executor = this.defaultExecutor != null ? this.defaultExecutor : config.getExecutor();
+        this.rateLimiter = new HarvestRateLimiter(config.getRequestsPerPeriod(), config.getRatePeriod());
+        this.maxThrottleRetries = config.getMaxThrottleRetries();
+        this.defaultRetryAfter = config.getDefaultRetryAfter();
+        this.retryPolicy = new HarvestRetryPolicy(config.getMaxGetAttempts(), config.getRetryInitialDelay(), config.getRetryMaxDelay(), config.getRetryBudgetRatio());
+    }
+
+    public CloseableHttpAsyncClient getHttpClient()
+    {
+        return httpClient;
+    }
+
+    public ScheduledExecutorService getScheduler()
+    {
+        return scheduler;
+    }
+
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public HarvestRateLimiter getRateLimiter()
+    {
+        return rateLimiter;
+    }
+
+    public int getMaxThrottleRetries()
+    {
+        return maxThrottleRetries;
+    }
+
+    public long getDefaultRetryAfter()
+    {
+        return defaultRetryAfter;
+    }
+
+    public HarvestRetryPolicy getRetryPolicy()
+    {
+        return retryPolicy;
+    }
+
+    public void close()
+    {
+        this.scheduler.shutdownNow();
+        if (this.defaultExecutor != null)
+            this.defaultExecutor.shutdown();
+        try
+        {
+            this.httpClient.close();
+        }
+        catch (IOException e)
+        {
+            // Nothing sensible to do, the client is unusable either way
+        }
+    }
+}
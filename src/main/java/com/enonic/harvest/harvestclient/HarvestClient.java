@@ -4,12 +4,19 @@ import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
 import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
 import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
 import com.enonic.harvest.harvestclient.models.*;
 
+import org.reactivestreams.Publisher;
+
+import java.io.Closeable;
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.Map;
+import java.util.function.Function;
 
 public interface HarvestClient
+        extends Closeable
 {
     UserCollection getUsers()
             throws HarvestClientException;
@@ -35,6 +42,50 @@ public interface HarvestClient
     DayEntryCollection getDayEntriesByProject(GetDayEntriesByProjectParameters params)
             throws HarvestClientException;
 
+    /**
+     * Streams day entries by a user, decoding one entry at a time instead of building the whole collection.
+     *
+     * @param params the same filters as {@link #getDayEntriesByUser(GetDayEntriesByUserParameters)}
+     * @return a reader that must be closed if it is not read to the end
+     */
+    DayEntryReader streamDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException;
+
+    /**
+     * Streams day entries by a project, decoding one entry at a time instead of building the whole collection.
+     *
+     * @param params the same filters as {@link #getDayEntriesByProject(GetDayEntriesByProjectParameters)}
+     * @return a reader that must be closed if it is not read to the end
+     */
+    DayEntryReader streamDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException;
+
+    /**
+     * Reads the day entries of a project into a {@link DayEntryTable}, which takes a fraction of the
+     * memory of a {@link DayEntryCollection} for large reports.
+     */
+    DayEntryTable getDayEntryTableByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException;
+
+    /**
+     * @see #getDayEntryTableByProject(GetDayEntriesByProjectParameters)
+     */
+    DayEntryTable getDayEntryTableByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException;
+
+    /**
+     * Publishes the day entries of a project as they are parsed, reading the response only as fast as
+     * the subscriber requests entries.
+     */
+    Publisher<DayEntry> publishDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException;
+
+    /**
+     * @see #publishDayEntriesByProject(GetDayEntriesByProjectParameters)
+     */
+    Publisher<DayEntry> publishDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException;
+
     ProjectCollection getProjects()
             throws HarvestClientException;
 
@@ -50,6 +101,17 @@ public interface HarvestClient
     Project getProject(int id)
             throws HarvestClientException;
 
+    /**
+     * Publishes all projects as they are parsed.
+     */
+    Publisher<Project> publishProjects();
+
+    /**
+     * Calls {@code call} for every project, concurrently, and returns the results by project id.
+     */
+    <T> Map<Integer, T> forEachProject(Function<Project, T> call)
+            throws HarvestClientException;
+
     TaskCollection getTasks()
             throws HarvestClientException;
 
@@ -77,6 +139,12 @@ public interface HarvestClient
     Invoice getInvoice(int id)
             throws HarvestClientException;
 
+    /**
+     * Publishes the invoices matching the filters in params, from its page (the first by default) until
+     * the first empty page.
+     */
+    Publisher<Invoice> publishInvoices(GetRecentInvoicesParameters params);
+
     InvoiceItemCategoryCollection getInvoiceItemCategories()
             throws  HarvestClientException;
 
@@ -100,6 +168,15 @@ public interface HarvestClient
      * @return the number of invoices retrieved
      */
     int populateInvoiceCache(Date from, Date to);
+
+    /**
+     * Populates the invoice number cache, reporting progress to the listener. Several pages of invoices
+     * are requested ahead of the one being read, see {@link HarvestClientConfig#setInvoicePagesInFlight(int)}.
+     *
+     * @param listener receives progress per page, may be null
+     * @return the number of invoices retrieved
+     */
+    int populateInvoiceCache(Date from, Date to, InvoiceCacheListener listener);
     
     /**
      * Posts a payment against an invoice in Harvest.
@@ -120,4 +197,20 @@ public interface HarvestClient
      * @throws HarvestClientException
      */
     void postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount) throws HarvestClientException;
+
+    /**
+     * Posts a batch of payments, several at a time within the request rate budget. Invoice numbers are
+     * resolved for the whole batch before posting. A failed payment does not stop the batch.
+     *
+     * @param payments the payments, each given by invoice id or invoice number
+     * @return the outcome of every payment, in the order given
+     */
+    InvoicePaymentBatchResult postInvoicePayments(Iterable<PostInvoicePaymentParameters> payments)
+            throws HarvestClientException;
+
+    /**
+     * Shuts down the pooled HTTP transport. The client can not be used after it is closed.
+     */
+    @Override
+    void close();
 }
@@ -0,0 +1,369 @@
+package com.enonic.harvest.harvestclient;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * Settings for the HTTP transport shared by all requests made through a {@link DefaultHarvestClient}.
+ *
+ * All timeouts and durations are in milliseconds.
+ */
+public class HarvestClientConfig
+{
+    private int maxConnectionsPerRoute = 10;
+    private int maxConnectionsTotal = 20;
+    private int connectTimeout = 10000;
+    private int socketTimeout = 60000;
+    private int connectionRequestTimeout = 30000;
+    private long keepAliveDuration = 30000;
+    private long idleConnectionTimeout = 60000;
+    private long idleEvictionInterval = 5000;
+    private int requestsPerPeriod = 100;
+    private long ratePeriod = 15000;
+    private int maxThrottleRetries = 5;
+    private long defaultRetryAfter = 15000;
+    private int maxGetAttempts = 3;
+    private long retryInitialDelay = 500;
+    private long retryMaxDelay = 30000;
+    private double retryBudgetRatio = 0.1;
+    private Executor executor;
+    private boolean virtualThreads;
+    private String baseUrl;
+    private int invoicePagesInFlight = 4;
+    private Path invoiceIndexFile;
+    private int maxPaymentsInFlight = 4;
+    private int responseStoreSize;
+    private boolean requestCoalescing;
+    private boolean compression = true;
+    private boolean leakDetection;
+
+    public int getMaxConnectionsPerRoute()
+    {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute)
+    {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal()
+    {
+        return maxConnectionsTotal;
+    }
+
+    public void setMaxConnectionsTotal(int maxConnectionsTotal)
+    {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getSocketTimeout()
+    {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout)
+    {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * @return how long a request may wait for a free connection from the pool
+     */
+    public int getConnectionRequestTimeout()
+    {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout)
+    {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    /**
+     * @return how long a connection is kept alive when the server does not send a Keep-Alive timeout
+     */
+    public long getKeepAliveDuration()
+    {
+        return keepAliveDuration;
+    }
+
+    public void setKeepAliveDuration(long keepAliveDuration)
+    {
+        this.keepAliveDuration = keepAliveDuration;
+    }
+
+    /**
+     * @return how long a pooled connection may sit idle before it is evicted
+     */
+    public long getIdleConnectionTimeout()
+    {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(long idleConnectionTimeout)
+    {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    /**
+     * @return how often the pool is checked for expired and idle connections
+     */
+    public long getIdleEvictionInterval()
+    {
+        return idleEvictionInterval;
+    }
+
+    public void setIdleEvictionInterval(long idleEvictionInterval)
+    {
+        this.idleEvictionInterval = idleEvictionInterval;
+    }
+
+    /**
+     * @return the number of requests the client may send per rate period, or 0 to disable pacing
+     */
+    public int getRequestsPerPeriod()
+    {
+        return requestsPerPeriod;
+    }
+
+    public void setRequestsPerPeriod(int requestsPerPeriod)
+    {
+        this.requestsPerPeriod = requestsPerPeriod;
+    }
+
+    public long getRatePeriod()
+    {
+        return ratePeriod;
+    }
+
+    public void setRatePeriod(long ratePeriod)
+    {
+        this.ratePeriod = ratePeriod;
+    }
+
+    /**
+     * @return how many times a throttled request is retried before ThrottleLimitReachedException is thrown
+     */
+    public int getMaxThrottleRetries()
+    {
+        return maxThrottleRetries;
+    }
+
+    public void setMaxThrottleRetries(int maxThrottleRetries)
+    {
+        this.maxThrottleRetries = maxThrottleRetries;
+    }
+
+    /**
+     * @return how long to pause when a throttled response has no Retry-After header
+     */
+    public long getDefaultRetryAfter()
+    {
+        return defaultRetryAfter;
+    }
+
+    public void setDefaultRetryAfter(long defaultRetryAfter)
+    {
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+
+    /**
+     * @return how many times a GET request is attempted before a transient failure is thrown; 1 disables retries
+     * @see HarvestRetryPolicy
+     */
+    public int getMaxGetAttempts()
+    {
+        return maxGetAttempts;
+    }
+
+    public void setMaxGetAttempts(int maxGetAttempts)
+    {
+        this.maxGetAttempts = maxGetAttempts;
+    }
+
+    /**
+     * @return the longest random delay before the first retry; each further retry doubles it
+     */
+    public long getRetryInitialDelay()
+    {
+        return retryInitialDelay;
+    }
+
+    public void setRetryInitialDelay(long retryInitialDelay)
+    {
+        this.retryInitialDelay = retryInitialDelay;
+    }
+
+    /**
+     * @return the longest delay between retries, unless the response asks for a longer Retry-After
+     */
+    public long getRetryMaxDelay()
+    {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(long retryMaxDelay)
+    {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    /**
+     * @return the retries each GET request adds to the client's retry budget, e.g. 0.1 for one retry per ten requests
+     */
+    public double getRetryBudgetRatio()
+    {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(double retryBudgetRatio)
+    {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    /**
+     * @return the executor that parses responses of asynchronous requests and runs their completion stages,
+     * and that fetches invoice pages ahead, posts payment batches and runs project fan-outs for {@link DefaultHarvestClient},
+     * or null for a pool of daemon threads, one per pooled connection, that each client creates and shuts down on close
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * @return whether {@link DefaultHarvestClient} runs its background and fan-out work on a new virtual thread
+     * per task instead of the executor. Takes effect on Java 21 and later; older runtimes use the executor.
+     */
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @return the URL requests are sent to instead of https://subdomain.harvestapp.com, or null for the default
+     */
+    public String getBaseUrl()
+    {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl)
+    {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return how many pages of recent invoices are requested ahead while populating the invoice cache
+     */
+    public int getInvoicePagesInFlight()
+    {
+        return invoicePagesInFlight;
+    }
+
+    public void setInvoicePagesInFlight(int invoicePagesInFlight)
+    {
+        this.invoicePagesInFlight = invoicePagesInFlight;
+    }
+
+    /**
+     * @return the file of the persistent {@link InvoiceNumberIndex} used to look up invoice numbers, or null for none
+     */
+    public Path getInvoiceIndexFile()
+    {
+        return invoiceIndexFile;
+    }
+
+    public void setInvoiceIndexFile(Path invoiceIndexFile)
+    {
+        this.invoiceIndexFile = invoiceIndexFile;
+    }
+
+    /**
+     * @return how many payments of a batch posted with postInvoicePayments are sent concurrently
+     */
+    public int getMaxPaymentsInFlight()
+    {
+        return maxPaymentsInFlight;
+    }
+
+    public void setMaxPaymentsInFlight(int maxPaymentsInFlight)
+    {
+        this.maxPaymentsInFlight = maxPaymentsInFlight;
+    }
+
+    /**
+     * @return how many parsed responses are kept for conditional requests, or 0 to always download and parse
+     * @see ResponseStore
+     */
+    public int getResponseStoreSize()
+    {
+        return responseStoreSize;
+    }
+
+    public void setResponseStoreSize(int responseStoreSize)
+    {
+        this.responseStoreSize = responseStoreSize;
+    }
+
+    /**
+     * @return whether concurrent GET requests for the same URL share one request and its parsed result
+     * @see RequestCoalescer
+     */
+    public boolean isRequestCoalescing()
+    {
+        return requestCoalescing;
+    }
+
+    public void setRequestCoalescing(boolean requestCoalescing)
+    {
+        this.requestCoalescing = requestCoalescing;
+    }
+
+    /**
+     * @return whether GET requests ask for gzip or deflate compressed responses
+     */
+    public boolean isCompression()
+    {
+        return compression;
+    }
+
+    public void setCompression(boolean compression)
+    {
+        this.compression = compression;
+    }
+
+    /**
+     * @return whether responses are tracked to report those that are never closed, with the call that opened them
+     * @see ResponseLeakDetector
+     */
+    public boolean isLeakDetection()
+    {
+        return leakDetection;
+    }
+
+    public void setLeakDetection(boolean leakDetection)
+    {
+        this.leakDetection = leakDetection;
+    }
+}
@@ -6,4 +6,19 @@ public class HarvestClientFactory
     {
         return new DefaultHarvestClient(username, password, subdomain);
     }
+
+    public HarvestClient create(String subdomain, String username, String password, HarvestClientConfig config)
+    {
+        return new DefaultHarvestClient(username, password, subdomain, config);
+    }
+
+    public AsyncHarvestClient createAsync(String subdomain, String username, String password)
+    {
+        return new DefaultAsyncHarvestClient(username, password, subdomain);
+    }
+
+    public AsyncHarvestClient createAsync(String subdomain, String username, String password, HarvestClientConfig config)
+    {
+        return new DefaultAsyncHarvestClient(username, password, subdomain, config);
+    }
 }
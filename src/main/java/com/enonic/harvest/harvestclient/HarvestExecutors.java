@@ -0,0 +1,40 @@
+package com.enonic.harvest.harvestclient;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor a client creates for itself when {@link HarvestClientConfig#getExecutor()} is null.
+ *
+ * Tasks on it block on HTTP reads, so it is kept apart from the common fork-join pool. It has one
+ * thread per pooled connection, since further tasks would only wait for a connection; idle threads
+ * exit after a minute.
+ */
+final class HarvestExecutors
+{
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private HarvestExecutors()
+    {
+    }
+
+    static ExecutorService newExecutor(HarvestClientConfig config, final String name)
+    {
+        int threads = Math.max(1, config.getMaxConnectionsTotal());
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -1,11 +1,9 @@
 package com.enonic.harvest.harvestclient;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
-import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClientBuilder;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -14,41 +12,61 @@ import java.io.InputStream;
 class HarvestGetRequest
         extends HarvestRequest
 {
-
+    /**
+     * @return the response body, or null if a conditional request was answered with 304 Not Modified.
+     * Closing the stream releases the connection.
+     */
     public InputStream getInputStream()
             throws HarvestClientException
     {
-        HttpClient client;
+        HarvestResponse response = this.getResponse();
+        return response != null ? response.getContent() : null;
+    }
+
+    /**
+     * @return the open response, or null if a conditional request was answered with 304 Not Modified.
+     * The caller must close it.
+     */
+    public HarvestResponse getResponse()
+            throws HarvestClientException
+    {
         HttpGet request;
-        HttpResponse response;
 
         try
         {
-            client = HttpClientBuilder.create().build();
             request = new HttpGet(this.getUrl());
-            request.addHeader("Authorization", this.getAuthenticationHeader());
-            request.addHeader("Accept", "application/xml");
-            request.addHeader("User-Agent", "HarvestClient");
-            response = client.execute(request);
+            this.addGetHeaders(request);
         }
         catch (Exception e)
         {
             throw new HarvestClientException("Could not perform request.", e);
         }
 
-        if (response.getStatusLine().getStatusCode() == 503)
-            throw new ThrottleLimitReachedException();
-        else if (response.getStatusLine().getStatusCode() != 200)
-            throw new HarvestClientException(String.format("Returned status code %s: %s", response.getStatusLine().getStatusCode(), this.getUrl()));
+        HttpResponse response = this.execute(request);
+        int statusCode = response.getStatusLine().getStatusCode();
+
+        if (this.readValidators(response))
+        {
+            HarvestResponse.release(response);
+            return null;
+        }
+
+        if (statusCode != 200)
+        {
+            // Release the connection back to the pool before failing
+            long retryAfter = getRetryAfter(response, 0);
+            HarvestResponse.release(response);
+            throw new UnexpectedStatusException(statusCode, this.getUrl(), retryAfter);
+        }
 
         try
         {
-            return response.getEntity().getContent();
+            return new HarvestResponse(response, this.getContent(response), this.transport.getLeakDetector(), this.getUrl());
         }
         catch (IOException e)
         {
+            HarvestResponse.release(response);
             throw new HarvestClientException("Failed to get InputStream from response.", e);
         }
     }
-
 }
@@ -8,13 +8,11 @@
 package com.enonic.harvest.harvestclient;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
-import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
 
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
 
 /**
  *
@@ -27,12 +25,10 @@ public class HarvestPostRequest extends HarvestRequest {
 
     public void executePostRequest(String requestBody) throws HarvestClientException
     {
-        HttpClient client;
         HttpResponse response;
 
         try
         {
-            client = HttpClientBuilder.create().build();
             request = new HttpPost(this.getUrl());
             request.addHeader("Authorization", this.getAuthenticationHeader());
             request.addHeader("Accept", "application/xml");
@@ -41,19 +37,19 @@ public class HarvestPostRequest extends HarvestRequest {
             
             StringEntity reqEntity = new StringEntity(requestBody);
             request.setEntity(reqEntity);
-            
-            response = client.execute(request);
         }
         catch (Exception e)
         {
             throw new HarvestClientException("Could not perform request.", e);
         }
-        
+
+        response = this.execute(request);
         int statusCode = response.getStatusLine().getStatusCode();
 
-        if (statusCode == 503)
-            throw new ThrottleLimitReachedException();
-        else if (statusCode != 200 && statusCode != 201)
-            throw new HarvestClientException(String.format("Returned status code %s: %s", response.getStatusLine().getStatusCode(), this.getUrl()));
+        // The response body is not used, release the connection back to the pool
+        HarvestResponse.release(response);
+
+        if (statusCode != 200 && statusCode != 201)
+            throw new UnexpectedStatusException(statusCode, this.getUrl(), getRetryAfter(response, 0));
     }
 }
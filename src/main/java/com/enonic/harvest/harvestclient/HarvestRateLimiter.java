@@ -0,0 +1,144 @@
+package com.enonic.harvest.harvestclient;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that paces requests to the Harvest API request budget.
+ *
+ * Callers that exceed the budget are blocked until a token is available instead of failing.
+ * A throttled response from Harvest pauses the bucket for the Retry-After period. The limiter
+ * keeps counters on how often and how long callers were made to wait.
+ */
+public class HarvestRateLimiter
+{
+    private final double capacity;
+    private final double nanosPerToken;
+    // Source of System.nanoTime()-style readings
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long lastRefill;
+
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * @param requestsPerPeriod number of requests allowed per period, or 0 to disable pacing
+     * @param period length of the period in milliseconds
+     */
+    public HarvestRateLimiter(int requestsPerPeriod, long period)
+    {
+        this(requestsPerPeriod, period, System::nanoTime);
+    }
+
+    HarvestRateLimiter(int requestsPerPeriod, long period, LongSupplier clock)
+    {
+        this.clock = clock;
+        this.capacity = requestsPerPeriod;
+        this.nanosPerToken = requestsPerPeriod > 0 ? TimeUnit.MILLISECONDS.toNanos(period) / (double) requestsPerPeriod : 0;
+        this.tokens = this.capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Blocks until the caller may issue a request.
+     */
+    public void acquire()
+            throws InterruptedException
+    {
+        long wait = reserve();
+        if (wait > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * Reserves a token without blocking. The caller must wait the returned time before issuing the request.
+     *
+     * @return the time in nanoseconds until the reservation may be used
+     */
+    public long reserve()
+    {
+        long wait;
+        synchronized (this)
+        {
+            long now = this.clock.getAsLong();
+            refill(now);
+            this.tokens -= 1;
+
+            // Tokens may go negative; the deficit is a reservation that later callers queue behind
+            wait = Math.max(0, this.lastRefill - now);
+            if (this.tokens < 0)
+                wait += (long) (-this.tokens * this.nanosPerToken);
+        }
+
+        this.acquireCount.incrementAndGet();
+        if (wait > 0)
+        {
+            this.waitCount.incrementAndGet();
+            this.waitNanos.addAndGet(wait);
+        }
+        return wait;
+    }
+
+    /**
+     * Stops handing out tokens for the given time, typically the Retry-After of a throttled response.
+     */
+    public void pause(long millis)
+    {
+        this.throttledCount.incrementAndGet();
+        synchronized (this)
+        {
+            long resumeAt = this.clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(millis);
+            this.tokens = Math.min(this.tokens, 0);
+            this.lastRefill = Math.max(this.lastRefill, resumeAt);
+        }
+    }
+
+    private void refill(long now)
+    {
+        if (now <= this.lastRefill)
+            return;
+
+        if (this.nanosPerToken == 0)
+            this.tokens = Math.max(this.tokens, 1);
+        else
+            this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) / this.nanosPerToken);
+        this.lastRefill = now;
+    }
+
+    /**
+     * @return the number of requests that passed through the limiter
+     */
+    public long getAcquireCount()
+    {
+        return acquireCount.get();
+    }
+
+    /**
+     * @return the number of requests that had to wait before being sent
+     */
+    public long getWaitCount()
+    {
+        return waitCount.get();
+    }
+
+    /**
+     * @return total time in milliseconds callers have spent waiting
+     */
+    public long getTotalWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * @return the number of throttled responses received from Harvest
+     */
+    public long getThrottledCount()
+    {
+        return throttledCount.get();
+    }
+}
@@ -1,16 +1,52 @@
 package com.enonic.harvest.harvestclient;
 
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 abstract class HarvestRequest
 {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+");
+
     protected String username;
     protected String password;
     protected String subDomain;
     protected String url;
+    protected String baseUrl;
+    protected HarvestTransport transport;
+    protected int throttleRetries;
+
+    // Validators of an earlier response, sent to make the request conditional
+    protected String ifNoneMatch;
+    protected String ifModifiedSince;
+
+    // Validators and status of the response
+    protected String etag;
+    protected String lastModified;
+    protected boolean notModified;
+
+    protected boolean compression;
+    protected TransferStatistics transferStatistics;
 
     protected String getUrl()
     {
+        if (this.baseUrl != null)
+            return this.baseUrl + this.url;
         return "https://" + this.getSubDomain() + ".harvestapp.com" + this.url;
     }
 
@@ -21,6 +57,238 @@ abstract class HarvestRequest
         return "Basic " + Base64.encodeBase64String(credentials.getBytes("ASCII"));
     }
 
+    /**
+     * Executes the request on the shared transport, paced by its rate limiter.
+     * Throttled responses are retried after the Retry-After period until the retry limit is reached.
+     */
+    protected HttpResponse execute(HttpUriRequest request)
+            throws HarvestClientException
+    {
+        this.throttleRetries = 0;
+
+        while (true)
+        {
+            HttpResponse response;
+
+            try
+            {
+                this.transport.getRateLimiter().acquire();
+                response = this.transport.getHttpClient().execute(request);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new HarvestClientException("Interrupted while waiting for the request rate limit.", e);
+            }
+            catch (Exception e)
+            {
+                throw new HarvestClientException("Could not perform request.", e);
+            }
+
+            if (response.getStatusLine().getStatusCode() != 503)
+                return response;
+
+            HarvestResponse.release(response);
+
+            if (this.throttleRetries >= this.transport.getMaxThrottleRetries())
+                throw new ThrottleLimitReachedException();
+
+            this.transport.getRateLimiter().pause(getRetryAfter(response, this.transport.getDefaultRetryAfter()));
+            this.throttleRetries++;
+        }
+    }
+
+    /**
+     * Adds the request headers common to GET requests.
+     */
+    protected void addGetHeaders(HttpRequest request)
+            throws Exception
+    {
+        request.addHeader("Authorization", this.getAuthenticationHeader());
+        request.addHeader("Accept", "application/xml");
+        if (this.compression)
+            request.addHeader("Accept-Encoding", "gzip, deflate");
+        request.addHeader("User-Agent", "HarvestClient");
+        this.addConditionalHeaders(request);
+    }
+
+    /**
+     * Returns the response body, decompressing it as it is read and counting wire and decoded bytes
+     * for the endpoint.
+     */
+    protected InputStream getContent(HttpResponse response)
+            throws IOException
+    {
+        InputStream content = response.getEntity().getContent();
+        TransferStatistics.Endpoint endpoint = this.transferStatistics != null ? this.transferStatistics.endpoint(this.getEndpoint()) : null;
+        if (endpoint != null)
+            content = TransferStatistics.countWire(endpoint, content);
+
+        Header encoding = response.getFirstHeader("Content-Encoding");
+        String value = encoding != null ? encoding.getValue().trim().toLowerCase(Locale.ROOT) : "identity";
+        if (value.equals("gzip") || value.equals("x-gzip"))
+            content = new GZIPInputStream(content, 8192);
+        else if (value.equals("deflate"))
+            content = inflate(content);
+        else if (!value.equals("identity"))
+            throw new IOException("Unsupported content encoding: " + value);
+
+        if (endpoint != null)
+            content = TransferStatistics.countDecoded(endpoint, content);
+        return content;
+    }
+
+    /**
+     * @return the request path with ids replaced by {id}
+     */
+    protected String getEndpoint()
+    {
+        int query = this.url.indexOf('?');
+        String path = query >= 0 ? this.url.substring(0, query) : this.url;
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    /**
+     * Servers disagree on whether deflate means zlib-wrapped or raw deflate data, so check for a zlib header.
+     */
+    private static InputStream inflate(InputStream content)
+            throws IOException
+    {
+        PushbackInputStream in = new PushbackInputStream(content, 2);
+        int first = in.read();
+        int second = in.read();
+        if (second != -1)
+            in.unread(second);
+        if (first != -1)
+            in.unread(first);
+
+        boolean zlib = first != -1 && second != -1 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+        return new InflatingInputStream(in, new Inflater(!zlib));
+    }
+
+    /**
+     * Ends its own inflater on close; InflaterInputStream only ends the inflaters it creates itself,
+     * leaving the native memory to finalization.
+     */
+    static final class InflatingInputStream
+            extends InflaterInputStream
+    {
+        private boolean closed;
+
+        InflatingInputStream(InputStream in, Inflater inflater)
+        {
+            super(in, inflater, 8192);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (this.closed)
+                return;
+            this.closed = true;
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                this.inf.end();
+            }
+        }
+    }
+
+    /**
+     * Makes the request conditional on the validators set with {@link #setValidators(String, String)}, if any.
+     */
+    protected void addConditionalHeaders(HttpRequest request)
+    {
+        if (this.ifNoneMatch != null)
+            request.addHeader("If-None-Match", this.ifNoneMatch);
+        if (this.ifModifiedSince != null)
+            request.addHeader("If-Modified-Since", this.ifModifiedSince);
+    }
+
+    /**
+     * Records the status and validators of a response to a GET request.
+     *
+     * @return true if the response is a 304 to a conditional request
+     */
+    protected boolean readValidators(HttpResponse response)
+    {
+        Header etag = response.getFirstHeader("ETag");
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        this.etag = etag != null ? etag.getValue() : null;
+        this.lastModified = lastModified != null ? lastModified.getValue() : null;
+        this.notModified = response.getStatusLine().getStatusCode() == 304 && this.isConditional();
+        return this.notModified;
+    }
+
+    public boolean isConditional()
+    {
+        return this.ifNoneMatch != null || this.ifModifiedSince != null;
+    }
+
+    public void setValidators(String etag, String lastModified)
+    {
+        this.ifNoneMatch = etag;
+        this.ifModifiedSince = lastModified;
+    }
+
+    public String getETag()
+    {
+        return etag;
+    }
+
+    public String getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * @return true if Harvest answered a conditional request with 304 Not Modified
+     */
+    public boolean isNotModified()
+    {
+        return notModified;
+    }
+
+    protected static long getRetryAfter(HttpResponse response, long defaultRetryAfter)
+    {
+        Header header = response.getFirstHeader("Retry-After");
+        if (header == null)
+            return defaultRetryAfter;
+
+        String value = header.getValue().trim();
+        try
+        {
+            return Long.parseLong(value) * 1000;
+        }
+        catch (NumberFormatException e)
+        {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : defaultRetryAfter;
+        }
+    }
+
+    /**
+     * @return how many times the last execution was retried after a throttled response
+     */
+    public int getThrottleRetries()
+    {
+        return throttleRetries;
+    }
+
+    public void setCompression(boolean compression)
+    {
+        this.compression = compression;
+    }
+
+    public void setTransferStatistics(TransferStatistics transferStatistics)
+    {
+        this.transferStatistics = transferStatistics;
+    }
+
     public String getUsername()
     {
         return username;
@@ -55,4 +323,19 @@ abstract class HarvestRequest
     {
         this.url = url;
     }
+
+    public void setBaseUrl(String baseUrl)
+    {
+        this.baseUrl = baseUrl;
+    }
+
+    public HarvestTransport getTransport()
+    {
+        return transport;
+    }
+
+    public void setTransport(HarvestTransport transport)
+    {
+        this.transport = transport;
+    }
 }
@@ -0,0 +1,161 @@
+package com.enonic.harvest.harvestclient;
+
+import org.apache.http.HttpResponse;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Handle on a response whose body is still being read from its pooled connection.
+ *
+ * Closing the handle, or the stream from {@link #getContent()}, reads what is left of the body so the
+ * connection can go back to the pool, and then closes the response. If more than a few kilobytes are
+ * left, for example when a reader stops early on a large response, the connection is dropped instead.
+ */
+class HarvestResponse
+        implements Closeable
+{
+    // Parsers usually stop short of the end of the body; more than this left unread is not worth downloading
+    private static final int DRAIN_LIMIT = 8192;
+
+    private final HttpResponse response;
+    private final InputStream decoded;
+    private final InputStream content;
+    private final ResponseLeakDetector.Tracker tracker;
+    private boolean closed;
+
+    /**
+     * @param content the decoded response body
+     * @param leakDetector detector to register the response with, or null
+     */
+    public HarvestResponse(HttpResponse response, InputStream content, ResponseLeakDetector leakDetector, String url)
+    {
+        this.response = response;
+        this.decoded = content;
+        this.tracker = leakDetector != null ? leakDetector.track(this, url) : null;
+        this.content = new FilterInputStream(content)
+        {
+            @Override
+            public void close()
+            {
+                HarvestResponse.this.close();
+            }
+        };
+    }
+
+    /**
+     * @return the response body; closing it closes the response
+     */
+    public InputStream getContent()
+    {
+        return content;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (this.closed)
+            return;
+
+        this.closed = true;
+        if (this.tracker != null)
+            this.tracker.close();
+
+        boolean drained = drain(this.response);
+        if (!drained)
+            abort(this.response);
+
+        try
+        {
+            // Closes the decoders before the connection's own stream
+            this.decoded.close();
+        }
+        catch (IOException e)
+        {
+            // The connection is discarded by release below
+        }
+
+        if (drained)
+            release(this.response);
+    }
+
+    /**
+     * Reads the rest of the body, up to {@link #DRAIN_LIMIT} bytes.
+     *
+     * @return whether the end of the body was reached
+     */
+    private static boolean drain(HttpResponse response)
+    {
+        if (response.getEntity() == null)
+            return true;
+
+        try
+        {
+            InputStream content = response.getEntity().getContent();
+            byte[] buffer = new byte[DRAIN_LIMIT];
+            int remaining = DRAIN_LIMIT;
+            while (remaining > 0)
+            {
+                int read = content.read(buffer, 0, remaining);
+                if (read == -1)
+                    return true;
+                remaining -= read;
+            }
+            return content.read() == -1;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Closes the connection of a response without reading the rest of the body.
+     */
+    private static void abort(HttpResponse response)
+    {
+        if (response instanceof Closeable)
+        {
+            try
+            {
+                ((Closeable) response).close();
+            }
+            catch (IOException e)
+            {
+                // Nothing sensible to do, the connection is unusable either way
+            }
+        }
+    }
+
+    /**
+     * Returns the connection of a response to the pool, or drops it if the rest of the body can not be read.
+     */
+    static void release(HttpResponse response)
+    {
+        try
+        {
+            if (response.getEntity() != null)
+                response.getEntity().getContent().close();
+        }
+        catch (IOException e)
+        {
+            // The connection is discarded below instead of being reused
+        }
+        finally
+        {
+            if (response instanceof Closeable)
+            {
+                try
+                {
+                    ((Closeable) response).close();
+                }
+                catch (IOException e)
+                {
+                    // Nothing sensible to do, the connection is unusable either way
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Retries GET requests that failed for reasons that are likely to pass: connection errors and 5xx responses.
+ * Throttling is not retried here, since the request has already waited out the throttle retries.
+ *
+ * Attempts are spaced by exponential backoff with full jitter, or by the Retry-After of the response if
+ * that is longer. Retries are drawn from a budget shared by all requests of a client, which every request
+ * tops up by the configured ratio, so an outage does not multiply the load on Harvest. The policy keeps
+ * counters on attempts and on how requests finally ended.
+ */
+public class HarvestRetryPolicy
+{
+    // Retries that can be banked while requests succeed, so a burst of failures after a quiet period is still retried
+    private static final double MAX_BUDGET = 10;
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double budgetRatio;
+
+    private double budget = MAX_BUDGET;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong recoveredCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+    private final AtomicLong budgetDeniedCount = new AtomicLong();
+
+    /**
+     * @param maxAttempts attempts per request, including the first; 1 disables retries
+     * @param initialDelay upper bound of the delay before the first retry, in milliseconds
+     * @param maxDelay upper bound of the delay before any retry, in milliseconds
+     * @param budgetRatio retries earned by each request
+     */
+    public HarvestRetryPolicy(int maxAttempts, long initialDelay, long maxDelay, double budgetRatio)
+    {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * Runs the request, retrying it on the calling thread.
+     */
+    public <T> T call(Supplier<T> request)
+            throws HarvestClientException
+    {
+        this.start();
+        for (int attempt = 1; ; attempt++)
+        {
+            this.attemptCount.incrementAndGet();
+            try
+            {
+                T value = request.get();
+                this.succeeded(attempt);
+                return value;
+            }
+            catch (HarvestClientException e)
+            {
+                long delay = this.retryDelay(e, attempt);
+                if (delay < 0)
+                    throw e;
+
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                    this.failedCount.incrementAndGet();
+                    throw new HarvestClientException("Interrupted while waiting to retry the request.", interrupted);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the asynchronous request, scheduling retries on the scheduler instead of blocking.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> request, ScheduledExecutorService scheduler)
+    {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        this.start();
+        this.attempt(request, scheduler, result, 1);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> request, ScheduledExecutorService scheduler, CompletableFuture<T> result, int attempt)
+    {
+        this.attemptCount.incrementAndGet();
+        request.get().whenComplete((value, error) -> {
+            if (error == null)
+            {
+                this.succeeded(attempt);
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            long delay = cause instanceof HarvestClientException ? this.retryDelay((HarvestClientException) cause, attempt) : -1;
+            if (delay < 0)
+            {
+                if (!(cause instanceof HarvestClientException))
+                    this.failedCount.incrementAndGet();
+                result.completeExceptionally(cause);
+            }
+            else
+            {
+                scheduler.schedule(() -> this.attempt(request, scheduler, result, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void start()
+    {
+        this.requestCount.incrementAndGet();
+        synchronized (this)
+        {
+            this.budget = Math.min(MAX_BUDGET, this.budget + this.budgetRatio);
+        }
+    }
+
+    private void succeeded(int attempt)
+    {
+        if (attempt > 1)
+            this.recoveredCount.incrementAndGet();
+    }
+
+    /**
+     * Decides whether a failed attempt is retried, and counts the request as failed if not.
+     *
+     * @return the delay in milliseconds before the next attempt, or -1 to give up
+     */
+    private long retryDelay(HarvestClientException e, int attempt)
+    {
+        if (!isRetryable(e))
+        {
+            this.failedCount.incrementAndGet();
+            return -1;
+        }
+
+        if (attempt >= this.maxAttempts)
+        {
+            this.failedCount.incrementAndGet();
+            this.exhaustedCount.incrementAndGet();
+            return -1;
+        }
+
+        synchronized (this)
+        {
+            if (this.budget < 1)
+            {
+                this.failedCount.incrementAndGet();
+                this.budgetDeniedCount.incrementAndGet();
+                return -1;
+            }
+            this.budget -= 1;
+        }
+
+        long ceiling = Math.min(this.maxDelay, this.initialDelay << Math.min(attempt - 1, 30));
+        long delay = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        if (e instanceof UnexpectedStatusException)
+            delay = Math.max(delay, ((UnexpectedStatusException) e).getRetryAfter());
+        return delay;
+    }
+
+    static boolean isRetryable(HarvestClientException e)
+    {
+        if (Thread.currentThread().isInterrupted())
+            return false;
+        // The request already retried the throttled response the configured number of times, honouring Retry-After
+        if (e instanceof ThrottleLimitReachedException)
+            return false;
+        if (e instanceof UnexpectedStatusException)
+            return ((UnexpectedStatusException) e).getStatusCode() >= 500;
+
+        // Connection failures, timeouts and bodies cut off while they were read
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof IOException)
+                return true;
+        }
+        return false;
+    }
+
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the number of requests made under this policy
+     */
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of attempts, first attempts included
+     */
+    public long getAttemptCount()
+    {
+        return attemptCount.get();
+    }
+
+    /**
+     * @return the number of attempts that were retries
+     */
+    public long getRetryCount()
+    {
+        return attemptCount.get() - requestCount.get();
+    }
+
+    /**
+     * @return the number of requests that succeeded after one or more retries
+     */
+    public long getRecoveredCount()
+    {
+        return recoveredCount.get();
+    }
+
+    /**
+     * @return the number of requests that finally failed, for any reason
+     */
+    public long getFailedCount()
+    {
+        return failedCount.get();
+    }
+
+    /**
+     * @return the number of requests that failed on their last allowed attempt
+     */
+    public long getExhaustedCount()
+    {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * @return the number of requests that were not retried because the retry budget was spent
+     */
+    public long getBudgetDeniedCount()
+    {
+        return budgetDeniedCount.get();
+    }
+}
@@ -0,0 +1,175 @@
+package com.enonic.harvest.harvestclient;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived pooled HTTP transport. One instance is owned by each {@link DefaultHarvestClient}
+ * and shared by every request it makes, so connections to the Harvest host are reused.
+ */
+class HarvestTransport
+{
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final IdleConnectionEvictor evictor;
+    private final HarvestRateLimiter rateLimiter;
+    private final int maxThrottleRetries;
+    private final long defaultRetryAfter;
+    private final HarvestRetryPolicy retryPolicy;
+    private final ResponseLeakDetector leakDetector;
+
+    public HarvestTransport(final HarvestClientConfig config)
+    {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        this.connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setKeepAliveStrategy(new KeepAliveStrategy(config.getKeepAliveDuration()))
+                .setDefaultRequestConfig(requestConfig)
+                // Requests negotiate and decode compression themselves, so they can count wire bytes
+                .disableContentCompression()
+                .build();
+
+        this.evictor = new IdleConnectionEvictor(this.connectionManager, config.getIdleEvictionInterval(), config.getIdleConnectionTimeout());
+        this.evictor.start();
+
+        this.rateLimiter = new HarvestRateLimiter(config.getRequestsPerPeriod(), config.getRatePeriod());
+        this.maxThrottleRetries = config.getMaxThrottleRetries();
+        this.defaultRetryAfter = config.getDefaultRetryAfter();
+        this.retryPolicy = new HarvestRetryPolicy(config.getMaxGetAttempts(), config.getRetryInitialDelay(), config.getRetryMaxDelay(), config.getRetryBudgetRatio());
+        this.leakDetector = config.isLeakDetection() ? new ResponseLeakDetector() : null;
+    }
+
+    public CloseableHttpClient getHttpClient()
+    {
+        return httpClient;
+    }
+
+    public HarvestRateLimiter getRateLimiter()
+    {
+        return rateLimiter;
+    }
+
+    public int getMaxThrottleRetries()
+    {
+        return maxThrottleRetries;
+    }
+
+    public long getDefaultRetryAfter()
+    {
+        return defaultRetryAfter;
+    }
+
+    public HarvestRetryPolicy getRetryPolicy()
+    {
+        return retryPolicy;
+    }
+
+    /**
+     * @return the detector tracking open responses, or null if leak detection is disabled
+     */
+    public ResponseLeakDetector getLeakDetector()
+    {
+        return leakDetector;
+    }
+
+    public void close()
+    {
+        this.evictor.shutdown();
+        try
+        {
+            this.httpClient.close();
+        }
+        catch (IOException e)
+        {
+            // Nothing sensible to do, the connection manager is shut down below regardless
+        }
+        this.connectionManager.shutdown();
+    }
+
+    /**
+     * Uses the Keep-Alive timeout sent by the server, falling back to a configured duration when there is none.
+     */
+    static class KeepAliveStrategy
+            implements ConnectionKeepAliveStrategy
+    {
+        private final long defaultDuration;
+
+        public KeepAliveStrategy(long defaultDuration)
+        {
+            this.defaultDuration = defaultDuration;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context)
+        {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : this.defaultDuration;
+        }
+    }
+
+    private static class IdleConnectionEvictor
+            extends Thread
+    {
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final long interval;
+        private final long idleTimeout;
+        private volatile boolean shutdown;
+
+        public IdleConnectionEvictor(PoolingHttpClientConnectionManager connectionManager, long interval, long idleTimeout)
+        {
+            super("harvestclient-idle-connection-evictor");
+            setDaemon(true);
+            this.connectionManager = connectionManager;
+            this.interval = interval;
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!this.shutdown)
+                {
+                    synchronized (this)
+                    {
+                        wait(this.interval);
+                    }
+                    this.connectionManager.closeExpiredConnections();
+                    this.connectionManager.closeIdleConnections(this.idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // Terminate
+            }
+        }
+
+        public void shutdown()
+        {
+            this.shutdown = true;
+            synchronized (this)
+            {
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.MissingParameterException;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Builds the relative Harvest API URLs used by the client implementations.
+ */
+final class HarvestUrls
+{
+    // SimpleDateFormat is not thread-safe, so each thread gets its own instance
+    private static final ThreadLocal<SimpleDateFormat> dateFormatter = new ThreadLocal<SimpleDateFormat>()
+    {
+        @Override
+        protected SimpleDateFormat initialValue()
+        {
+            return new SimpleDateFormat("yyyyMMdd");
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> dateTimeFormatter = new ThreadLocal<SimpleDateFormat>()
+    {
+        @Override
+        protected SimpleDateFormat initialValue()
+        {
+            // Harvest reads updated_since as UTC
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+        }
+    };
+
+    private HarvestUrls()
+    {
+    }
+
+    public static String users()
+    {
+        return "/people";
+    }
+
+    public static String users(Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/people?updated_since=%s", encodeUpdatedSince(updatedSince));
+    }
+
+    public static String user(int id)
+    {
+        return String.format("/people/%s", id);
+    }
+
+    public static String clients()
+    {
+        return "/clients";
+    }
+
+    public static String clients(Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/clients?updated_since=%s", encodeUpdatedSince(updatedSince));
+    }
+
+    public static String client(int id)
+    {
+        return String.format("/clients/%s", id);
+    }
+
+    public static String dayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        String urlParamString = formatDayEntriesParams(params.fromDate, params.toDate, params.updatedSince);
+        return String.format("/people/%s/entries?%s", params.userId, urlParamString);
+    }
+
+    public static String dayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        String urlParamString = formatDayEntriesParams(params.fromDate, params.toDate, params.updatedSince);
+        return String.format("/projects/%s/entries?%s", params.projectId, urlParamString);
+    }
+
+    public static String projects()
+    {
+        return "/projects";
+    }
+
+    public static String projects(Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/projects?updated_since=%s", encodeUpdatedSince(updatedSince));
+    }
+
+    public static String projects(int clientId)
+    {
+        return String.format("/projects?client=%s", clientId);
+    }
+
+    public static String projects(int clientId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/projects?client=%s&updated_since=%s", clientId, encodeUpdatedSince(updatedSince));
+    }
+
+    public static String project(int id)
+    {
+        return String.format("/projects/%s", id);
+    }
+
+    public static String userAssignments(int projectId)
+    {
+        return String.format("/projects/%s/user_assignments", projectId);
+    }
+
+    public static String userAssignments(int projectId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/projects/%s/user_assignments?updated_since=%s", projectId, encodeUpdatedSince(updatedSince));
+    }
+
+    public static String tasks()
+    {
+        return "/tasks";
+    }
+
+    public static String tasks(Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/tasks?updated_since=%s", encodeUpdatedSince(updatedSince));
+    }
+
+    public static String task(int id)
+    {
+        return String.format("/tasks/%s", id);
+    }
+
+    public static String taskAssignments(int projectId)
+    {
+        return String.format("/projects/%s/task_assignments", projectId);
+    }
+
+    public static String taskAssignments(int projectId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return String.format("/projects/%s/task_assignments?updated_since=%s", projectId, encodeUpdatedSince(updatedSince));
+    }
+
+    public static String recentInvoices(GetRecentInvoicesParameters params)
+    {
+        List<NameValuePair> urlParams = new ArrayList<NameValuePair>();
+
+        if (params.getPage() != null)
+            urlParams.add(new BasicNameValuePair("page", params.getPage().toString()));
+        if (params.getFromDate() != null)
+            urlParams.add(new BasicNameValuePair("from", dateFormatter.get().format(params.getFromDate())));
+        if (params.getToDate() != null)
+            urlParams.add(new BasicNameValuePair("to", dateFormatter.get().format(params.getToDate())));
+        if (params.getUpdatedSince() != null)
+            urlParams.add(new BasicNameValuePair("updated_since", dateTimeFormatter.get().format(params.getUpdatedSince())));
+        if (params.getStatus() != null)
+            urlParams.add(new BasicNameValuePair("status", params.getStatus()));
+        if (params.getClient() != null)
+            urlParams.add(new BasicNameValuePair("client", params.getClient().toString()));
+
+        String urlParamString = URLEncodedUtils.format(urlParams, "utf-8");
+
+        return String.format("/invoices?%s", urlParamString);
+    }
+
+    public static String invoice(int id)
+    {
+        return String.format("/invoices/%s", id);
+    }
+
+    public static String invoiceItemCategories()
+    {
+        return "/invoice_item_categories";
+    }
+
+    public static String invoiceMessages(int invoiceId)
+    {
+        return String.format("/invoices/%s/messages", invoiceId);
+    }
+
+    public static String invoiceMessage(int invoiceId, int id)
+    {
+        return String.format("/invoices/%s/messages/%s", invoiceId, id);
+    }
+
+    public static String invoicePayments(int invoiceId)
+    {
+        return String.format("/invoices/%s/payments", invoiceId);
+    }
+
+    public static String invoicePayment(int invoiceId, int id)
+    {
+        return String.format("/invoices/%s/payments/%s", invoiceId, id);
+    }
+
+    private static String formatDayEntriesParams(Date fromDate, Date toDate, Date updatedSince)
+            throws HarvestClientException
+    {
+        if (fromDate == null)
+            throw new MissingParameterException("fromDate");
+        if (toDate == null)
+            throw new MissingParameterException("toDate");
+
+        List<NameValuePair> urlParams = new ArrayList<NameValuePair>();
+        urlParams.add(new BasicNameValuePair("from", dateFormatter.get().format(fromDate)));
+        urlParams.add(new BasicNameValuePair("to", dateFormatter.get().format(toDate)));
+
+        if (updatedSince != null)
+        {
+            urlParams.add(new BasicNameValuePair("updated_since", dateTimeFormatter.get().format(updatedSince)));
+        }
+
+        return URLEncodedUtils.format(urlParams, "utf-8");
+    }
+
+    private static String encodeUpdatedSince(Date updatedSince)
+            throws HarvestClientException
+    {
+        try
+        {
+            return URLEncoder.encode(dateTimeFormatter.get().format(updatedSince), "utf-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new HarvestClientException("Unsupported encoding.", e);
+        }
+    }
+}
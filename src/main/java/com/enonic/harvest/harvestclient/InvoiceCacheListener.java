@@ -0,0 +1,23 @@
+package com.enonic.harvest.harvestclient;
+
+/**
+ * Receives progress while the invoice number cache is populated.
+ *
+ * Pages are reported in page order, from the thread that parsed them.
+ */
+public interface InvoiceCacheListener
+{
+    /**
+     * @param page the page number, starting at 1
+     * @param invoices the number of invoices on the page
+     * @param total the number of invoices read so far, including this page
+     */
+    void pageLoaded(int page, int invoices, int total);
+
+    /**
+     * Called once the first empty page is reached, before the new cache replaces the old one.
+     *
+     * @param total the number of invoices read
+     */
+    void completed(int total);
+}
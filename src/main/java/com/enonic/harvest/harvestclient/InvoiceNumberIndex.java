@@ -0,0 +1,212 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invoice number to invoice id index, kept in a file so it survives restarts.
+ *
+ * The file is read into memory when opened and holds the mappings together with the latest invoice
+ * updated-at seen. {@link #update(HarvestClient)} only requests invoices updated since then and
+ * rewrites the file. A file that cannot be read as an index is ignored, and the next update rebuilds it.
+ */
+public class InvoiceNumberIndex
+{
+    private static final int MAGIC = 0x48564958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+
+    private final Path file;
+    private final Map<String, Integer> invoiceIds = new ConcurrentHashMap<String, Integer>();
+    private volatile Date watermark;
+
+    private InvoiceNumberIndex(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Opens the index stored in the file, or an empty index if the file does not exist yet.
+     */
+    public static InvoiceNumberIndex open(Path file)
+            throws HarvestClientException
+    {
+        InvoiceNumberIndex index = new InvoiceNumberIndex(file);
+        if (Files.exists(file))
+            index.load();
+        return index;
+    }
+
+    /**
+     * @return the invoice id, or null if the number is not in the index
+     */
+    public Integer get(String invoiceNumber)
+    {
+        return invoiceIds.get(invoiceNumber);
+    }
+
+    public int size()
+    {
+        return invoiceIds.size();
+    }
+
+    /**
+     * @return the latest updated-at of the indexed invoices, or null if the index is empty
+     */
+    public Date getWatermark()
+    {
+        return watermark;
+    }
+
+    /**
+     * Adds invoices created or updated since the watermark and saves the index.
+     *
+     * @return the number of invoices received
+     */
+    public synchronized int update(HarvestClient client)
+            throws HarvestClientException
+    {
+        GetRecentInvoicesParameters params = new GetRecentInvoicesParameters();
+        params.setUpdatedSince(this.watermark);
+
+        Date latest = this.watermark;
+        int count = 0;
+        for (int page = 1; ; page++)
+        {
+            params.setPage(page);
+            List<Invoice> invoices = client.getRecentInvoices(params).getList();
+            if (invoices.isEmpty())
+                break;
+
+            for (Invoice invoice : invoices)
+            {
+                if (invoice.getNumber() != null && invoice.getId() != null)
+                    this.invoiceIds.put(invoice.getNumber(), invoice.getId());
+                if (invoice.getUpdatedAt() != null && (latest == null || invoice.getUpdatedAt().after(latest)))
+                    latest = invoice.getUpdatedAt();
+            }
+            count += invoices.size();
+        }
+
+        this.watermark = latest;
+        if (count > 0)
+            this.save();
+        return count;
+    }
+
+    /**
+     * Writes the index to a temporary file and moves it over the index file, so readers never see a partial file.
+     */
+    public synchronized void save()
+            throws HarvestClientException
+    {
+        int size = HEADER_SIZE;
+        Map<String, Integer> snapshot = new HashMap<String, Integer>(this.invoiceIds);
+        Map<String, byte[]> numbers = new HashMap<String, byte[]>(snapshot.size() * 2);
+        for (String number : snapshot.keySet())
+        {
+            byte[] bytes = number.getBytes(StandardCharsets.UTF_8);
+            numbers.put(number, bytes);
+            size += 6 + bytes.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(this.watermark != null ? this.watermark.getTime() : -1);
+        buffer.putInt(snapshot.size());
+        for (Map.Entry<String, Integer> entry : snapshot.entrySet())
+        {
+            byte[] bytes = numbers.get(entry.getKey());
+            buffer.putInt(entry.getValue());
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.flip();
+
+        try
+        {
+            Path parent = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, this.file.getFileName().toString(), ".tmp");
+            try
+            {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE))
+                {
+                    while (buffer.hasRemaining())
+                        channel.write(buffer);
+                    channel.force(true);
+                }
+
+                try
+                {
+                    Files.move(temp, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new HarvestClientException("Could not write invoice index " + this.file, e);
+        }
+    }
+
+    private void load()
+            throws HarvestClientException
+    {
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file));
+            if (buffer.remaining() < HEADER_SIZE)
+                return;
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return;
+
+            long watermark = buffer.getLong();
+            int count = buffer.getInt();
+            byte[] bytes = new byte[0xffff];
+            for (int i = 0; i < count; i++)
+            {
+                int id = buffer.getInt();
+                int length = buffer.getShort() & 0xffff;
+                buffer.get(bytes, 0, length);
+                this.invoiceIds.put(new String(bytes, 0, length, StandardCharsets.UTF_8), id);
+            }
+            this.watermark = watermark >= 0 ? new Date(watermark) : null;
+        }
+        catch (IOException e)
+        {
+            throw new HarvestClientException("Could not read invoice index " + this.file, e);
+        }
+        catch (RuntimeException e)
+        {
+            // Truncated or corrupt file; start over so the next update rebuilds it
+            this.invoiceIds.clear();
+            this.watermark = null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.models.InvoiceCollection;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Reads recent invoices page by page into an invoice number to id map, for populateInvoiceCache.
+ *
+ * While a page is processed the following pages are already requested, so up to {@code pagesInFlight}
+ * requests are outstanding. Pages are consumed in order and reading stops at the first empty page;
+ * pages requested speculatively past that point are cancelled.
+ */
+class InvoicePagePrefetcher
+{
+    private final Date from;
+    private final Date to;
+    private final int pagesInFlight;
+    private final Function<GetRecentInvoicesParameters, CompletableFuture<InvoiceCollection>> fetch;
+    private final InvoiceCacheListener listener;
+
+    private final Queue<CompletableFuture<InvoiceCollection>> inFlight = new ArrayDeque<CompletableFuture<InvoiceCollection>>();
+    private final Map<String, Integer> cache = new ConcurrentHashMap<String, Integer>();
+    private final CompletableFuture<Map<String, Integer>> result = new CompletableFuture<Map<String, Integer>>();
+    private int nextPage = 1;
+    private int currentPage = 1;
+    private int total;
+
+    public InvoicePagePrefetcher(Date from, Date to, int pagesInFlight,
+                                 Function<GetRecentInvoicesParameters, CompletableFuture<InvoiceCollection>> fetch,
+                                 InvoiceCacheListener listener)
+    {
+        if (pagesInFlight < 1)
+            throw new IllegalArgumentException("pagesInFlight must be at least 1");
+
+        this.from = from;
+        this.to = to;
+        this.pagesInFlight = pagesInFlight;
+        this.fetch = fetch;
+        this.listener = listener;
+    }
+
+    /**
+     * @return the populated map, completed once the first empty page is read
+     */
+    public CompletableFuture<Map<String, Integer>> start()
+    {
+        for (int i = 0; i < this.pagesInFlight; i++)
+            this.requestNextPage();
+        this.drain();
+        return this.result;
+    }
+
+    public int getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Processes completed pages in order. When the head page is still pending, drain is re-entered on its
+     * completion, so only one thread processes pages at a time.
+     */
+    private void drain()
+    {
+        try
+        {
+            while (true)
+            {
+                CompletableFuture<InvoiceCollection> head = this.inFlight.peek();
+                if (!head.isDone())
+                {
+                    head.whenComplete((invoices, e) -> this.drain());
+                    return;
+                }
+                this.inFlight.remove();
+
+                InvoiceCollection invoices = head.join();
+                if (invoices.getList().isEmpty())
+                {
+                    this.cancelInFlight();
+                    if (this.listener != null)
+                        this.listener.completed(this.total);
+                    this.result.complete(this.cache);
+                    return;
+                }
+
+                for (Invoice invoice : invoices)
+                {
+                    if (invoice.getNumber() != null && invoice.getId() != null)
+                        this.cache.put(invoice.getNumber(), invoice.getId());
+                }
+                this.total += invoices.getList().size();
+                if (this.listener != null)
+                    this.listener.pageLoaded(this.currentPage, invoices.getList().size(), this.total);
+
+                this.currentPage++;
+                this.requestNextPage();
+            }
+        }
+        catch (CompletionException e)
+        {
+            this.fail(e.getCause());
+        }
+        catch (RuntimeException e)
+        {
+            this.fail(e);
+        }
+    }
+
+    private void fail(Throwable e)
+    {
+        this.cancelInFlight();
+        this.result.completeExceptionally(e);
+    }
+
+    private void requestNextPage()
+    {
+        GetRecentInvoicesParameters params = new GetRecentInvoicesParameters();
+        params.setFromDate(this.from);
+        params.setToDate(this.to);
+        params.setPage(this.nextPage++);
+
+        CompletableFuture<InvoiceCollection> page;
+        try
+        {
+            page = this.fetch.apply(params);
+        }
+        catch (RuntimeException e)
+        {
+            page = new CompletableFuture<InvoiceCollection>();
+            page.completeExceptionally(e);
+        }
+        this.inFlight.add(page);
+    }
+
+    private void cancelInFlight()
+    {
+        for (CompletableFuture<InvoiceCollection> page : this.inFlight)
+            page.cancel(false);
+        this.inFlight.clear();
+    }
+}
@@ -0,0 +1,147 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.InvoicePayment;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Posts a batch of payments with at most {@code maxInFlight} requests outstanding, recording the
+ * outcome of every payment instead of stopping at the first failure.
+ *
+ * Invoice numbers are resolved up front by the client. Failed posts are not repeated, since a request
+ * that failed after reaching Harvest may still have recorded the payment; only throttled responses,
+ * which Harvest did not process, are retried by the request itself.
+ */
+class InvoicePaymentBatch
+{
+    interface Sender
+    {
+        /**
+         * @return a future completed with the number of throttle retries once the payment is posted
+         */
+        CompletableFuture<Integer> send(int invoiceId, String body);
+    }
+
+    private final List<PostInvoicePaymentParameters> payments;
+    private final Map<String, Integer> invoiceIds;
+    private final int maxInFlight;
+    private final Sender sender;
+
+    private final InvoicePaymentResult[] results;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<InvoicePaymentBatchResult> result = new CompletableFuture<InvoicePaymentBatchResult>();
+
+    /**
+     * @param invoiceIds invoice ids of the payments given by invoice number
+     */
+    public InvoicePaymentBatch(List<PostInvoicePaymentParameters> payments, Map<String, Integer> invoiceIds, int maxInFlight, Sender sender)
+    {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+
+        this.payments = payments;
+        this.invoiceIds = invoiceIds;
+        this.maxInFlight = maxInFlight;
+        this.sender = sender;
+        this.results = new InvoicePaymentResult[payments.size()];
+        this.remaining = new AtomicInteger(payments.size());
+    }
+
+    /**
+     * Builds the request body for a payment made now.
+     */
+    public static String marshal(String paymentReference, BigDecimal paymentAmount)
+            throws HarvestClientException
+    {
+        InvoicePayment payment = new InvoicePayment();
+        payment.setPaidAt(new Date());
+        payment.setAmount(paymentAmount);
+        payment.setNotes(paymentReference);
+        return InvoicePayment.marshal(payment);
+    }
+
+    /**
+     * @return the report, completed once every payment has been posted or has failed; never completed exceptionally
+     */
+    public CompletableFuture<InvoicePaymentBatchResult> start()
+    {
+        if (this.payments.isEmpty())
+            this.result.complete(new InvoicePaymentBatchResult(Arrays.asList(this.results)));
+
+        for (int i = 0; i < Math.min(this.maxInFlight, this.payments.size()); i++)
+            this.postNext();
+        return this.result;
+    }
+
+    /**
+     * Sends the next pending payment. Payments that need no request, or whose request completed while it
+     * was sent, are recorded right away and the loop moves on, so each call leaves at most one request in flight.
+     */
+    private void postNext()
+    {
+        while (true)
+        {
+            final int index = this.next.getAndIncrement();
+            if (index >= this.payments.size())
+                return;
+
+            PostInvoicePaymentParameters payment = this.payments.get(index);
+            final Integer invoiceId = payment.getInvoiceId() != null ? payment.getInvoiceId() : this.invoiceIds.get(payment.getInvoiceNumber());
+            if (invoiceId == null)
+            {
+                this.finish(index, InvoicePaymentResult.Status.UNRESOLVED, null, 0,
+                        new HarvestClientException("Unable to find invoice number " + payment.getInvoiceNumber() + "."));
+                continue;
+            }
+
+            CompletableFuture<Integer> sent;
+            try
+            {
+                sent = this.sender.send(invoiceId, marshal(payment.getPaymentReference(), payment.getPaymentAmount()));
+            }
+            catch (RuntimeException e)
+            {
+                this.finish(index, InvoicePaymentResult.Status.FAILED, invoiceId, 0, e);
+                continue;
+            }
+
+            if (sent.isDone())
+            {
+                // Sent inline, e.g. on a direct executor: continuing from the callback would add a stack frame per payment
+                sent.whenComplete((throttleRetries, e) -> this.sent(index, invoiceId, throttleRetries, e));
+                continue;
+            }
+
+            sent.whenComplete((throttleRetries, e) -> {
+                this.sent(index, invoiceId, throttleRetries, e);
+                this.postNext();
+            });
+            return;
+        }
+    }
+
+    private void sent(int index, Integer invoiceId, Integer throttleRetries, Throwable error)
+    {
+        if (error == null)
+            this.finish(index, InvoicePaymentResult.Status.POSTED, invoiceId, throttleRetries, null);
+        else
+            this.finish(index, InvoicePaymentResult.Status.FAILED, invoiceId, 0, error instanceof CompletionException ? error.getCause() : error);
+    }
+
+    private void finish(int index, InvoicePaymentResult.Status status, Integer invoiceId, int throttleRetries, Throwable error)
+    {
+        this.results[index] = new InvoicePaymentResult(this.payments.get(index), status, invoiceId, throttleRetries, error);
+        if (this.remaining.decrementAndGet() == 0)
+            this.result.complete(new InvoicePaymentBatchResult(Arrays.asList(this.results)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.enonic.harvest.harvestclient;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Per-payment report of a batch posted with postInvoicePayments, in the order the payments were given.
+ */
+public class InvoicePaymentBatchResult
+        implements Iterable<InvoicePaymentResult>
+{
+    private final List<InvoicePaymentResult> results;
+
+    InvoicePaymentBatchResult(List<InvoicePaymentResult> results)
+    {
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    public List<InvoicePaymentResult> getResults()
+    {
+        return results;
+    }
+
+    @Override
+    public Iterator<InvoicePaymentResult> iterator()
+    {
+        return results.iterator();
+    }
+
+    public int getPostedCount()
+    {
+        return count(InvoicePaymentResult.Status.POSTED);
+    }
+
+    public int getUnresolvedCount()
+    {
+        return count(InvoicePaymentResult.Status.UNRESOLVED);
+    }
+
+    public int getFailedCount()
+    {
+        return count(InvoicePaymentResult.Status.FAILED);
+    }
+
+    /**
+     * @return the total number of retries after throttled responses, over all payments
+     */
+    public int getThrottleRetries()
+    {
+        int retries = 0;
+        for (InvoicePaymentResult result : results)
+            retries += result.getThrottleRetries();
+        return retries;
+    }
+
+    private int count(InvoicePaymentResult.Status status)
+    {
+        int count = 0;
+        for (InvoicePaymentResult result : results)
+        {
+            if (result.getStatus() == status)
+                count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,68 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+
+/**
+ * Outcome of one payment in a batch posted with postInvoicePayments.
+ */
+public class InvoicePaymentResult
+{
+    public enum Status
+    {
+        /** The payment was accepted by Harvest. */
+        POSTED,
+        /** The invoice number could not be resolved to an invoice id; nothing was sent. */
+        UNRESOLVED,
+        /** The request failed; see {@link #getError()}. */
+        FAILED
+    }
+
+    private final PostInvoicePaymentParameters payment;
+    private final Status status;
+    private final Integer invoiceId;
+    private final int throttleRetries;
+    private final Throwable error;
+
+    InvoicePaymentResult(PostInvoicePaymentParameters payment, Status status, Integer invoiceId, int throttleRetries, Throwable error)
+    {
+        this.payment = payment;
+        this.status = status;
+        this.invoiceId = invoiceId;
+        this.throttleRetries = throttleRetries;
+        this.error = error;
+    }
+
+    public PostInvoicePaymentParameters getPayment()
+    {
+        return payment;
+    }
+
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * @return the invoice the payment was posted to, or null if it could not be resolved
+     */
+    public Integer getInvoiceId()
+    {
+        return invoiceId;
+    }
+
+    /**
+     * @return how many times the request was retried after a throttled response
+     */
+    public int getThrottleRetries()
+    {
+        return throttleRetries;
+    }
+
+    /**
+     * @return the failure for {@link Status#FAILED} and {@link Status#UNRESOLVED} payments, otherwise null
+     */
+    public Throwable getError()
+    {
+        return error;
+    }
+}
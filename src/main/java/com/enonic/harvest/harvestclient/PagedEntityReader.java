@@ -0,0 +1,75 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.EntityReader;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Reads the entities of consecutive pages as one sequence. The next page is requested when the
+ * current one is read to the end, and reading stops at the first empty page.
+ */
+class PagedEntityReader<T>
+        implements Iterator<T>, Closeable
+{
+    private final IntFunction<EntityReader<T>> openPage;
+    private int page;
+    private EntityReader<T> current;
+    private boolean pageEmpty = true;
+    private boolean closed;
+
+    PagedEntityReader(IntFunction<EntityReader<T>> openPage, int firstPage)
+    {
+        this.openPage = openPage;
+        this.page = firstPage;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!this.closed)
+        {
+            if (this.current == null)
+            {
+                this.current = this.openPage.apply(this.page++);
+                this.pageEmpty = true;
+            }
+
+            if (this.current.hasNext())
+            {
+                this.pageEmpty = false;
+                return true;
+            }
+
+            this.current = null;
+            if (this.pageEmpty)
+                this.closed = true;
+        }
+        return false;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return this.current.next();
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close()
+    {
+        this.closed = true;
+        if (this.current != null)
+            this.current.close();
+        this.current = null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.Project;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs a blocking per-project call, such as {@link HarvestClient#getUserAssignments(int)}, for many
+ * projects concurrently and collects the results by project id.
+ *
+ * Each call runs as its own task on the executor, which suits a virtual thread per task executor.
+ * At most {@code parallelism} calls are in flight, so callers queue here rather than time out
+ * waiting for a pooled connection. No new calls are started after one fails.
+ */
+public class ProjectFanOut
+{
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * @param executor the executor to run the calls on
+     * @param parallelism the maximum number of calls in flight, typically the connections per route
+     */
+    public ProjectFanOut(Executor executor, int parallelism)
+    {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the result for each project by project id, in the order of the projects
+     * @throws HarvestClientException the first failure, after the calls in flight have completed
+     */
+    public <T> Map<Integer, T> apply(Iterable<Project> projects, Function<Project, T> call)
+            throws HarvestClientException
+    {
+        Semaphore permits = new Semaphore(this.parallelism);
+        List<Project> started = new ArrayList<Project>();
+        List<CompletableFuture<T>> results = new ArrayList<CompletableFuture<T>>();
+        CompletableFuture<Void> failed = new CompletableFuture<Void>();
+
+        try
+        {
+            for (Project project : projects)
+            {
+                permits.acquire();
+                if (failed.isDone())
+                {
+                    permits.release();
+                    break;
+                }
+
+                CompletableFuture<T> result;
+                try
+                {
+                    result = CompletableFuture.supplyAsync(() -> call.apply(project), this.executor);
+                }
+                catch (RuntimeException e)
+                {
+                    permits.release();
+                    throw e;
+                }
+                result.whenComplete((value, error) -> {
+                    if (error != null)
+                        failed.complete(null);
+                    permits.release();
+                });
+                started.add(project);
+                results.add(result);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new HarvestClientException("Interrupted while starting project calls.", e);
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[results.size()])).exceptionally(e -> null).join();
+
+        Map<Integer, T> values = new LinkedHashMap<Integer, T>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            try
+            {
+                values.put(started.get(i).getId(), results.get(i).join());
+            }
+            catch (CompletionException e)
+            {
+                if (e.getCause() instanceof HarvestClientException)
+                    throw (HarvestClientException) e.getCause();
+                throw new HarvestClientException("Project call failed for project " + started.get(i).getId(), e.getCause());
+            }
+        }
+        return values;
+    }
+}
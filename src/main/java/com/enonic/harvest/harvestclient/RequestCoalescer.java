@@ -0,0 +1,134 @@
+package com.enonic.harvest.harvestclient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers for the same URL share one request and its parsed result.
+ *
+ * The first caller for a URL sends the request; callers arriving while it is in flight wait for it and
+ * receive the same result object, or the same exception. Once the request completes the URL is
+ * forgotten, so later callers fetch it again. Shared results must be treated as read-only.
+ */
+public class RequestCoalescer
+{
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Runs the request on the calling thread, or waits for the identical request already in flight.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String url, Supplier<T> request)
+    {
+        CompletableFuture<Object> flight = new CompletableFuture<Object>();
+        CompletableFuture<Object> existing = this.inFlight.putIfAbsent(url, flight);
+        if (existing != null)
+        {
+            this.coalescedCount.incrementAndGet();
+            try
+            {
+                return (T) existing.join();
+            }
+            catch (CompletionException e)
+            {
+                throw unwrap(e);
+            }
+        }
+
+        this.requestCount.incrementAndGet();
+        try
+        {
+            T value = request.get();
+            flight.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error e)
+        {
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            this.inFlight.remove(url, flight);
+        }
+    }
+
+    /**
+     * Starts the request, or joins the identical request already in flight. Cancelling the returned
+     * future does not cancel the shared request.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> callAsync(String url, Supplier<CompletableFuture<T>> request)
+    {
+        CompletableFuture<Object> flight = new CompletableFuture<Object>();
+        CompletableFuture<Object> existing = this.inFlight.putIfAbsent(url, flight);
+        if (existing != null)
+        {
+            this.coalescedCount.incrementAndGet();
+            return existing.thenApply(value -> (T) value);
+        }
+
+        this.requestCount.incrementAndGet();
+        CompletableFuture<T> started;
+        try
+        {
+            started = request.get();
+        }
+        catch (RuntimeException e)
+        {
+            started = new CompletableFuture<T>();
+            started.completeExceptionally(e);
+        }
+
+        started.whenComplete((value, error) -> {
+            // Forget the URL first, so callers that see the result complete never join a finished flight
+            this.inFlight.remove(url, flight);
+            if (error != null)
+                flight.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            else
+                flight.complete(value);
+        });
+        return flight.thenApply(value -> (T) value);
+    }
+
+    private static RuntimeException unwrap(CompletionException e)
+    {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return e;
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    public int getInFlightCount()
+    {
+        return inFlight.size();
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of calls that shared a request already in flight instead of sending their own
+     */
+    public long getCoalescedCount()
+    {
+        return coalescedCount.get();
+    }
+}
@@ -0,0 +1,91 @@
+package com.enonic.harvest.harvestclient;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Debugging aid that finds responses which were garbage collected without being closed.
+ *
+ * Each tracked response remembers the stack trace of the call that opened it. Leaks are found when
+ * the next response is opened (or {@link #report()} is called) after the garbage collector has
+ * discarded the unclosed response, and are logged as warnings with that stack trace. Recording
+ * stack traces is not free, so the detector is only enabled with
+ * {@link HarvestClientConfig#setLeakDetection(boolean)}.
+ */
+public class ResponseLeakDetector
+{
+    private static final Logger LOG = Logger.getLogger(ResponseLeakDetector.class.getName());
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    private final Set<Tracker> open = Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+    private final AtomicLong leakCount = new AtomicLong();
+
+    Tracker track(Object response, String url)
+    {
+        this.report();
+        Tracker tracker = new Tracker(response, url);
+        this.open.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * Logs responses that have been garbage collected without being closed since the last report.
+     */
+    public void report()
+    {
+        Reference<?> reference;
+        while ((reference = this.queue.poll()) != null)
+        {
+            Tracker tracker = (Tracker) reference;
+            if (this.open.remove(tracker))
+            {
+                this.leakCount.incrementAndGet();
+                LOG.log(Level.WARNING, "Response for " + tracker.url + " was not closed before it was garbage collected; "
+                        + "its connection was not returned to the pool.", tracker.callSite);
+            }
+        }
+    }
+
+    /**
+     * @return the number of responses currently open
+     */
+    public int getOpenCount()
+    {
+        return open.size();
+    }
+
+    /**
+     * @return the number of responses found to have been discarded without being closed
+     */
+    public long getLeakCount()
+    {
+        return leakCount.get();
+    }
+
+    class Tracker
+            extends PhantomReference<Object>
+    {
+        private final String url;
+        private final Throwable callSite;
+
+        private Tracker(Object response, String url)
+        {
+            super(response, queue);
+            this.url = url;
+            this.callSite = new Throwable("Response opened here");
+        }
+
+        void close()
+        {
+            open.remove(this);
+            this.clear();
+        }
+    }
+}
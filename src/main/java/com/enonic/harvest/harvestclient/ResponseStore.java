@@ -0,0 +1,106 @@
+package com.enonic.harvest.harvestclient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed responses by request URL, together with the ETag and Last-Modified validators they were sent with.
+ *
+ * Clients use the validators to make conditional requests, and serve the stored result when Harvest
+ * answers 304 Not Modified, skipping both the download and the parsing. Stored results are shared by
+ * all callers and must be treated as read-only. The least recently used URL is dropped when the
+ * store is full.
+ */
+public class ResponseStore
+{
+    static class StoredResponse
+    {
+        final String etag;
+        final String lastModified;
+        final Object value;
+
+        StoredResponse(String etag, String lastModified, Object value)
+        {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+    }
+
+    private final int maximumSize;
+    private final LinkedHashMap<String, StoredResponse> entries;
+
+    private long notModifiedCount;
+    private long modifiedCount;
+
+    /**
+     * @param maximumSize the maximum number of URLs to keep a response for
+     */
+    public ResponseStore(final int maximumSize)
+    {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<String, StoredResponse>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest)
+            {
+                return size() > ResponseStore.this.maximumSize;
+            }
+        };
+    }
+
+    synchronized StoredResponse get(String url)
+    {
+        return this.entries.get(url);
+    }
+
+    /**
+     * Stores a parsed response. Responses without validators can not be revalidated and are not kept.
+     *
+     * @param revalidated whether the request was sent with validators of an earlier response
+     */
+    synchronized void put(String url, String etag, String lastModified, Object value, boolean revalidated)
+    {
+        if (revalidated)
+            this.modifiedCount++;
+
+        if (etag == null && lastModified == null)
+            this.entries.remove(url);
+        else
+            this.entries.put(url, new StoredResponse(etag, lastModified, value));
+    }
+
+    synchronized void notModified()
+    {
+        this.notModifiedCount++;
+    }
+
+    public synchronized void invalidateAll()
+    {
+        this.entries.clear();
+    }
+
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    /**
+     * @return the number of conditional requests answered with 304 Not Modified and served from the store
+     */
+    public synchronized long getNotModifiedCount()
+    {
+        return notModifiedCount;
+    }
+
+    /**
+     * @return the number of conditional requests for which Harvest sent a changed response
+     */
+    public synchronized long getModifiedCount()
+    {
+        return modifiedCount;
+    }
+}
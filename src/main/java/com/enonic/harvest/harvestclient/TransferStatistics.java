@@ -0,0 +1,141 @@
+package com.enonic.harvest.harvestclient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response body sizes per endpoint, as received over the wire and after decompression.
+ *
+ * Endpoints are request paths with ids replaced by {@code {id}}, e.g. {@code /projects/{id}/entries}.
+ * Bytes are counted as the body is read, so a response that is not read to the end is counted partially.
+ */
+public class TransferStatistics
+{
+    public static class Endpoint
+    {
+        private final AtomicLong responseCount = new AtomicLong();
+        private final AtomicLong wireBytes = new AtomicLong();
+        private final AtomicLong decodedBytes = new AtomicLong();
+
+        public long getResponseCount()
+        {
+            return responseCount.get();
+        }
+
+        /**
+         * @return body bytes received, compressed if the response was
+         */
+        public long getWireBytes()
+        {
+            return wireBytes.get();
+        }
+
+        /**
+         * @return body bytes handed to the parser
+         */
+        public long getDecodedBytes()
+        {
+            return decodedBytes.get();
+        }
+    }
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+
+    Endpoint endpoint(String endpoint)
+    {
+        Endpoint statistics = this.endpoints.get(endpoint);
+        if (statistics == null)
+        {
+            this.endpoints.putIfAbsent(endpoint, new Endpoint());
+            statistics = this.endpoints.get(endpoint);
+        }
+        statistics.responseCount.incrementAndGet();
+        return statistics;
+    }
+
+    public Map<String, Endpoint> getEndpoints()
+    {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    public long getWireBytes()
+    {
+        long bytes = 0;
+        for (Endpoint endpoint : endpoints.values())
+            bytes += endpoint.getWireBytes();
+        return bytes;
+    }
+
+    public long getDecodedBytes()
+    {
+        long bytes = 0;
+        for (Endpoint endpoint : endpoints.values())
+            bytes += endpoint.getDecodedBytes();
+        return bytes;
+    }
+
+    static InputStream countWire(Endpoint endpoint, InputStream in)
+    {
+        return new CountingInputStream(in, endpoint.wireBytes);
+    }
+
+    static InputStream countDecoded(Endpoint endpoint, InputStream in)
+    {
+        return new CountingInputStream(in, endpoint.decodedBytes);
+    }
+
+    /**
+     * Counts the bytes read through it into one of the endpoint counters.
+     */
+    static class CountingInputStream
+            extends FilterInputStream
+    {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter)
+        {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            int b = super.read();
+            if (b != -1)
+                this.counter.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+                throws IOException
+        {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                this.counter.addAndGet(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n)
+                throws IOException
+        {
+            long skipped = super.skip(n);
+            this.counter.addAndGet(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+}
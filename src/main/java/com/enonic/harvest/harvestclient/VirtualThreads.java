@@ -0,0 +1,53 @@
+package com.enonic.harvest.harvestclient;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads on Java 21 and later. The client is compiled for Java 8, so the
+ * executor factory is looked up reflectively and is absent on older runtimes.
+ */
+final class VirtualThreads
+{
+    private static final Method NEW_EXECUTOR = lookup();
+
+    private VirtualThreads()
+    {
+    }
+
+    private static Method lookup()
+    {
+        try
+        {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+
+    static boolean isAvailable()
+    {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return an executor starting a new virtual thread for each task, or null if the runtime has no virtual threads
+     */
+    static ExecutorService newExecutor()
+    {
+        if (NEW_EXECUTOR == null)
+            return null;
+
+        try
+        {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.enonic.harvest.harvestclient.cache;
+
+import com.enonic.harvest.harvestclient.HarvestClient;
+import com.enonic.harvest.harvestclient.InvoiceCacheListener;
+import com.enonic.harvest.harvestclient.InvoicePaymentBatchResult;
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.*;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+import org.reactivestreams.Publisher;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link HarvestClient} decorator that caches users, clients, projects and tasks by id.
+ *
+ * Lookups by id are served from the cache until the entry expires or is evicted. Entities returned
+ * by the list methods are added to the cache as well. All other methods go straight to the
+ * wrapped client. Safe for concurrent use if the wrapped client is.
+ */
+public class CachingHarvestClient
+        implements HarvestClient
+{
+    private final HarvestClient delegate;
+
+    private final EntityCache<User> users;
+    private final EntityCache<Client> clients;
+    private final EntityCache<Project> projects;
+    private final EntityCache<Task> tasks;
+
+    public CachingHarvestClient(HarvestClient delegate)
+    {
+        this(delegate, new HarvestCacheConfig());
+    }
+
+    public CachingHarvestClient(HarvestClient delegate, HarvestCacheConfig config)
+    {
+        this.delegate = delegate;
+        this.users = new EntityCache<User>(config.getUserTtl(), config.getMaximumSize());
+        this.clients = new EntityCache<Client>(config.getClientTtl(), config.getMaximumSize());
+        this.projects = new EntityCache<Project>(config.getProjectTtl(), config.getMaximumSize());
+        this.tasks = new EntityCache<Task>(config.getTaskTtl(), config.getMaximumSize());
+    }
+
+    @Override
+    public UserCollection getUsers()
+            throws HarvestClientException
+    {
+        return cache(this.users, this.delegate.getUsers(), User::getId);
+    }
+
+    @Override
+    public UserCollection getUsers(Date updatedSince)
+            throws HarvestClientException
+    {
+        return cache(this.users, this.delegate.getUsers(updatedSince), User::getId);
+    }
+
+    @Override
+    public User getUser(int id)
+            throws HarvestClientException
+    {
+        User user = this.users.get(id);
+        if (user == null)
+        {
+            user = this.delegate.getUser(id);
+            this.users.put(id, user);
+        }
+        return user;
+    }
+
+    @Override
+    public ClientCollection getClients()
+            throws HarvestClientException
+    {
+        return cache(this.clients, this.delegate.getClients(), Client::getId);
+    }
+
+    @Override
+    public ClientCollection getClients(Date updatedSince)
+            throws HarvestClientException
+    {
+        return cache(this.clients, this.delegate.getClients(updatedSince), Client::getId);
+    }
+
+    @Override
+    public Client getClient(int id)
+            throws HarvestClientException
+    {
+        Client client = this.clients.get(id);
+        if (client == null)
+        {
+            client = this.delegate.getClient(id);
+            this.clients.put(id, client);
+        }
+        return client;
+    }
+
+    @Override
+    public DayEntryCollection getDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.getDayEntriesByUser(params);
+    }
+
+    @Override
+    public DayEntryCollection getDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.getDayEntriesByProject(params);
+    }
+
+    @Override
+    public DayEntryReader streamDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.streamDayEntriesByUser(params);
+    }
+
+    @Override
+    public DayEntryReader streamDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.streamDayEntriesByProject(params);
+    }
+
+    @Override
+    public ProjectCollection getProjects()
+            throws HarvestClientException
+    {
+        return cache(this.projects, this.delegate.getProjects(), Project::getId);
+    }
+
+    @Override
+    public ProjectCollection getProjects(Date updatedSince)
+            throws HarvestClientException
+    {
+        return cache(this.projects, this.delegate.getProjects(updatedSince), Project::getId);
+    }
+
+    @Override
+    public ProjectCollection getProjects(int clientId)
+            throws HarvestClientException
+    {
+        return cache(this.projects, this.delegate.getProjects(clientId), Project::getId);
+    }
+
+    @Override
+    public ProjectCollection getProjects(int clientId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return cache(this.projects, this.delegate.getProjects(clientId, updatedSince), Project::getId);
+    }
+
+    @Override
+    public Project getProject(int id)
+            throws HarvestClientException
+    {
+        Project project = this.projects.get(id);
+        if (project == null)
+        {
+            project = this.delegate.getProject(id);
+            this.projects.put(id, project);
+        }
+        return project;
+    }
+
+    @Override
+    public TaskCollection getTasks()
+            throws HarvestClientException
+    {
+        return cache(this.tasks, this.delegate.getTasks(), Task::getId);
+    }
+
+    @Override
+    public TaskCollection getTasks(Date updatedSince)
+            throws HarvestClientException
+    {
+        return cache(this.tasks, this.delegate.getTasks(updatedSince), Task::getId);
+    }
+
+    @Override
+    public Task getTask(int id)
+            throws HarvestClientException
+    {
+        Task task = this.tasks.get(id);
+        if (task == null)
+        {
+            task = this.delegate.getTask(id);
+            this.tasks.put(id, task);
+        }
+        return task;
+    }
+
+    @Override
+    public UserAssignmentCollection getUserAssignments(int projectId)
+            throws HarvestClientException
+    {
+        return this.delegate.getUserAssignments(projectId);
+    }
+
+    @Override
+    public UserAssignmentCollection getUserAssignments(int projectId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return this.delegate.getUserAssignments(projectId, updatedSince);
+    }
+
+    @Override
+    public TaskAssignmentCollection getTaskAssignments(int projectId)
+            throws HarvestClientException
+    {
+        return this.delegate.getTaskAssignments(projectId);
+    }
+
+    @Override
+    public TaskAssignmentCollection getTaskAssignments(int projectId, Date updatedSince)
+            throws HarvestClientException
+    {
+        return this.delegate.getTaskAssignments(projectId, updatedSince);
+    }
+
+    @Override
+    public InvoiceCollection getRecentInvoices(GetRecentInvoicesParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.getRecentInvoices(params);
+    }
+
+    @Override
+    public Invoice getInvoice(int id)
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoice(id);
+    }
+
+    @Override
+    public InvoiceItemCategoryCollection getInvoiceItemCategories()
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoiceItemCategories();
+    }
+
+    @Override
+    public InvoiceMessageCollection getInvoiceMessages(int invoiceId)
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoiceMessages(invoiceId);
+    }
+
+    @Override
+    public InvoiceMessage getInvoiceMessage(int invoiceId, int id)
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoiceMessage(invoiceId, id);
+    }
+
+    @Override
+    public InvoicePaymentCollection getInvoicePayments(int invoiceId)
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoicePayments(invoiceId);
+    }
+
+    @Override
+    public InvoicePayment getInvoicePayment(int invoiceId, int id)
+            throws HarvestClientException
+    {
+        return this.delegate.getInvoicePayment(invoiceId, id);
+    }
+
+    @Override
+    public int populateInvoiceCache(Date from, Date to)
+    {
+        return this.delegate.populateInvoiceCache(from, to);
+    }
+
+    @Override
+    public int populateInvoiceCache(Date from, Date to, InvoiceCacheListener listener)
+    {
+        return this.delegate.populateInvoiceCache(from, to, listener);
+    }
+
+    @Override
+    public void postInvoicePayment(int invoiceId, String paymentReference, BigDecimal paymentAmount)
+            throws HarvestClientException
+    {
+        this.delegate.postInvoicePayment(invoiceId, paymentReference, paymentAmount);
+    }
+
+    @Override
+    public void postInvoicePayment(String invoiceNumber, String paymentReference, BigDecimal paymentAmount)
+            throws HarvestClientException
+    {
+        this.delegate.postInvoicePayment(invoiceNumber, paymentReference, paymentAmount);
+    }
+
+    @Override
+    public InvoicePaymentBatchResult postInvoicePayments(Iterable<PostInvoicePaymentParameters> payments)
+            throws HarvestClientException
+    {
+        return this.delegate.postInvoicePayments(payments);
+    }
+
+    @Override
+    public DayEntryTable getDayEntryTableByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.getDayEntryTableByProject(params);
+    }
+
+    @Override
+    public DayEntryTable getDayEntryTableByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.getDayEntryTableByUser(params);
+    }
+
+    @Override
+    public Publisher<DayEntry> publishDayEntriesByProject(GetDayEntriesByProjectParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.publishDayEntriesByProject(params);
+    }
+
+    @Override
+    public Publisher<DayEntry> publishDayEntriesByUser(GetDayEntriesByUserParameters params)
+            throws HarvestClientException
+    {
+        return this.delegate.publishDayEntriesByUser(params);
+    }
+
+    @Override
+    public Publisher<Project> publishProjects()
+    {
+        return this.delegate.publishProjects();
+    }
+
+    @Override
+    public Publisher<Invoice> publishInvoices(GetRecentInvoicesParameters params)
+    {
+        return this.delegate.publishInvoices(params);
+    }
+
+    @Override
+    public <T> Map<Integer, T> forEachProject(Function<Project, T> call)
+            throws HarvestClientException
+    {
+        return this.delegate.forEachProject(call);
+    }
+
+    public EntityCache<User> getUserCache()
+    {
+        return users;
+    }
+
+    public EntityCache<Client> getClientCache()
+    {
+        return clients;
+    }
+
+    public EntityCache<Project> getProjectCache()
+    {
+        return projects;
+    }
+
+    public EntityCache<Task> getTaskCache()
+    {
+        return tasks;
+    }
+
+    public void invalidateAll()
+    {
+        this.users.invalidateAll();
+        this.clients.invalidateAll();
+        this.projects.invalidateAll();
+        this.tasks.invalidateAll();
+    }
+
+    @Override
+    public void close()
+    {
+        this.delegate.close();
+    }
+
+    private static <C extends Iterable<T>, T> C cache(EntityCache<T> cache, C collection, Function<T, Integer> id)
+    {
+        for (T entity : collection)
+        {
+            if (id.apply(entity) != null)
+                cache.put(id.apply(entity), entity);
+        }
+        return collection;
+    }
+}
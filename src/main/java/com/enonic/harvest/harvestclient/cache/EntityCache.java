@@ -0,0 +1,133 @@
+package com.enonic.harvest.harvestclient.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded LRU cache of entities by id, with an expiry time per entry.
+ *
+ * Keeps counters for hits, misses, evictions (entries dropped to stay within the maximum size)
+ * and expirations.
+ */
+public class EntityCache<V>
+{
+    private final long ttlNanos;
+    private final int maximumSize;
+    private final LinkedHashMap<Integer, CacheEntry<V>> entries;
+    // Source of System.nanoTime()-style readings
+    private final LongSupplier clock;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * @param ttl how long an entry stays valid in milliseconds, or 0 for no expiry
+     * @param maximumSize the maximum number of entries; the least recently used entry is evicted beyond that
+     */
+    public EntityCache(long ttl, final int maximumSize)
+    {
+        this(ttl, maximumSize, System::nanoTime);
+    }
+
+    EntityCache(long ttl, final int maximumSize, LongSupplier clock)
+    {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Integer, CacheEntry<V>>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CacheEntry<V>> eldest)
+            {
+                if (size() <= EntityCache.this.maximumSize)
+                    return false;
+                evictionCount++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the cached entity, or null if it is not cached or has expired
+     */
+    public synchronized V get(int id)
+    {
+        CacheEntry<V> entry = this.entries.get(id);
+        if (entry == null)
+        {
+            this.missCount++;
+            return null;
+        }
+
+        if (this.ttlNanos > 0 && this.clock.getAsLong() - entry.createdAt > this.ttlNanos)
+        {
+            this.entries.remove(id);
+            this.expirationCount++;
+            this.missCount++;
+            return null;
+        }
+
+        this.hitCount++;
+        return entry.value;
+    }
+
+    public synchronized void put(int id, V value)
+    {
+        if (value != null)
+            this.entries.put(id, new CacheEntry<V>(value, this.clock.getAsLong()));
+    }
+
+    public synchronized void invalidate(int id)
+    {
+        this.entries.remove(id);
+    }
+
+    public synchronized void invalidateAll()
+    {
+        this.entries.clear();
+    }
+
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    public synchronized long getExpirationCount()
+    {
+        return expirationCount;
+    }
+
+    private static class CacheEntry<V>
+    {
+        private final V value;
+        private final long createdAt;
+
+        public CacheEntry(V value, long createdAt)
+        {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
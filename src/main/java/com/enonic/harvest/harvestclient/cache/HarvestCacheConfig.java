@@ -0,0 +1,66 @@
+package com.enonic.harvest.harvestclient.cache;
+
+/**
+ * Settings for a {@link CachingHarvestClient}.
+ *
+ * Time-to-live values are in milliseconds; 0 means entries never expire. The maximum size applies
+ * to each entity type separately.
+ */
+public class HarvestCacheConfig
+{
+    private long userTtl = 600000;
+    private long clientTtl = 600000;
+    private long projectTtl = 600000;
+    private long taskTtl = 600000;
+    private int maximumSize = 10000;
+
+    public long getUserTtl()
+    {
+        return userTtl;
+    }
+
+    public void setUserTtl(long userTtl)
+    {
+        this.userTtl = userTtl;
+    }
+
+    public long getClientTtl()
+    {
+        return clientTtl;
+    }
+
+    public void setClientTtl(long clientTtl)
+    {
+        this.clientTtl = clientTtl;
+    }
+
+    public long getProjectTtl()
+    {
+        return projectTtl;
+    }
+
+    public void setProjectTtl(long projectTtl)
+    {
+        this.projectTtl = projectTtl;
+    }
+
+    public long getTaskTtl()
+    {
+        return taskTtl;
+    }
+
+    public void setTaskTtl(long taskTtl)
+    {
+        this.taskTtl = taskTtl;
+    }
+
+    public int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize)
+    {
+        this.maximumSize = maximumSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.enonic.harvest.harvestclient.exceptions;
+
+/**
+ * Thrown when Harvest answers a request with a status code the client does not expect.
+ */
+public class UnexpectedStatusException
+        extends HarvestClientException
+{
+    private final int statusCode;
+    private final long retryAfter;
+
+    /**
+     * @param retryAfter the Retry-After of the response in milliseconds, or 0 if it has none
+     */
+    public UnexpectedStatusException(int statusCode, String url, long retryAfter)
+    {
+        super(String.format("Returned status code %s: %s", statusCode, url));
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    /**
+     * @return how long the server asked clients to wait before retrying, in milliseconds, or 0 if it did not say
+     */
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
+}
@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -175,16 +173,6 @@ public class Client
     public static Client fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(Client.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (Client) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into Client.", e);
-        }
-
+        return JaxbContextRegistry.unmarshal(Client.class, xml);
     }
 }
@@ -5,6 +5,8 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Date;
 
 @XmlAccessorType(XmlAccessType.NONE)
@@ -54,6 +56,11 @@ public class DayEntry
         this.createdAt = createdAt;
     }
 
+    public Instant getCreatedAtInstant()
+    {
+        return HarvestDates.toInstant(createdAt);
+    }
+
     public BigDecimal getHours()
     {
         return hours;
@@ -114,6 +121,14 @@ public class DayEntry
         this.spentAt = spentAt;
     }
 
+    /**
+     * @return the day of {@link #getSpentAt()} in the default time zone
+     */
+    public LocalDate getSpentAtLocalDate()
+    {
+        return HarvestDates.toLocalDate(spentAt);
+    }
+
     public Integer getTaskId()
     {
         return taskId;
@@ -134,6 +149,11 @@ public class DayEntry
         this.updatedAt = updatedAt;
     }
 
+    public Instant getUpdatedAtInstant()
+    {
+        return HarvestDates.toInstant(updatedAt);
+    }
+
     public Integer getUserId()
     {
         return userId;
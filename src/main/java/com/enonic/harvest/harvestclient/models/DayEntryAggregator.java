@@ -0,0 +1,572 @@
+package com.enonic.harvest.harvestclient.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rolls up the hours of day entries by project, task, user and the day, week or month they were spent in.
+ *
+ * Aggregation runs over the columns of a {@link DayEntryTable}. Hours are summed exactly as longs at
+ * the scale of the most precise hours, at most nine decimals. Tables larger than the sequential threshold
+ * are split into ranges that are aggregated in parallel on a fork-join pool and merged. Periods are in
+ * the default time zone.
+ *
+ * When the grouped values span few enough combinations, a group is found by its position in a dense
+ * array; otherwise groups are kept in an open-addressing hash table.
+ *
+ * An aggregator holds no state between calls and can be shared once configured.
+ */
+public class DayEntryAggregator
+{
+    public enum GroupBy
+    {
+        PROJECT, TASK, USER, DAY, WEEK, MONTH
+    }
+
+    private static final int MAX_SCALE = 9;
+
+    /**
+     * The most groups laid out densely; each range allocates this many slots.
+     */
+    private static final int MAX_DENSE_GROUPS = 1 << 14;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private final GroupBy[] groupBy;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int sequentialThreshold = 65536;
+
+    /**
+     * @param groupBy the dimensions to group on, at most one of which is a period; none gives a single total
+     */
+    public DayEntryAggregator(GroupBy... groupBy)
+    {
+        int periods = 0;
+        for (GroupBy dimension : groupBy)
+        {
+            if (dimension == GroupBy.DAY || dimension == GroupBy.WEEK || dimension == GroupBy.MONTH)
+                periods++;
+        }
+        if (periods > 1)
+            throw new IllegalArgumentException("Group by at most one of DAY, WEEK and MONTH");
+
+        this.groupBy = groupBy.clone();
+    }
+
+    public void setPool(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    /**
+     * @param sequentialThreshold the number of rows below which a range is not split further
+     */
+    public void setSequentialThreshold(int sequentialThreshold)
+    {
+        if (sequentialThreshold < 1)
+            throw new IllegalArgumentException("sequentialThreshold must be at least 1");
+
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * @return the summary of each group, ordered by the grouped values with absent values first
+     * @throws ArithmeticException if the hours of a group overflow a long at the summing scale
+     */
+    public Map<DayEntryGroup, HoursSummary> aggregate(DayEntryTable table)
+    {
+        Columns columns = new Columns(table);
+        Groups groups;
+        if (table.size() <= this.sequentialThreshold)
+            groups = new Range(columns, 0, table.size()).compute();
+        else
+            groups = this.pool.invoke(new Range(columns, 0, table.size()));
+
+        return groups.toMap(columns);
+    }
+
+    /**
+     * Aggregates day entries that are already in memory, such as a {@link DayEntryCollection}.
+     */
+    public Map<DayEntryGroup, HoursSummary> aggregate(Iterable<DayEntry> dayEntries)
+    {
+        DayEntryTable table = new DayEntryTable();
+        for (DayEntry dayEntry : dayEntries)
+            table.add(dayEntry);
+        return this.aggregate(table);
+    }
+
+    /**
+     * The columns of one aggregation, resolved once and shared by its ranges.
+     */
+    private final class Columns
+    {
+        final DayEntryTable table;
+        final int scale;
+        final GroupBy[] groupBy = DayEntryAggregator.this.groupBy;
+        final int[][] idColumns = new int[groupBy.length][];
+        final GroupBy period;
+        final long[] spentAt;
+        final long[] hours;
+        final byte[] hoursScale;
+
+        /**
+         * Words of the billed bit set, read without branching since billed and unbilled entries interleave.
+         */
+        final long[] billed;
+
+        /**
+         * The least value of each dimension and the number of positions it spans, or null if the
+         * groups do not fit a dense array.
+         */
+        final int[] denseMins;
+        final int[] denseSizes;
+
+        Columns(DayEntryTable table)
+        {
+            this.table = table;
+            this.scale = Math.min(table.getMaxHoursScale(), MAX_SCALE);
+
+            GroupBy period = null;
+            for (int i = 0; i < this.groupBy.length; i++)
+            {
+                if (this.groupBy[i] == GroupBy.PROJECT)
+                    this.idColumns[i] = table.getProjectIdColumn();
+                else if (this.groupBy[i] == GroupBy.TASK)
+                    this.idColumns[i] = table.getTaskIdColumn();
+                else if (this.groupBy[i] == GroupBy.USER)
+                    this.idColumns[i] = table.getUserIdColumn();
+                else
+                    period = this.groupBy[i];
+            }
+            this.period = period;
+            this.spentAt = table.getSpentAtColumn();
+            this.hours = table.getHoursColumn();
+            this.hoursScale = table.getHoursScaleColumn();
+            this.billed = table.getBilledColumn().toLongArray();
+
+            int[] mins = new int[this.groupBy.length];
+            int[] sizes = new int[this.groupBy.length];
+            long groups = 1;
+            for (int i = 0; i < this.groupBy.length && groups <= MAX_DENSE_GROUPS; i++)
+            {
+                long[] range = this.idColumns[i] != null ? this.idRange(this.idColumns[i]) : this.periodRange();
+                mins[i] = (int) range[0];
+                // One more position for absent values
+                sizes[i] = (int) Math.min(range[1] - range[0] + 2, MAX_DENSE_GROUPS + 1);
+                groups *= sizes[i];
+            }
+            this.denseMins = groups <= MAX_DENSE_GROUPS ? mins : null;
+            this.denseSizes = groups <= MAX_DENSE_GROUPS ? sizes : null;
+        }
+
+        Periods newPeriods()
+        {
+            return this.period != null ? new Periods(this.period) : null;
+        }
+
+        private long[] idRange(int[] column)
+        {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int row = 0; row < this.table.size(); row++)
+            {
+                int value = column[row];
+                if (value != DayEntryTable.NO_ID)
+                {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            return min <= max ? new long[]{min, max} : new long[]{0, -1};
+        }
+
+        /**
+         * Local days only move forward with time, so the first and last periods are those of the
+         * earliest and latest times.
+         */
+        private long[] periodRange()
+        {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int row = 0; row < this.table.size(); row++)
+            {
+                long value = this.spentAt[row];
+                if (value != DayEntryTable.NO_TIME)
+                {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            if (min > max)
+                return new long[]{0, -1};
+
+            Periods periods = this.newPeriods();
+            return new long[]{periods.get(min), periods.get(max)};
+        }
+    }
+
+    /**
+     * Aggregates a range of rows, splitting it in two while it is above the sequential threshold.
+     */
+    private final class Range
+            extends RecursiveTask<Groups>
+    {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        Range(Columns columns, int from, int to)
+        {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Groups compute()
+        {
+            if (this.to - this.from <= sequentialThreshold)
+                return this.aggregate();
+
+            int middle = (this.from + this.to) >>> 1;
+            Range left = new Range(this.columns, this.from, middle);
+            Range right = new Range(this.columns, middle, this.to);
+            left.fork();
+            Groups groups = right.compute();
+            groups.merge(left.join());
+            return groups;
+        }
+
+        private Groups aggregate()
+        {
+            Columns columns = this.columns;
+            int[][] idColumns = columns.idColumns;
+            long[] billed = columns.billed;
+            Periods periods = columns.newPeriods();
+
+            Groups groups = new Groups(columns);
+            int[] key = new int[idColumns.length];
+            for (int row = this.from; row < this.to; row++)
+            {
+                for (int i = 0; i < key.length; i++)
+                    key[i] = idColumns[i] != null ? idColumns[i][row] : periods.get(columns.spentAt[row]);
+
+                long hours;
+                if (columns.hoursScale[row] == columns.scale)
+                    hours = columns.hours[row];
+                else
+                    hours = columns.table.getScaledHours(row, columns.scale);
+
+                int word = row >>> 6;
+                groups.add(key, word < billed.length ? (billed[word] >>> row) & 1 : 0, hours);
+            }
+            return groups;
+        }
+    }
+
+    /**
+     * Converts spent-at times to an ordinal of their period: the epoch day, the week counted from the
+     * Monday before the epoch, or the month counted from year zero. Entries share few distinct spent-at
+     * times, so conversions are remembered in a small direct-mapped cache.
+     */
+    private static final class Periods
+    {
+        private static final int CACHE_SIZE = 1024;
+
+        private final GroupBy groupBy;
+        private final TimeZone zone = TimeZone.getDefault();
+        private final long[] times = new long[CACHE_SIZE];
+        private final int[] ordinals = new int[CACHE_SIZE];
+
+        Periods(GroupBy groupBy)
+        {
+            this.groupBy = groupBy;
+            Arrays.fill(this.times, DayEntryTable.NO_TIME);
+        }
+
+        int get(long time)
+        {
+            if (time == DayEntryTable.NO_TIME)
+                return DayEntryTable.NO_ID;
+
+            int slot = (int) (time / MILLIS_PER_DAY) & (CACHE_SIZE - 1);
+            if (this.times[slot] == time)
+                return this.ordinals[slot];
+
+            long day = Math.floorDiv(time + this.zone.getOffset(time), MILLIS_PER_DAY);
+            int ordinal;
+            if (this.groupBy == GroupBy.WEEK)
+            {
+                ordinal = (int) Math.floorDiv(day + 3, 7);
+            }
+            else if (this.groupBy == GroupBy.MONTH)
+            {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                ordinal = date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+            else
+            {
+                ordinal = (int) day;
+            }
+
+            this.times[slot] = time;
+            this.ordinals[slot] = ordinal;
+            return ordinal;
+        }
+
+        static LocalDate toLocalDate(GroupBy groupBy, int ordinal)
+        {
+            if (groupBy == GroupBy.WEEK)
+                return LocalDate.ofEpochDay(ordinal * 7L - 3);
+            if (groupBy == GroupBy.MONTH)
+                return LocalDate.of(Math.floorDiv(ordinal, 12), Math.floorMod(ordinal, 12) + 1, 1);
+            return LocalDate.ofEpochDay(ordinal);
+        }
+    }
+
+    /**
+     * Running totals by group, in slots found either by position in a dense array or by open addressing.
+     * The totals of a group are adjacent in one array, so updating them touches a single cache line. A
+     * slot is free while its count is zero.
+     */
+    private static final class Groups
+    {
+        private static final int COUNT = 0;
+        private static final int BILLED_COUNT = 1;
+        private static final int HOURS_COUNT = 2;
+        private static final int HOURS = 3;
+        private static final int BILLED_HOURS = 4;
+        private static final int MIN_HOURS = 5;
+        private static final int MAX_HOURS = 6;
+        private static final int STRIDE = 8;
+
+        private final int dimensions;
+        private final int[] denseMins;
+        private final int[] denseSizes;
+        private int[] keys;
+        private long[] totals;
+        private int mask;
+        private int size;
+
+        Groups(Columns columns)
+        {
+            this.dimensions = columns.groupBy.length;
+            this.denseMins = columns.denseMins;
+            this.denseSizes = columns.denseSizes;
+
+            int capacity = 16;
+            if (this.denseSizes != null)
+            {
+                capacity = 1;
+                for (int size : this.denseSizes)
+                    capacity *= size;
+            }
+            this.allocate(capacity);
+        }
+
+        /**
+         * @param billed 1 if the entry is billed, otherwise 0
+         * @param hours the scaled hours, or {@link Long#MIN_VALUE} if absent
+         */
+        void add(int[] key, long billed, long hours)
+        {
+            int offset = this.slot(key) * STRIDE;
+            long[] totals = this.totals;
+            totals[offset + COUNT]++;
+            totals[offset + BILLED_COUNT] += billed;
+            if (hours == Long.MIN_VALUE)
+                return;
+
+            totals[offset + HOURS_COUNT]++;
+            totals[offset + HOURS] = Math.addExact(totals[offset + HOURS], hours);
+            totals[offset + BILLED_HOURS] = Math.addExact(totals[offset + BILLED_HOURS], hours & -billed);
+            totals[offset + MIN_HOURS] = Math.min(totals[offset + MIN_HOURS], hours);
+            totals[offset + MAX_HOURS] = Math.max(totals[offset + MAX_HOURS], hours);
+        }
+
+        void merge(Groups other)
+        {
+            int[] key = new int[this.dimensions];
+            for (int from = 0; from < other.capacity(); from++)
+            {
+                int source = from * STRIDE;
+                if (other.totals[source + COUNT] == 0)
+                    continue;
+
+                System.arraycopy(other.keys, from * this.dimensions, key, 0, this.dimensions);
+                int target = this.slot(key) * STRIDE;
+                this.totals[target + COUNT] += other.totals[source + COUNT];
+                this.totals[target + BILLED_COUNT] += other.totals[source + BILLED_COUNT];
+                this.totals[target + HOURS_COUNT] += other.totals[source + HOURS_COUNT];
+                this.totals[target + HOURS] = Math.addExact(this.totals[target + HOURS], other.totals[source + HOURS]);
+                this.totals[target + BILLED_HOURS] = Math.addExact(this.totals[target + BILLED_HOURS], other.totals[source + BILLED_HOURS]);
+                this.totals[target + MIN_HOURS] = Math.min(this.totals[target + MIN_HOURS], other.totals[source + MIN_HOURS]);
+                this.totals[target + MAX_HOURS] = Math.max(this.totals[target + MAX_HOURS], other.totals[source + MAX_HOURS]);
+            }
+        }
+
+        Map<DayEntryGroup, HoursSummary> toMap(Columns columns)
+        {
+            List<Integer> slots = new ArrayList<Integer>(this.size);
+            for (int slot = 0; slot < this.capacity(); slot++)
+            {
+                if (this.totals[slot * STRIDE + COUNT] != 0)
+                    slots.add(slot);
+            }
+            Collections.sort(slots, (a, b) -> {
+                for (int i = 0; i < this.dimensions; i++)
+                {
+                    int order = Integer.compare(this.keys[a * this.dimensions + i], this.keys[b * this.dimensions + i]);
+                    if (order != 0)
+                        return order;
+                }
+                return 0;
+            });
+
+            Map<DayEntryGroup, HoursSummary> map = new LinkedHashMap<DayEntryGroup, HoursSummary>();
+            for (int slot : slots)
+            {
+                Integer projectId = null;
+                Integer taskId = null;
+                Integer userId = null;
+                LocalDate period = null;
+                for (int i = 0; i < this.dimensions; i++)
+                {
+                    int value = this.keys[slot * this.dimensions + i];
+                    if (value == DayEntryTable.NO_ID)
+                        continue;
+
+                    if (columns.groupBy[i] == GroupBy.PROJECT)
+                        projectId = value;
+                    else if (columns.groupBy[i] == GroupBy.TASK)
+                        taskId = value;
+                    else if (columns.groupBy[i] == GroupBy.USER)
+                        userId = value;
+                    else
+                        period = Periods.toLocalDate(columns.period, value);
+                }
+
+                int offset = slot * STRIDE;
+                int scale = columns.scale;
+                boolean hasHours = this.totals[offset + HOURS_COUNT] != 0;
+                map.put(new DayEntryGroup(projectId, taskId, userId, period), new HoursSummary(
+                        this.totals[offset + COUNT],
+                        this.totals[offset + BILLED_COUNT],
+                        BigDecimal.valueOf(this.totals[offset + HOURS], scale),
+                        BigDecimal.valueOf(this.totals[offset + BILLED_HOURS], scale),
+                        hasHours ? BigDecimal.valueOf(this.totals[offset + MIN_HOURS], scale) : null,
+                        hasHours ? BigDecimal.valueOf(this.totals[offset + MAX_HOURS], scale) : null));
+            }
+            return map;
+        }
+
+        private int capacity()
+        {
+            return this.totals.length / STRIDE;
+        }
+
+        /**
+         * @return the slot of the key, claiming a free slot for a new key
+         */
+        private int slot(int[] key)
+        {
+            if (this.denseSizes != null)
+            {
+                int slot = 0;
+                for (int i = 0; i < this.dimensions; i++)
+                {
+                    int position = key[i] == DayEntryTable.NO_ID ? 0 : key[i] - this.denseMins[i] + 1;
+                    slot = slot * this.denseSizes[i] + position;
+                }
+                if (this.totals[slot * STRIDE + COUNT] == 0)
+                    this.claim(slot, key);
+                return slot;
+            }
+
+            int slot = hash(key) & this.mask;
+            while (this.totals[slot * STRIDE + COUNT] != 0)
+            {
+                if (this.matches(slot, key))
+                    return slot;
+                slot = (slot + 1) & this.mask;
+            }
+
+            if (this.size + 1 > (this.mask >> 1) + (this.mask >> 2))
+            {
+                this.rehash();
+                return this.slot(key);
+            }
+
+            this.claim(slot, key);
+            return slot;
+        }
+
+        private void claim(int slot, int[] key)
+        {
+            System.arraycopy(key, 0, this.keys, slot * this.dimensions, this.dimensions);
+            this.totals[slot * STRIDE + MIN_HOURS] = Long.MAX_VALUE;
+            this.totals[slot * STRIDE + MAX_HOURS] = Long.MIN_VALUE;
+            this.size++;
+        }
+
+        private boolean matches(int slot, int[] key)
+        {
+            int offset = slot * this.dimensions;
+            for (int i = 0; i < this.dimensions; i++)
+            {
+                if (this.keys[offset + i] != key[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private void rehash()
+        {
+            int[] oldKeys = this.keys;
+            long[] oldTotals = this.totals;
+            int oldCapacity = this.capacity();
+
+            this.allocate(oldCapacity * 2);
+            int[] key = new int[this.dimensions];
+            for (int from = 0; from < oldCapacity; from++)
+            {
+                if (oldTotals[from * STRIDE + COUNT] == 0)
+                    continue;
+
+                System.arraycopy(oldKeys, from * this.dimensions, key, 0, this.dimensions);
+                int slot = hash(key) & this.mask;
+                while (this.totals[slot * STRIDE + COUNT] != 0)
+                    slot = (slot + 1) & this.mask;
+
+                System.arraycopy(key, 0, this.keys, slot * this.dimensions, this.dimensions);
+                System.arraycopy(oldTotals, from * STRIDE, this.totals, slot * STRIDE, STRIDE);
+            }
+        }
+
+        private void allocate(int capacity)
+        {
+            this.keys = new int[capacity * this.dimensions];
+            this.totals = new long[capacity * STRIDE];
+            this.mask = capacity - 1;
+        }
+
+        private static int hash(int[] key)
+        {
+            int hash = 0;
+            for (int value : key)
+                hash = hash * 31 + value;
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
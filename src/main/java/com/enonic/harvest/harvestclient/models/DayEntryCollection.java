@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,16 +32,9 @@ public class DayEntryCollection
     public static DayEntryCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(DayEntryCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (DayEntryCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into DayEntryCollection.", e);
-        }
+        DayEntryCollection collection = new DayEntryCollection();
+        collection.setList(DayEntryDecoder.INSTANCE.decodeList(xml, "day-entries"));
+        return collection;
     }
 
     @Override
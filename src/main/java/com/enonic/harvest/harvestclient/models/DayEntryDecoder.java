@@ -0,0 +1,84 @@
+package com.enonic.harvest.harvestclient.models;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Decodes {@code <day-entry>} elements into {@link DayEntry}.
+ */
+final class DayEntryDecoder
+        extends XmlDecoder<DayEntry>
+{
+    static final DayEntryDecoder INSTANCE = new DayEntryDecoder();
+
+    private DayEntryDecoder()
+    {
+        super(DayEntry.class, "day-entry");
+    }
+
+    @Override
+    DayEntry decode(XMLStreamReader reader, XmlText text)
+            throws XMLStreamException
+    {
+        DayEntry dayEntry = new DayEntry();
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return dayEntry;
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                switch (reader.getLocalName())
+                {
+                    case "hours":
+                        text.read(reader);
+                        dayEntry.setHours(text.getDecimal(dayEntry.getHours()));
+                        break;
+                    case "id":
+                        text.read(reader);
+                        dayEntry.setId(text.getInteger(dayEntry.getId()));
+                        break;
+                    case "notes":
+                        text.read(reader);
+                        dayEntry.setNotes(text.getString());
+                        break;
+                    case "project-id":
+                        text.read(reader);
+                        dayEntry.setProjectId(text.getInteger(dayEntry.getProjectId()));
+                        break;
+                    case "spent-at":
+                        text.read(reader);
+                        dayEntry.setSpentAt(text.getDate(dayEntry.getSpentAt()));
+                        break;
+                    case "task-id":
+                        text.read(reader);
+                        dayEntry.setTaskId(text.getInteger(dayEntry.getTaskId()));
+                        break;
+                    case "user-id":
+                        text.read(reader);
+                        dayEntry.setUserId(text.getInteger(dayEntry.getUserId()));
+                        break;
+                    case "is-billed":
+                        text.read(reader);
+                        dayEntry.setBilled(text.getBoolean());
+                        break;
+                    case "is-closed":
+                        text.read(reader);
+                        dayEntry.setClosed(text.getBoolean());
+                        break;
+                    case "updated-at":
+                        text.read(reader);
+                        dayEntry.setUpdatedAt(text.getDate(dayEntry.getUpdatedAt()));
+                        break;
+                    case "created-at":
+                        text.read(reader);
+                        dayEntry.setCreatedAt(text.getDate(dayEntry.getCreatedAt()));
+                        break;
+                    default:
+                        skipElement(reader);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.enonic.harvest.harvestclient.models;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The key of one group of day entries from {@link DayEntryAggregator}. Dimensions that were not
+ * grouped on are null, as are grouped values that were absent from the entries.
+ */
+public class DayEntryGroup
+{
+    private final Integer projectId;
+    private final Integer taskId;
+    private final Integer userId;
+    private final LocalDate period;
+
+    DayEntryGroup(Integer projectId, Integer taskId, Integer userId, LocalDate period)
+    {
+        this.projectId = projectId;
+        this.taskId = taskId;
+        this.userId = userId;
+        this.period = period;
+    }
+
+    public Integer getProjectId()
+    {
+        return projectId;
+    }
+
+    public Integer getTaskId()
+    {
+        return taskId;
+    }
+
+    public Integer getUserId()
+    {
+        return userId;
+    }
+
+    /**
+     * @return the first day of the day, week (starting on Monday) or month the entries were spent in
+     */
+    public LocalDate getPeriod()
+    {
+        return period;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof DayEntryGroup))
+            return false;
+
+        DayEntryGroup other = (DayEntryGroup) o;
+        return Objects.equals(this.projectId, other.projectId) && Objects.equals(this.taskId, other.taskId)
+                && Objects.equals(this.userId, other.userId) && Objects.equals(this.period, other.period);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(this.projectId, this.taskId, this.userId, this.period);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DayEntryGroup{projectId=" + this.projectId + ", taskId=" + this.taskId + ", userId=" + this.userId
+                + ", period=" + this.period + "}";
+    }
+}
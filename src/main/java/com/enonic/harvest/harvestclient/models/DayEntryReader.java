@@ -0,0 +1,28 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+
+import java.io.InputStream;
+
+/**
+ * Pull-based reader over a {@code <day-entries>} document.
+ *
+ * Entries are decoded one {@code <day-entry>} at a time as the caller iterates, so memory use stays
+ * flat regardless of how many entries the response contains. The reader closes itself, and the
+ * underlying stream, once the last entry has been read; call {@link #close()} when stopping early.
+ */
+public class DayEntryReader
+        extends EntityReader<DayEntry>
+{
+    private DayEntryReader(InputStream xml)
+            throws HarvestClientException
+    {
+        super(xml, DayEntry.class, "day-entry", DayEntryCollection.class);
+    }
+
+    public static DayEntryReader fromInputStream(final InputStream xml)
+            throws HarvestClientException
+    {
+        return new DayEntryReader(xml);
+    }
+}
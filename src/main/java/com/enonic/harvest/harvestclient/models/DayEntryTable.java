@@ -0,0 +1,620 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Day entries stored column by column in primitive arrays, for result sets too large to keep as
+ * {@link DayEntry} objects.
+ *
+ * Ids are ints, dates are epoch milliseconds, hours are a long with a decimal scale, the two flags are
+ * bit sets and each distinct note is stored once. {@link #fromInputStream} and {@link #append} fill the
+ * columns straight from a {@code <day-entries>} document without creating {@link DayEntry} objects.
+ *
+ * Columns can be scanned by row index with the primitive getters, which return {@link #NO_ID} or
+ * {@link #NO_TIME} for absent values. {@link #row} returns a view with the same getters as
+ * {@link DayEntry}. A table is not safe for concurrent modification.
+ */
+public final class DayEntryTable
+        implements Iterable<DayEntryTable.Row>
+{
+    /**
+     * Stored for an absent id; Harvest ids are positive.
+     */
+    public static final int NO_ID = Integer.MIN_VALUE;
+
+    /**
+     * Stored for an absent date.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final byte NO_HOURS = Byte.MIN_VALUE;
+
+    /**
+     * Marks hours whose unscaled value does not fit a long or whose scale does not fit a byte.
+     */
+    private static final byte WIDE_HOURS = Byte.MAX_VALUE;
+
+    private static final int NO_NOTES = -1;
+
+    /**
+     * Compared by identity to tell a failed conversion from a parsed value.
+     */
+    private static final BigDecimal UNCHANGED = new BigDecimal(0);
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L};
+
+    private int size;
+    private int[] ids;
+    private int[] projectIds;
+    private int[] taskIds;
+    private int[] userIds;
+    private long[] spentAt;
+    private long[] updatedAt;
+    private long[] createdAt;
+    private long[] hours;
+    private byte[] hoursScale;
+    private final Map<Integer, BigDecimal> wideHours = new HashMap<Integer, BigDecimal>();
+    private final BitSet billed = new BitSet();
+    private final BitSet closed = new BitSet();
+    private int[] notes;
+    private final List<String> noteValues = new ArrayList<String>();
+    private final Map<String, Integer> noteIndex = new HashMap<String, Integer>();
+
+    public DayEntryTable()
+    {
+        this(16);
+    }
+
+    public DayEntryTable(int capacity)
+    {
+        this.allocate(Math.max(capacity, 1));
+    }
+
+    public static DayEntryTable fromInputStream(final InputStream xml)
+            throws HarvestClientException
+    {
+        return new DayEntryTable().append(xml);
+    }
+
+    /**
+     * Appends the entries of a {@code <day-entries>} document, such as another page of a report.
+     *
+     * @return this table
+     */
+    public DayEntryTable append(final InputStream xml)
+            throws HarvestClientException
+    {
+        try
+        {
+            XMLStreamReader reader = XmlDecoder.inputFactory.createXMLStreamReader(xml);
+            try
+            {
+                XmlDecoder.moveToRoot(reader, "day-entries");
+                XmlDecoder.decodeElements(reader, "day-entry", new XmlText(), this::decodeRow);
+                return this;
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (Exception e)
+        {
+            throw new HarvestClientException("Unable to parse XML into DayEntryTable.", e);
+        }
+    }
+
+    public void add(DayEntry dayEntry)
+    {
+        int row = this.addRow();
+        this.ids[row] = toId(dayEntry.getId());
+        this.projectIds[row] = toId(dayEntry.getProjectId());
+        this.taskIds[row] = toId(dayEntry.getTaskId());
+        this.userIds[row] = toId(dayEntry.getUserId());
+        this.spentAt[row] = toTime(dayEntry.getSpentAt());
+        this.updatedAt[row] = toTime(dayEntry.getUpdatedAt());
+        this.createdAt[row] = toTime(dayEntry.getCreatedAt());
+        this.setHours(row, dayEntry.getHours());
+        this.setNotes(row, dayEntry.getNotes());
+        this.billed.set(row, dayEntry.isBilled());
+        this.closed.set(row, dayEntry.isClosed());
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @return the number of distinct notes stored
+     */
+    public int getDistinctNotesCount()
+    {
+        return this.noteValues.size();
+    }
+
+    /**
+     * Shrinks the columns to the number of rows.
+     */
+    public void trimToSize()
+    {
+        this.resize(Math.max(this.size, 1));
+    }
+
+    public int getId(int row)
+    {
+        return this.ids[this.checkIndex(row)];
+    }
+
+    public int getProjectId(int row)
+    {
+        return this.projectIds[this.checkIndex(row)];
+    }
+
+    public int getTaskId(int row)
+    {
+        return this.taskIds[this.checkIndex(row)];
+    }
+
+    public int getUserId(int row)
+    {
+        return this.userIds[this.checkIndex(row)];
+    }
+
+    public long getSpentAtMillis(int row)
+    {
+        return this.spentAt[this.checkIndex(row)];
+    }
+
+    public long getUpdatedAtMillis(int row)
+    {
+        return this.updatedAt[this.checkIndex(row)];
+    }
+
+    public long getCreatedAtMillis(int row)
+    {
+        return this.createdAt[this.checkIndex(row)];
+    }
+
+    /**
+     * @return the hours, or {@link Double#NaN} if absent
+     */
+    public double getHoursAsDouble(int row)
+    {
+        byte scale = this.hoursScale[this.checkIndex(row)];
+        if (scale == NO_HOURS)
+            return Double.NaN;
+        if (scale == WIDE_HOURS)
+            return this.wideHours.get(row).doubleValue();
+        if (scale == 0)
+            return this.hours[row];
+        // Dividing by a power of ten rounds correctly, multiplying by its inverse may not
+        return scale > 0 ? this.hours[row] / Math.pow(10, scale) : this.hours[row] * Math.pow(10, -scale);
+    }
+
+    public BigDecimal getHours(int row)
+    {
+        byte scale = this.hoursScale[this.checkIndex(row)];
+        if (scale == NO_HOURS)
+            return null;
+        if (scale == WIDE_HOURS)
+            return this.wideHours.get(row);
+        return BigDecimal.valueOf(this.hours[row], scale);
+    }
+
+    public String getNotes(int row)
+    {
+        int note = this.notes[this.checkIndex(row)];
+        return note != NO_NOTES ? this.noteValues.get(note) : null;
+    }
+
+    public boolean isBilled(int row)
+    {
+        return this.billed.get(this.checkIndex(row));
+    }
+
+    public boolean isClosed(int row)
+    {
+        return this.closed.get(this.checkIndex(row));
+    }
+
+    /**
+     * @return the largest decimal scale of the hours, ignoring values that do not fit a long
+     */
+    int getMaxHoursScale()
+    {
+        int max = 0;
+        for (int row = 0; row < this.size; row++)
+        {
+            byte scale = this.hoursScale[row];
+            if (scale != NO_HOURS && scale != WIDE_HOURS && scale > max)
+                max = scale;
+        }
+        return max;
+    }
+
+    /**
+     * @return the hours multiplied by ten to the given scale, rounding half even if they have more
+     * decimals, or {@link Long#MIN_VALUE} if absent
+     * @throws ArithmeticException if the result does not fit a long
+     */
+    long getScaledHours(int row, int scale)
+    {
+        byte rowScale = this.hoursScale[row];
+        if (rowScale == NO_HOURS)
+            return Long.MIN_VALUE;
+        if (rowScale >= 0 && rowScale <= scale && rowScale != WIDE_HOURS)
+            return Math.multiplyExact(this.hours[row], POWERS_OF_TEN[scale - rowScale]);
+        return this.getHours(row).setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    int[] getProjectIdColumn()
+    {
+        return this.projectIds;
+    }
+
+    int[] getTaskIdColumn()
+    {
+        return this.taskIds;
+    }
+
+    int[] getUserIdColumn()
+    {
+        return this.userIds;
+    }
+
+    long[] getSpentAtColumn()
+    {
+        return this.spentAt;
+    }
+
+    long[] getHoursColumn()
+    {
+        return this.hours;
+    }
+
+    byte[] getHoursScaleColumn()
+    {
+        return this.hoursScale;
+    }
+
+    BitSet getBilledColumn()
+    {
+        return this.billed;
+    }
+
+    public Row row(int row)
+    {
+        return new Row(this, this.checkIndex(row));
+    }
+
+    @Override
+    public Iterator<Row> iterator()
+    {
+        return new Iterator<Row>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.next < size;
+            }
+
+            @Override
+            public Row next()
+            {
+                if (!this.hasNext())
+                    throw new NoSuchElementException();
+                return new Row(DayEntryTable.this, this.next++);
+            }
+        };
+    }
+
+    private void decodeRow(XMLStreamReader reader, XmlText text)
+            throws XMLStreamException
+    {
+        int row = this.addRow();
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return;
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                switch (reader.getLocalName())
+                {
+                    case "hours":
+                        text.read(reader);
+                        BigDecimal value = text.getDecimal(UNCHANGED);
+                        if (value != UNCHANGED)
+                            this.setHours(row, value);
+                        break;
+                    case "id":
+                        text.read(reader);
+                        this.ids[row] = text.getInt(this.ids[row]);
+                        break;
+                    case "notes":
+                        text.read(reader);
+                        this.setNotes(row, text.getString());
+                        break;
+                    case "project-id":
+                        text.read(reader);
+                        this.projectIds[row] = text.getInt(this.projectIds[row]);
+                        break;
+                    case "spent-at":
+                        text.read(reader);
+                        this.spentAt[row] = text.getEpochMillis(this.spentAt[row]);
+                        break;
+                    case "task-id":
+                        text.read(reader);
+                        this.taskIds[row] = text.getInt(this.taskIds[row]);
+                        break;
+                    case "user-id":
+                        text.read(reader);
+                        this.userIds[row] = text.getInt(this.userIds[row]);
+                        break;
+                    case "is-billed":
+                        text.read(reader);
+                        this.billed.set(row, text.getBoolean());
+                        break;
+                    case "is-closed":
+                        text.read(reader);
+                        this.closed.set(row, text.getBoolean());
+                        break;
+                    case "updated-at":
+                        text.read(reader);
+                        this.updatedAt[row] = text.getEpochMillis(this.updatedAt[row]);
+                        break;
+                    case "created-at":
+                        text.read(reader);
+                        this.createdAt[row] = text.getEpochMillis(this.createdAt[row]);
+                        break;
+                    default:
+                        XmlDecoder.skipElement(reader);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a row with every value absent.
+     */
+    private int addRow()
+    {
+        if (this.size == this.ids.length)
+            this.resize(this.size + (this.size >> 1) + 1);
+
+        int row = this.size++;
+        this.ids[row] = NO_ID;
+        this.projectIds[row] = NO_ID;
+        this.taskIds[row] = NO_ID;
+        this.userIds[row] = NO_ID;
+        this.spentAt[row] = NO_TIME;
+        this.updatedAt[row] = NO_TIME;
+        this.createdAt[row] = NO_TIME;
+        this.hoursScale[row] = NO_HOURS;
+        this.notes[row] = NO_NOTES;
+        return row;
+    }
+
+    private void setHours(int row, BigDecimal value)
+    {
+        this.wideHours.remove(row);
+        if (value == null)
+        {
+            this.hoursScale[row] = NO_HOURS;
+        }
+        else if (value.scale() > NO_HOURS && value.scale() < WIDE_HOURS && value.precision() < 19)
+        {
+            this.hours[row] = value.unscaledValue().longValue();
+            this.hoursScale[row] = (byte) value.scale();
+        }
+        else
+        {
+            this.hoursScale[row] = WIDE_HOURS;
+            this.wideHours.put(row, value);
+        }
+    }
+
+    private void setNotes(int row, String value)
+    {
+        if (value == null)
+        {
+            this.notes[row] = NO_NOTES;
+            return;
+        }
+
+        Integer note = this.noteIndex.get(value);
+        if (note == null)
+        {
+            note = this.noteValues.size();
+            this.noteValues.add(value);
+            this.noteIndex.put(value, note);
+        }
+        this.notes[row] = note;
+    }
+
+    private void allocate(int capacity)
+    {
+        this.ids = new int[capacity];
+        this.projectIds = new int[capacity];
+        this.taskIds = new int[capacity];
+        this.userIds = new int[capacity];
+        this.spentAt = new long[capacity];
+        this.updatedAt = new long[capacity];
+        this.createdAt = new long[capacity];
+        this.hours = new long[capacity];
+        this.hoursScale = new byte[capacity];
+        this.notes = new int[capacity];
+    }
+
+    private void resize(int capacity)
+    {
+        this.ids = Arrays.copyOf(this.ids, capacity);
+        this.projectIds = Arrays.copyOf(this.projectIds, capacity);
+        this.taskIds = Arrays.copyOf(this.taskIds, capacity);
+        this.userIds = Arrays.copyOf(this.userIds, capacity);
+        this.spentAt = Arrays.copyOf(this.spentAt, capacity);
+        this.updatedAt = Arrays.copyOf(this.updatedAt, capacity);
+        this.createdAt = Arrays.copyOf(this.createdAt, capacity);
+        this.hours = Arrays.copyOf(this.hours, capacity);
+        this.hoursScale = Arrays.copyOf(this.hoursScale, capacity);
+        this.notes = Arrays.copyOf(this.notes, capacity);
+    }
+
+    private int checkIndex(int row)
+    {
+        if (row < 0 || row >= this.size)
+            throw new IndexOutOfBoundsException("Row " + row + ", size " + this.size);
+        return row;
+    }
+
+    private static int toId(Integer id)
+    {
+        return id != null ? id : NO_ID;
+    }
+
+    private static long toTime(Date date)
+    {
+        return date != null ? date.getTime() : NO_TIME;
+    }
+
+    private static Integer fromId(int id)
+    {
+        return id != NO_ID ? Integer.valueOf(id) : null;
+    }
+
+    private static Date fromTime(long time)
+    {
+        return time != NO_TIME ? new Date(time) : null;
+    }
+
+    /**
+     * One row of a table, with the getters of {@link DayEntry}. Values are read from the table on each call.
+     */
+    public static final class Row
+    {
+        private final DayEntryTable table;
+        private final int row;
+
+        private Row(DayEntryTable table, int row)
+        {
+            this.table = table;
+            this.row = row;
+        }
+
+        public int getIndex()
+        {
+            return this.row;
+        }
+
+        public Date getCreatedAt()
+        {
+            return fromTime(this.table.createdAt[this.row]);
+        }
+
+        public Instant getCreatedAtInstant()
+        {
+            return HarvestDates.toInstant(this.getCreatedAt());
+        }
+
+        public BigDecimal getHours()
+        {
+            return this.table.getHours(this.row);
+        }
+
+        public Integer getId()
+        {
+            return fromId(this.table.ids[this.row]);
+        }
+
+        public String getNotes()
+        {
+            return this.table.getNotes(this.row);
+        }
+
+        public Integer getProjectId()
+        {
+            return fromId(this.table.projectIds[this.row]);
+        }
+
+        public Date getSpentAt()
+        {
+            return fromTime(this.table.spentAt[this.row]);
+        }
+
+        public LocalDate getSpentAtLocalDate()
+        {
+            return HarvestDates.toLocalDate(this.getSpentAt());
+        }
+
+        public Integer getTaskId()
+        {
+            return fromId(this.table.taskIds[this.row]);
+        }
+
+        public Date getUpdatedAt()
+        {
+            return fromTime(this.table.updatedAt[this.row]);
+        }
+
+        public Instant getUpdatedAtInstant()
+        {
+            return HarvestDates.toInstant(this.getUpdatedAt());
+        }
+
+        public Integer getUserId()
+        {
+            return fromId(this.table.userIds[this.row]);
+        }
+
+        public boolean isBilled()
+        {
+            return this.table.billed.get(this.row);
+        }
+
+        public boolean isClosed()
+        {
+            return this.table.closed.get(this.row);
+        }
+
+        public DayEntry toDayEntry()
+        {
+            DayEntry dayEntry = new DayEntry();
+            dayEntry.setId(this.getId());
+            dayEntry.setHours(this.getHours());
+            dayEntry.setNotes(this.getNotes());
+            dayEntry.setProjectId(this.getProjectId());
+            dayEntry.setSpentAt(this.getSpentAt());
+            dayEntry.setTaskId(this.getTaskId());
+            dayEntry.setUserId(this.getUserId());
+            dayEntry.setBilled(this.isBilled());
+            dayEntry.setClosed(this.isClosed());
+            dayEntry.setUpdatedAt(this.getUpdatedAt());
+            dayEntry.setCreatedAt(this.getCreatedAt());
+            return dayEntry;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based reader over a collection document, such as {@code <projects>} or {@code <invoices>}.
+ *
+ * Elements are decoded one at a time as the caller iterates, so memory use stays flat regardless of
+ * how many elements the response contains. The reader closes itself, and the underlying stream, once
+ * the last element has been read; call {@link #close()} when stopping early.
+ */
+public class EntityReader<T>
+        implements Iterator<T>, Closeable
+{
+    private final InputStream xml;
+    private final XMLStreamReader reader;
+    private final Class<T> type;
+    private final String elementName;
+    private final Class<?> collectionType;
+    // Hand-written decoder for the type if there is one, otherwise JAXB
+    private final XmlDecoder<T> decoder;
+    private final XmlText text;
+    private Unmarshaller unmarshaller;
+    private T nextEntity;
+    private boolean closed;
+
+    protected EntityReader(InputStream xml, Class<T> type, String elementName, Class<?> collectionType)
+            throws HarvestClientException
+    {
+        this.xml = xml;
+        this.type = type;
+        this.elementName = elementName;
+        this.collectionType = collectionType;
+        this.decoder = XmlDecoder.forType(type);
+        this.text = this.decoder != null ? new XmlText() : null;
+
+        try
+        {
+            this.reader = XmlDecoder.inputFactory.createXMLStreamReader(xml);
+            if (this.decoder == null)
+                this.unmarshaller = JaxbContextRegistry.acquireUnmarshaller(collectionType);
+        }
+        catch (Exception e)
+        {
+            closeQuietly(xml);
+            throw new HarvestClientException("Unable to parse XML into " + type.getSimpleName() + ".", e);
+        }
+    }
+
+    /**
+     * @param type the element class
+     * @param elementName the name of the elements to decode, e.g. {@code project}
+     * @param collectionType the collection class whose JAXB context knows the element class
+     */
+    public static <T> EntityReader<T> fromInputStream(InputStream xml, Class<T> type, String elementName, Class<?> collectionType)
+            throws HarvestClientException
+    {
+        return new EntityReader<T>(xml, type, elementName, collectionType);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (this.nextEntity == null && !this.closed)
+            this.nextEntity = readNext();
+        return this.nextEntity != null;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        T entity = this.nextEntity;
+        this.nextEntity = null;
+        return entity;
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.closed)
+            return;
+
+        this.closed = true;
+        this.nextEntity = null;
+        if (this.unmarshaller != null)
+            JaxbContextRegistry.releaseUnmarshaller(this.collectionType, this.unmarshaller);
+        this.unmarshaller = null;
+        try
+        {
+            this.reader.close();
+        }
+        catch (XMLStreamException e)
+        {
+            // Ignore, the underlying stream is closed below
+        }
+        closeQuietly(this.xml);
+    }
+
+    private T readNext()
+    {
+        try
+        {
+            while (this.reader.hasNext())
+            {
+                if (this.reader.getEventType() == XMLStreamConstants.START_ELEMENT
+                        && this.elementName.equals(this.reader.getLocalName()))
+                {
+                    if (this.decoder != null)
+                    {
+                        T entity = this.decoder.decode(this.reader, this.text);
+                        this.reader.next();
+                        return entity;
+                    }
+
+                    // Unmarshalling consumes the element, leaving the cursor right after its end tag
+                    return this.unmarshaller.unmarshal(this.reader, this.type).getValue();
+                }
+                this.reader.next();
+            }
+        }
+        catch (Exception e)
+        {
+            close();
+            throw new HarvestClientException("Unable to parse XML into " + this.type.getSimpleName() + ".", e);
+        }
+
+        close();
+        return null;
+    }
+
+    private static void closeQuietly(InputStream stream)
+    {
+        try
+        {
+            stream.close();
+        }
+        catch (IOException e)
+        {
+            // Ignore
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.enonic.harvest.harvestclient.models;
+
+import javax.xml.bind.DatatypeConverter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+
+/**
+ * Parses the dates and timestamps Harvest sends, such as {@code 2013-05-01} and
+ * {@code 2013-05-01T12:34:56Z}, straight from characters into epoch milliseconds.
+ *
+ * Values in other XML Schema forms, years before 1600 (where {@link java.util.GregorianCalendar}
+ * switches to the Julian calendar) and invalid values are handed to {@link DatatypeConverter}, so the
+ * result is always the same as JAXB's. Values without a time zone are in the default time zone.
+ */
+public final class HarvestDates
+{
+    /**
+     * Returned by {@link #parse} when the value is not in one of the forms parsed directly.
+     */
+    static final long UNPARSED = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private HarvestDates()
+    {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not an XML Schema date or date-time
+     */
+    public static long parseEpochMillis(CharSequence text)
+    {
+        String value = text.toString().trim();
+        long millis = parse(value.toCharArray(), 0, value.length(), ZoneId.systemDefault().getRules());
+        return millis != UNPARSED ? millis : DatatypeConverter.parseDateTime(value).getTimeInMillis();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not an XML Schema date or date-time
+     */
+    public static Instant parseInstant(CharSequence text)
+    {
+        return Instant.ofEpochMilli(parseEpochMillis(text));
+    }
+
+    /**
+     * @return the day the date falls on in the default time zone, or null if the date is null
+     */
+    public static LocalDate toLocalDate(Date date)
+    {
+        return date != null ? date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate() : null;
+    }
+
+    /**
+     * @return the instant of the date, or null if the date is null
+     */
+    public static Instant toInstant(Date date)
+    {
+        return date != null ? date.toInstant() : null;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd}, optionally followed by {@code Thh:mm:ss} with a fraction of a second,
+     * optionally followed by {@code Z} or an offset. The fraction is truncated to milliseconds.
+     *
+     * @param zone rules for values without a time zone
+     * @return epoch milliseconds, or {@link #UNPARSED} if the value is in another form or invalid
+     */
+    static long parse(char[] chars, int start, int end, ZoneRules zone)
+    {
+        if (end - start < 10 || chars[start + 4] != '-' || chars[start + 7] != '-')
+            return UNPARSED;
+
+        int year = digits(chars, start, 4);
+        int month = digits(chars, start + 5, 2);
+        int day = digits(chars, start + 8, 2);
+        if (year < 1600 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month))
+            return UNPARSED;
+
+        int pos = start + 10;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+
+        if (pos < end && chars[pos] == 'T')
+        {
+            if (end - pos < 9 || chars[pos + 3] != ':' || chars[pos + 6] != ':')
+                return UNPARSED;
+
+            hour = digits(chars, pos + 1, 2);
+            minute = digits(chars, pos + 4, 2);
+            second = digits(chars, pos + 7, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+                return UNPARSED;
+
+            pos += 9;
+            if (pos < end && chars[pos] == '.')
+            {
+                int fractionStart = ++pos;
+                while (pos < end && chars[pos] >= '0' && chars[pos] <= '9')
+                {
+                    if (pos - fractionStart < 3)
+                        millis = millis * 10 + (chars[pos] - '0');
+                    pos++;
+                }
+                if (pos == fractionStart)
+                    return UNPARSED;
+                for (int i = pos - fractionStart; i < 3; i++)
+                    millis *= 10;
+            }
+        }
+
+        long local = epochDay(year, month, day) * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+
+        if (pos == end)
+        {
+            if (zone.isFixedOffset())
+                return local - zone.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+
+            // The time zone data behind java.util.TimeZone differs from java.time's for early years
+            if (year < 1900)
+                return UNPARSED;
+
+            // Like GregorianCalendar, a wall time that occurs twice is taken to be the later one
+            LocalDateTime wall = LocalDateTime.of(year, month, day, hour, minute, second);
+            ZoneOffsetTransition transition = zone.getTransition(wall);
+            ZoneOffset offset = transition != null && transition.isOverlap() ? transition.getOffsetAfter() : zone.getOffset(wall);
+            return local - offset.getTotalSeconds() * 1000L;
+        }
+
+        if (chars[pos] == 'Z')
+            return pos + 1 == end ? local : UNPARSED;
+
+        if ((chars[pos] != '+' && chars[pos] != '-') || end - pos != 6 || chars[pos + 3] != ':')
+            return UNPARSED;
+
+        int offsetHours = digits(chars, pos + 1, 2);
+        int offsetMinutes = digits(chars, pos + 4, 2);
+        if (offsetHours < 0 || offsetMinutes < 0 || offsetMinutes > 59 || offsetHours * 60 + offsetMinutes > 14 * 60)
+            return UNPARSED;
+
+        long offset = (offsetHours * 60L + offsetMinutes) * 60000L;
+        return chars[pos] == '+' ? local - offset : local + offset;
+    }
+
+    /**
+     * @return the value of the decimal digits, or -1 if any of them is not a digit
+     */
+    private static int digits(char[] chars, int start, int count)
+    {
+        int value = 0;
+        for (int i = start; i < start + count; i++)
+        {
+            char c = chars[i];
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month)
+    {
+        switch (month)
+        {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar, for positive years.
+     */
+    private static long epochDay(int year, int month, int day)
+    {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,82 @@
+package com.enonic.harvest.harvestclient.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals for one group of day entries from {@link DayEntryAggregator}.
+ *
+ * Every entry is counted; entries without hours do not contribute to the hours. All hours have the
+ * scale of the most precise hours aggregated.
+ */
+public class HoursSummary
+{
+    private final long count;
+    private final long billedCount;
+    private final BigDecimal hours;
+    private final BigDecimal billedHours;
+    private final BigDecimal minHours;
+    private final BigDecimal maxHours;
+
+    HoursSummary(long count, long billedCount, BigDecimal hours, BigDecimal billedHours, BigDecimal minHours, BigDecimal maxHours)
+    {
+        this.count = count;
+        this.billedCount = billedCount;
+        this.hours = hours;
+        this.billedHours = billedHours;
+        this.minHours = minHours;
+        this.maxHours = maxHours;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getBilledCount()
+    {
+        return billedCount;
+    }
+
+    public long getUnbilledCount()
+    {
+        return count - billedCount;
+    }
+
+    public BigDecimal getHours()
+    {
+        return hours;
+    }
+
+    public BigDecimal getBilledHours()
+    {
+        return billedHours;
+    }
+
+    public BigDecimal getUnbilledHours()
+    {
+        return hours.subtract(billedHours);
+    }
+
+    /**
+     * @return the least hours of an entry, or null if no entry has hours
+     */
+    public BigDecimal getMinHours()
+    {
+        return minHours;
+    }
+
+    /**
+     * @return the most hours of an entry, or null if no entry has hours
+     */
+    public BigDecimal getMaxHours()
+    {
+        return maxHours;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HoursSummary{count=" + this.count + ", hours=" + this.hours + ", billedHours=" + this.billedHours
+                + ", minHours=" + this.minHours + ", maxHours=" + this.maxHours + "}";
+    }
+}
@@ -2,14 +2,14 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Date;
 
 @XmlRootElement(name = "invoice")
@@ -103,17 +103,7 @@ public class Invoice
     public static Invoice fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(Invoice.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (Invoice) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into Invoice.", e);
-        }
-
+        return InvoiceDecoder.INSTANCE.decodeDocument(xml);
     }
 
     public Integer getId()
@@ -156,6 +146,14 @@ public class Invoice
         this.dueAt = dueAt;
     }
 
+    /**
+     * @return the day of {@link #getDueAt()} in the default time zone
+     */
+    public LocalDate getDueAtLocalDate()
+    {
+        return HarvestDates.toLocalDate(dueAt);
+    }
+
     public String getDueAtHumanFormat()
     {
         return dueAtHumanFormat;
@@ -176,6 +174,14 @@ public class Invoice
         this.periodEnd = periodEnd;
     }
 
+    /**
+     * @return the day of {@link #getPeriodEnd()} in the default time zone
+     */
+    public LocalDate getPeriodEndLocalDate()
+    {
+        return HarvestDates.toLocalDate(periodEnd);
+    }
+
     public Date getPeriodStart()
     {
         return periodStart;
@@ -186,6 +192,14 @@ public class Invoice
         this.periodStart = periodStart;
     }
 
+    /**
+     * @return the day of {@link #getPeriodStart()} in the default time zone
+     */
+    public LocalDate getPeriodStartLocalDate()
+    {
+        return HarvestDates.toLocalDate(periodStart);
+    }
+
     public Integer getClientId()
     {
         return clientId;
@@ -226,6 +240,14 @@ public class Invoice
         this.issuedAt = issuedAt;
     }
 
+    /**
+     * @return the day of {@link #getIssuedAt()} in the default time zone
+     */
+    public LocalDate getIssuedAtLocalDate()
+    {
+        return HarvestDates.toLocalDate(issuedAt);
+    }
+
     public Integer getCreatedById()
     {
         return createdById;
@@ -386,6 +408,11 @@ public class Invoice
         this.updatedAt = updatedAt;
     }
 
+    public Instant getUpdatedAtInstant()
+    {
+        return HarvestDates.toInstant(updatedAt);
+    }
+
     public Date getCreatedAt()
     {
         return createdAt;
@@ -395,4 +422,9 @@ public class Invoice
     {
         this.createdAt = createdAt;
     }
+
+    public Instant getCreatedAtInstant()
+    {
+        return HarvestDates.toInstant(createdAt);
+    }
 }
@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,17 +32,9 @@ public class InvoiceCollection
     public static InvoiceCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoiceCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (InvoiceCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into InvoiceCollection.", e);
-        }
-
+        InvoiceCollection collection = new InvoiceCollection();
+        collection.setList(InvoiceDecoder.INSTANCE.decodeList(xml, "invoices"));
+        return collection;
     }
 
     @Override
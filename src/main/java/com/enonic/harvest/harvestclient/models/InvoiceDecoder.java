@@ -0,0 +1,152 @@
+package com.enonic.harvest.harvestclient.models;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Decodes {@code <invoice>} elements into {@link Invoice}.
+ */
+final class InvoiceDecoder
+        extends XmlDecoder<Invoice>
+{
+    static final InvoiceDecoder INSTANCE = new InvoiceDecoder();
+
+    private InvoiceDecoder()
+    {
+        super(Invoice.class, "invoice");
+    }
+
+    @Override
+    Invoice decode(XMLStreamReader reader, XmlText text)
+            throws XMLStreamException
+    {
+        Invoice invoice = new Invoice();
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return invoice;
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                switch (reader.getLocalName())
+                {
+                    case "id":
+                        text.read(reader);
+                        invoice.setId(text.getInteger(invoice.getId()));
+                        break;
+                    case "amount":
+                        text.read(reader);
+                        invoice.setAmount(text.getDecimal(invoice.getAmount()));
+                        break;
+                    case "due-amount":
+                        text.read(reader);
+                        invoice.setDueAmount(text.getDecimal(invoice.getDueAmount()));
+                        break;
+                    case "due-at":
+                        text.read(reader);
+                        invoice.setDueAt(text.getDate(invoice.getDueAt()));
+                        break;
+                    case "due-at-human-format":
+                        text.read(reader);
+                        invoice.setDueAtHumanFormat(text.getString());
+                        break;
+                    case "period-end":
+                        text.read(reader);
+                        invoice.setPeriodEnd(text.getDate(invoice.getPeriodEnd()));
+                        break;
+                    case "period-start":
+                        text.read(reader);
+                        invoice.setPeriodStart(text.getDate(invoice.getPeriodStart()));
+                        break;
+                    case "client-id":
+                        text.read(reader);
+                        invoice.setClientId(text.getInteger(invoice.getClientId()));
+                        break;
+                    case "subject":
+                        text.read(reader);
+                        invoice.setSubject(text.getInteger(invoice.getSubject()));
+                        break;
+                    case "currency":
+                        text.read(reader);
+                        invoice.setCurrency(text.getString());
+                        break;
+                    case "issued-at":
+                        text.read(reader);
+                        invoice.setIssuedAt(text.getDate(invoice.getIssuedAt()));
+                        break;
+                    case "created-by-id":
+                        text.read(reader);
+                        invoice.setCreatedById(text.getInteger(invoice.getCreatedById()));
+                        break;
+                    case "notes":
+                        text.read(reader);
+                        invoice.setNotes(text.getString());
+                        break;
+                    case "number":
+                        text.read(reader);
+                        invoice.setNumber(text.getString());
+                        break;
+                    case "purchase-order":
+                        text.read(reader);
+                        invoice.setPurchaseOrder(text.getString());
+                        break;
+                    case "client-key":
+                        text.read(reader);
+                        invoice.setClientKey(text.getString());
+                        break;
+                    case "state":
+                        text.read(reader);
+                        invoice.setState(text.getString());
+                        break;
+                    case "tax":
+                        text.read(reader);
+                        invoice.setTax(text.getDecimal(invoice.getTax()));
+                        break;
+                    case "tax2":
+                        text.read(reader);
+                        invoice.setTax2(text.getDecimal(invoice.getTax2()));
+                        break;
+                    case "tax-amount":
+                        text.read(reader);
+                        invoice.setTaxAmount(text.getDecimal(invoice.getTaxAmount()));
+                        break;
+                    case "tax-amount2":
+                        text.read(reader);
+                        invoice.setTaxAmount2(text.getDecimal(invoice.getTaxAmount2()));
+                        break;
+                    case "discount-amount":
+                        text.read(reader);
+                        invoice.setDiscountAmount(text.getDecimal(invoice.getDiscountAmount()));
+                        break;
+                    case "discount":
+                        text.read(reader);
+                        invoice.setDiscount(text.getDecimal(invoice.getDiscount()));
+                        break;
+                    case "recurring-invoice-id":
+                        text.read(reader);
+                        invoice.setRecurringInvoiceId(text.getInteger(invoice.getRecurringInvoiceId()));
+                        break;
+                    case "estimate-id":
+                        text.read(reader);
+                        invoice.setEstimateId(text.getInteger(invoice.getEstimateId()));
+                        break;
+                    case "retainer-id":
+                        text.read(reader);
+                        invoice.setRetainerId(text.getInteger(invoice.getRetainerId()));
+                        break;
+                    case "updated-at":
+                        text.read(reader);
+                        invoice.setUpdatedAt(text.getDate(invoice.getUpdatedAt()));
+                        break;
+                    case "created-at":
+                        text.read(reader);
+                        invoice.setCreatedAt(text.getDate(invoice.getCreatedAt()));
+                        break;
+                    default:
+                        skipElement(reader);
+                }
+            }
+        }
+    }
+}
@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -36,17 +34,7 @@ public class InvoiceItemCategory
     public static InvoiceItemCategory fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoiceItemCategory.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (InvoiceItemCategory) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into Invoice.", e);
-        }
-
+        return JaxbContextRegistry.unmarshal(InvoiceItemCategory.class, xml);
     }
 
     public Integer getId()
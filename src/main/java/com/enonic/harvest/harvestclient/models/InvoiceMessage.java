@@ -2,13 +2,9 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
 import java.io.InputStream;
 import java.util.Date;
 
@@ -45,22 +41,9 @@ public class InvoiceMessage
     public static InvoiceMessage fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoiceMessage.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            Source source = new StreamSource(xml);
-            // We have to explicitly tell it what class we want, since we can't have two
-            // classes annotated with @XmlRootElement(name = "invoice-message")
-            // This is due to a bug in the Harvest API for InvoiceMessages using same element
-            // name for both the list and the items in it.
-            return unmarshaller.unmarshal(source, InvoiceMessage.class).getValue();
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into Invoice.", e);
-        }
-
+        // Not an @XmlRootElement: the Harvest API uses invoice-message for both the list and the items
+        // in it, so the collection holds that name. unmarshal binds by type, not by element name.
+        return JaxbContextRegistry.unmarshal(InvoiceMessage.class, xml);
     }
 
     public Integer getId()
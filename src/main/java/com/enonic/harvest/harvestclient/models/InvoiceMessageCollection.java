@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,16 +32,7 @@ public class InvoiceMessageCollection
     public static InvoiceMessageCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoiceMessageCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (InvoiceMessageCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into InvoiceMessage.", e);
-        }
+        return JaxbContextRegistry.unmarshal(InvoiceMessageCollection.class, xml);
     }
 
     @Override
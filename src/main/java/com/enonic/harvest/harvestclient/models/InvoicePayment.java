@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -20,11 +18,18 @@ import javax.xml.bind.Marshaller;
 public class InvoicePayment
 {
     // Class fields
-    static private SimpleDateFormat sdf = new SimpleDateFormat("YYYY-MM-dd'T'HH:mm:ssZ");
+    static private final ThreadLocal<SimpleDateFormat> sdf = new ThreadLocal<SimpleDateFormat>()
+    {
+        @Override
+        protected SimpleDateFormat initialValue()
+        {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+        }
+    };
     
     // Class initializer
     /* static {
-        sdf = new SimpleDateFormat("YYYY-MM-ddHH:mm:ssZ");
+        sdf = new SimpleDateFormat("yyyy-MM-ddHH:mm:ssZ");
     } */
     
     @XmlElement(name = "id")
@@ -60,29 +65,25 @@ public class InvoicePayment
     public static InvoicePayment fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoicePayment.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (InvoicePayment) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into InvoicePayment.", e);
-        }
-
+        return JaxbContextRegistry.unmarshal(InvoicePayment.class, xml);
     }
     
     public static String marshal(InvoicePayment payment) throws HarvestClientException
     {
         try
         {
-            JAXBContext context = JAXBContext.newInstance(InvoicePayment.class);
-            Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-            StringWriter sw = new StringWriter();
-            marshaller.marshal(payment, sw);
-            return sw.toString();
+            Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(InvoicePayment.class);
+            try
+            {
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+                StringWriter sw = new StringWriter();
+                marshaller.marshal(payment, sw);
+                return sw.toString();
+            }
+            finally
+            {
+                JaxbContextRegistry.releaseMarshaller(InvoicePayment.class, marshaller);
+            }
         }
         catch (Exception e)
         {
@@ -143,7 +144,7 @@ public class InvoicePayment
      */
     @XmlElement(name = "paid-at")
     public String getPaidAt() {
-        return paidAt != null ? sdf.format(paidAt) : null;
+        return paidAt != null ? sdf.get().format(paidAt) : null;
     }
 
     @XmlElement(name = "paid-at")
@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,16 +32,7 @@ public class InvoicePaymentCollection
     public static InvoicePaymentCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(InvoicePaymentCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (InvoicePaymentCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into InvoicePaymentCollection.", e);
-        }
+        return JaxbContextRegistry.unmarshal(InvoicePaymentCollection.class, xml);
     }
 
     @Override
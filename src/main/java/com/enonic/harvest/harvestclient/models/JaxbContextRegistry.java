@@ -0,0 +1,111 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe registry of JAXB contexts, one per model class.
+ *
+ * Contexts are created lazily on first use and kept for the lifetime of the class loader.
+ * Unmarshallers and marshallers are not thread-safe, so they are handed out from per-class
+ * pools and must be released after use.
+ */
+public final class JaxbContextRegistry
+{
+    private static final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
+
+    private static final ConcurrentMap<Class<?>, Queue<Unmarshaller>> unmarshallers = new ConcurrentHashMap<Class<?>, Queue<Unmarshaller>>();
+
+    private static final ConcurrentMap<Class<?>, Queue<Marshaller>> marshallers = new ConcurrentHashMap<Class<?>, Queue<Marshaller>>();
+
+    private JaxbContextRegistry()
+    {
+    }
+
+    public static JAXBContext getContext(Class<?> type)
+            throws JAXBException
+    {
+        JAXBContext context = contexts.get(type);
+        if (context == null)
+        {
+            // Two threads may race to build the same context; only the first one is kept
+            JAXBContext created = JAXBContext.newInstance(type);
+            context = contexts.putIfAbsent(type, created);
+            if (context == null)
+                context = created;
+        }
+        return context;
+    }
+
+    public static Unmarshaller acquireUnmarshaller(Class<?> type)
+            throws JAXBException
+    {
+        Unmarshaller unmarshaller = getPool(unmarshallers, type).poll();
+        return unmarshaller != null ? unmarshaller : getContext(type).createUnmarshaller();
+    }
+
+    public static void releaseUnmarshaller(Class<?> type, Unmarshaller unmarshaller)
+    {
+        getPool(unmarshallers, type).offer(unmarshaller);
+    }
+
+    /**
+     * Unmarshals a document into {@code type} with a pooled unmarshaller. The document is bound to the
+     * type whatever its root element is called.
+     */
+    public static <T> T unmarshal(Class<T> type, InputStream xml)
+            throws HarvestClientException
+    {
+        try
+        {
+            Unmarshaller unmarshaller = acquireUnmarshaller(type);
+            try
+            {
+                return unmarshaller.unmarshal(new StreamSource(xml), type).getValue();
+            }
+            finally
+            {
+                releaseUnmarshaller(type, unmarshaller);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new HarvestClientException("Unable to parse XML into " + type.getSimpleName() + ".", e);
+        }
+    }
+
+    public static Marshaller acquireMarshaller(Class<?> type)
+            throws JAXBException
+    {
+        Marshaller marshaller = getPool(marshallers, type).poll();
+        return marshaller != null ? marshaller : getContext(type).createMarshaller();
+    }
+
+    public static void releaseMarshaller(Class<?> type, Marshaller marshaller)
+    {
+        getPool(marshallers, type).offer(marshaller);
+    }
+
+    private static <T> Queue<T> getPool(ConcurrentMap<Class<?>, Queue<T>> pools, Class<?> type)
+    {
+        Queue<T> pool = pools.get(type);
+        if (pool == null)
+        {
+            Queue<T> created = new ConcurrentLinkedQueue<T>();
+            pool = pools.putIfAbsent(type, created);
+            if (pool == null)
+                pool = created;
+        }
+        return pool;
+    }
+}
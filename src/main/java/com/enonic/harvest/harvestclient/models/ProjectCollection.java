@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,16 +32,9 @@ public class ProjectCollection
     public static ProjectCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(ProjectCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (ProjectCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into ProjectCollection.", e);
-        }
+        ProjectCollection collection = new ProjectCollection();
+        collection.setList(ProjectDecoder.INSTANCE.decodeList(xml, "projects"));
+        return collection;
     }
 
     @Override
@@ -0,0 +1,124 @@
+package com.enonic.harvest.harvestclient.models;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Decodes {@code <project>} elements into {@link Project}.
+ */
+final class ProjectDecoder
+        extends XmlDecoder<Project>
+{
+    static final ProjectDecoder INSTANCE = new ProjectDecoder();
+
+    private ProjectDecoder()
+    {
+        super(Project.class, "project");
+    }
+
+    @Override
+    Project decode(XMLStreamReader reader, XmlText text)
+            throws XMLStreamException
+    {
+        Project project = new Project();
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                return project;
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                switch (reader.getLocalName())
+                {
+                    case "name":
+                        text.read(reader);
+                        project.setName(text.getString());
+                        break;
+                    case "id":
+                        text.read(reader);
+                        project.setId(text.getInteger(project.getId()));
+                        break;
+                    case "client-id":
+                        text.read(reader);
+                        project.setClientId(text.getInteger(project.getClientId()));
+                        break;
+                    case "code":
+                        text.read(reader);
+                        project.setCode(text.getString());
+                        break;
+                    case "active":
+                        text.read(reader);
+                        project.setActive(text.getBoolean());
+                        break;
+                    case "notes":
+                        text.read(reader);
+                        project.setNotes(text.getString());
+                        break;
+                    case "billable":
+                        text.read(reader);
+                        project.setBillable(text.getBoolean());
+                        break;
+                    case "bill-by":
+                        text.read(reader);
+                        project.setBillBy(text.getString());
+                        break;
+                    case "hourly-rate":
+                        text.read(reader);
+                        project.setHourlyRate(text.getDecimal(project.getHourlyRate()));
+                        break;
+                    case "budget-by":
+                        text.read(reader);
+                        project.setBudgetBy(text.getString());
+                        break;
+                    case "budget":
+                        text.read(reader);
+                        project.setBudget(text.getDecimal(project.getBudget()));
+                        break;
+                    case "updated-at":
+                        text.read(reader);
+                        project.setUpdatedAt(text.getDate(project.getUpdatedAt()));
+                        break;
+                    case "created-at":
+                        text.read(reader);
+                        project.setCreatedAt(text.getDate(project.getCreatedAt()));
+                        break;
+                    case "cost-budget":
+                        text.read(reader);
+                        project.setCostBudget(text.getDecimal(project.getCostBudget()));
+                        break;
+                    case "cost-budget-include-expenses":
+                        text.read(reader);
+                        project.setCostBudgetIncludeExpenses(text.getBoolean());
+                        break;
+                    case "notify-when-over-budget":
+                        text.read(reader);
+                        project.setNotifyWhenOverBudget(text.getBoolean());
+                        break;
+                    case "over-budget-notification-percentage":
+                        text.read(reader);
+                        project.setOverBudgetNotificationPercentage(text.getDecimal(project.getOverBudgetNotificationPercentage()));
+                        break;
+                    case "over-budget-notified-at":
+                        text.read(reader);
+                        project.setOverBudgetNotifiedAt(text.getDate(project.getOverBudgetNotifiedAt()));
+                        break;
+                    case "show-budget-to-all":
+                        text.read(reader);
+                        project.setShowBudgetToAll(text.getBoolean());
+                        break;
+                    case "hint-earliest-record-at":
+                        text.read(reader);
+                        project.setHintEarliestRecordAt(text.getDate(project.getHintEarliestRecordAt()));
+                        break;
+                    case "hint-latest-record-at":
+                        text.read(reader);
+                        project.setHintLatestRecordAt(text.getDate(project.getHintLatestRecordAt()));
+                        break;
+                    default:
+                        skipElement(reader);
+                }
+            }
+        }
+    }
+}
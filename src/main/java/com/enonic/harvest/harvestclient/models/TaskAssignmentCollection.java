@@ -2,8 +2,6 @@ package com.enonic.harvest.harvestclient.models;
 
 import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -34,16 +32,7 @@ public class TaskAssignmentCollection
     public static TaskAssignmentCollection fromInputStream(final InputStream xml)
             throws HarvestClientException
     {
-        try
-        {
-            JAXBContext context = JAXBContext.newInstance(TaskAssignmentCollection.class);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            return (TaskAssignmentCollection) unmarshaller.unmarshal(xml);
-        }
-        catch (Exception e)
-        {
-            throw new HarvestClientException("Unable to parse XML into TaskAssignmentCollection.", e);
-        }
+        return JaxbContextRegistry.unmarshal(TaskAssignmentCollection.class, xml);
     }
 
     @Override
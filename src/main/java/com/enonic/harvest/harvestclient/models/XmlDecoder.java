@@ -0,0 +1,172 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written StAX decoder for one model class, used instead of JAXB for the models that dominate
+ * response sizes.
+ *
+ * Subclasses read the child elements named by the model's {@code @XmlElement} annotations and call its
+ * setters, converting values the way JAXB does. Unknown elements are skipped.
+ */
+abstract class XmlDecoder<T>
+{
+    static final XMLInputFactory inputFactory = createInputFactory();
+
+    private final Class<T> type;
+    private final String elementName;
+
+    protected XmlDecoder(Class<T> type, String elementName)
+    {
+        this.type = type;
+        this.elementName = elementName;
+    }
+
+    /**
+     * @return the decoder for the model class, or null if it is decoded with JAXB
+     */
+    @SuppressWarnings("unchecked")
+    static <T> XmlDecoder<T> forType(Class<T> type)
+    {
+        if (type == DayEntry.class)
+            return (XmlDecoder<T>) DayEntryDecoder.INSTANCE;
+        if (type == Invoice.class)
+            return (XmlDecoder<T>) InvoiceDecoder.INSTANCE;
+        if (type == Project.class)
+            return (XmlDecoder<T>) ProjectDecoder.INSTANCE;
+        return null;
+    }
+
+    /**
+     * Decodes the element the reader is positioned on, leaving the reader on its end tag.
+     */
+    abstract T decode(XMLStreamReader reader, XmlText text)
+            throws XMLStreamException;
+
+    /**
+     * Decodes a document whose root element is a single entity.
+     */
+    T decodeDocument(InputStream xml)
+            throws HarvestClientException
+    {
+        try
+        {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(xml);
+            try
+            {
+                moveToRoot(reader, this.elementName);
+                return this.decode(reader, new XmlText());
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (Exception e)
+        {
+            throw new HarvestClientException("Unable to parse XML into " + this.type.getSimpleName() + ".", e);
+        }
+    }
+
+    /**
+     * Decodes the entities of a collection document; other elements in the collection are skipped.
+     */
+    List<T> decodeList(InputStream xml, String rootName)
+            throws HarvestClientException
+    {
+        try
+        {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(xml);
+            try
+            {
+                moveToRoot(reader, rootName);
+                List<T> list = new ArrayList<T>();
+                decodeElements(reader, this.elementName, new XmlText(), (r, text) -> list.add(this.decode(r, text)));
+                return list;
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (Exception e)
+        {
+            throw new HarvestClientException("Unable to parse XML into " + this.type.getSimpleName() + "Collection.", e);
+        }
+    }
+
+    /**
+     * Hands each child element with the given name to the handler and skips the others, leaving the
+     * reader on the end tag of the element it is positioned on.
+     */
+    static void decodeElements(XMLStreamReader reader, String elementName, XmlText text, ElementHandler handler)
+            throws XMLStreamException
+    {
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                if (elementName.equals(reader.getLocalName()))
+                    handler.decode(reader, text);
+                else
+                    skipElement(reader);
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                return;
+            }
+        }
+    }
+
+    static void moveToRoot(XMLStreamReader reader, String rootName)
+            throws XMLStreamException
+    {
+        reader.nextTag();
+        if (!rootName.equals(reader.getLocalName()))
+            throw new XMLStreamException("Unexpected element " + reader.getLocalName() + ", expected " + rootName, reader.getLocation());
+    }
+
+    /**
+     * Skips the element the reader is positioned on, including its children, leaving the reader on its end tag.
+     */
+    static void skipElement(XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private static XMLInputFactory createInputFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    interface ElementHandler
+    {
+        /**
+         * Decodes the element the reader is positioned on, leaving the reader on its end tag.
+         */
+        void decode(XMLStreamReader reader, XmlText text)
+                throws XMLStreamException;
+    }
+}
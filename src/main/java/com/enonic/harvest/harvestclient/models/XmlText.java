@@ -0,0 +1,234 @@
+package com.enonic.harvest.harvestclient.models;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+
+/**
+ * Reusable buffer for the text of one leaf element, with conversions that follow JAXB's rules.
+ *
+ * The text is copied out of the parser's character array, so integers, booleans and decimals are
+ * converted without creating a String. Conversions that fail return the current value of the field,
+ * since JAXB leaves a field untouched when its text cannot be converted.
+ */
+final class XmlText
+{
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private char[] chars = new char[64];
+    private int length;
+
+    /**
+     * The default time zone, looked up once per document rather than once per value.
+     */
+    private ZoneRules zone;
+
+    /**
+     * Reads the text of the element the reader is positioned on, leaving it on the element's end tag.
+     * As with JAXB, a child element discards the text read so far.
+     */
+    void read(XMLStreamReader reader)
+            throws XMLStreamException
+    {
+        this.length = 0;
+        while (true)
+        {
+            switch (reader.next())
+            {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    this.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    XmlDecoder.skipElement(reader);
+                    this.length = 0;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return;
+                default:
+                    // Comments and processing instructions do not contribute to the text
+            }
+        }
+    }
+
+    private void append(char[] source, int start, int count)
+    {
+        if (this.length + count > this.chars.length)
+        {
+            char[] grown = new char[Math.max(this.chars.length * 2, this.length + count)];
+            System.arraycopy(this.chars, 0, grown, 0, this.length);
+            this.chars = grown;
+        }
+        System.arraycopy(source, start, this.chars, this.length, count);
+        this.length += count;
+    }
+
+    String getString()
+    {
+        return new String(this.chars, 0, this.length);
+    }
+
+    /**
+     * Whitespace is ignored anywhere in the text, and the empty text is 0, as in JAXB.
+     */
+    Integer getInteger(Integer current)
+    {
+        long value = this.parseInt();
+        return value != INVALID ? Integer.valueOf((int) value) : current;
+    }
+
+    /**
+     * As {@link #getInteger}, without boxing.
+     */
+    int getInt(int current)
+    {
+        long value = this.parseInt();
+        return value != INVALID ? (int) value : current;
+    }
+
+    private long parseInt()
+    {
+        int value = 0;
+        int sign = 1;
+        for (int i = 0; i < this.length; i++)
+        {
+            char c = this.chars[i];
+            if (c >= '0' && c <= '9')
+                value = value * 10 + (c - '0');
+            else if (c == '-')
+                sign = -1;
+            else if (c != '+' && !isWhitespace(c))
+                return INVALID;
+        }
+        return value * sign;
+    }
+
+    /**
+     * Follows JAXB's lenient reading: "true" and "1" are true, a single stray character after the
+     * value is tolerated, and anything else is false.
+     */
+    boolean getBoolean()
+    {
+        if (this.length == 0)
+            return false;
+
+        int i = 0;
+        char c;
+        do
+        {
+            c = this.chars[i++];
+        }
+        while (isWhitespace(c) && i < this.length);
+
+        boolean value = false;
+        if (c == '1')
+        {
+            value = true;
+        }
+        else if (c == 't' || c == 'f')
+        {
+            String rest = c == 't' ? "rue" : "alse";
+            if (i >= this.length)
+                return false;
+
+            int matched = 0;
+            do
+            {
+                c = this.chars[i++];
+            }
+            while (rest.charAt(matched++) == c && i < this.length && matched < rest.length());
+
+            if (matched != rest.length())
+                return false;
+            value = rest.length() == 3;
+        }
+
+        if (i < this.length)
+        {
+            do
+            {
+                c = this.chars[i++];
+            }
+            while (isWhitespace(c) && i < this.length);
+        }
+        return i == this.length && value;
+    }
+
+    /**
+     * @return the decimal, or null for empty text
+     */
+    BigDecimal getDecimal(BigDecimal current)
+    {
+        int start = this.trimStart();
+        int end = this.trimEnd(start);
+        if (start == end)
+            return null;
+
+        try
+        {
+            return new BigDecimal(this.chars, start, end - start);
+        }
+        catch (NumberFormatException e)
+        {
+            return current;
+        }
+    }
+
+    /**
+     * Accepts any XML Schema date or date-time; values without a time zone are in the default time zone.
+     * Harvest's own forms are parsed directly, anything else goes through {@link DatatypeConverter}.
+     */
+    Date getDate(Date current)
+    {
+        long millis = this.getEpochMillis(HarvestDates.UNPARSED);
+        return millis != HarvestDates.UNPARSED ? new Date(millis) : current;
+    }
+
+    long getEpochMillis(long current)
+    {
+        int start = this.trimStart();
+        int end = this.trimEnd(start);
+        if (this.zone == null)
+            this.zone = ZoneId.systemDefault().getRules();
+
+        long millis = HarvestDates.parse(this.chars, start, end, this.zone);
+        if (millis != HarvestDates.UNPARSED)
+            return millis;
+
+        try
+        {
+            return DatatypeConverter.parseDateTime(new String(this.chars, start, end - start)).getTimeInMillis();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return current;
+        }
+    }
+
+    private int trimStart()
+    {
+        int start = 0;
+        while (start < this.length && isWhitespace(this.chars[start]))
+            start++;
+        return start;
+    }
+
+    private int trimEnd(int start)
+    {
+        int end = this.length;
+        while (end > start && isWhitespace(this.chars[end - 1]))
+            end--;
+        return end;
+    }
+
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -0,0 +1,64 @@
+package com.enonic.harvest.harvestclient.parameters;
+
+import java.math.BigDecimal;
+
+/**
+ * One payment of a batch posted with postInvoicePayments. The invoice is given either by id or by number.
+ */
+public class PostInvoicePaymentParameters
+{
+    protected Integer invoiceId;
+    protected String invoiceNumber;
+    protected String paymentReference;
+    protected BigDecimal paymentAmount;
+
+    public PostInvoicePaymentParameters()
+    {
+    }
+
+    public PostInvoicePaymentParameters(int invoiceId, String paymentReference, BigDecimal paymentAmount)
+    {
+        this.invoiceId = invoiceId;
+        this.paymentReference = paymentReference;
+        this.paymentAmount = paymentAmount;
+    }
+
+    public PostInvoicePaymentParameters(String invoiceNumber, String paymentReference, BigDecimal paymentAmount)
+    {
+        this.invoiceNumber = invoiceNumber;
+        this.paymentReference = paymentReference;
+        this.paymentAmount = paymentAmount;
+    }
+
+    public Integer getInvoiceId() {
+        return invoiceId;
+    }
+
+    public void setInvoiceId(Integer invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+
+    public String getInvoiceNumber() {
+        return invoiceNumber;
+    }
+
+    public void setInvoiceNumber(String invoiceNumber) {
+        this.invoiceNumber = invoiceNumber;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    public BigDecimal getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public void setPaymentAmount(BigDecimal paymentAmount) {
+        this.paymentAmount = paymentAmount;
+    }
+}
@@ -0,0 +1,293 @@
+package com.enonic.harvest.harvestclient.sync;
+
+import com.enonic.harvest.harvestclient.models.*;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Local copy of Harvest entities, keyed by id, kept up to date by a {@link HarvestSyncEngine}.
+ *
+ * Besides by id, entities can be looked up by the ids they refer to: projects by client, assignments
+ * by project, user or task, day entries by project or user (optionally within a range of spent-at
+ * days), and invoices by number, client or state. Lookups return live, unmodifiable views ordered by
+ * id, and day entries ordered by day and then id. Day entries without a spent-at day come first and
+ * are left out of date ranges.
+ *
+ * Safe to query while a sync is running. Entities deleted in Harvest are not removed, since the
+ * updated_since filters only report created and updated entities.
+ */
+public class HarvestReplica
+{
+    private final ConcurrentMap<Integer, User> users = new ConcurrentHashMap<Integer, User>();
+    private final ConcurrentMap<Integer, Client> clients = new ConcurrentHashMap<Integer, Client>();
+    private final ConcurrentMap<Integer, Project> projects = new ConcurrentHashMap<Integer, Project>();
+    private final ConcurrentMap<Integer, Task> tasks = new ConcurrentHashMap<Integer, Task>();
+    private final ConcurrentMap<Integer, UserAssignment> userAssignments = new ConcurrentHashMap<Integer, UserAssignment>();
+    private final ConcurrentMap<Integer, TaskAssignment> taskAssignments = new ConcurrentHashMap<Integer, TaskAssignment>();
+    private final ConcurrentMap<Integer, DayEntry> dayEntries = new ConcurrentHashMap<Integer, DayEntry>();
+    private final ConcurrentMap<Integer, Invoice> invoices = new ConcurrentHashMap<Integer, Invoice>();
+
+    private final ReplicaIndex<Integer, Project> projectsByClient = new ReplicaIndex<Integer, Project>(Project::getClientId, Project::getId);
+    private final ReplicaIndex<Integer, UserAssignment> userAssignmentsByProject = new ReplicaIndex<Integer, UserAssignment>(UserAssignment::getProjectId, UserAssignment::getId);
+    private final ReplicaIndex<Integer, UserAssignment> userAssignmentsByUser = new ReplicaIndex<Integer, UserAssignment>(UserAssignment::getUserId, UserAssignment::getId);
+    private final ReplicaIndex<Integer, TaskAssignment> taskAssignmentsByProject = new ReplicaIndex<Integer, TaskAssignment>(TaskAssignment::getProjectId, TaskAssignment::getId);
+    private final ReplicaIndex<Integer, TaskAssignment> taskAssignmentsByTask = new ReplicaIndex<Integer, TaskAssignment>(TaskAssignment::getTaskId, TaskAssignment::getId);
+    private final ReplicaIndex<Integer, DayEntry> dayEntriesByProject = new ReplicaIndex<Integer, DayEntry>(DayEntry::getProjectId, HarvestReplica::position);
+    private final ReplicaIndex<Integer, DayEntry> dayEntriesByUser = new ReplicaIndex<Integer, DayEntry>(DayEntry::getUserId, HarvestReplica::position);
+    private final NavigableMap<Long, DayEntry> dayEntriesByDay = new ConcurrentSkipListMap<Long, DayEntry>();
+    private final ConcurrentMap<String, Invoice> invoicesByNumber = new ConcurrentHashMap<String, Invoice>();
+    private final ReplicaIndex<Integer, Invoice> invoicesByClient = new ReplicaIndex<Integer, Invoice>(Invoice::getClientId, Invoice::getId);
+    private final ReplicaIndex<String, Invoice> invoicesByState = new ReplicaIndex<String, Invoice>(Invoice::getState, Invoice::getId);
+
+    public User getUser(int id)
+    {
+        return users.get(id);
+    }
+
+    public Collection<User> getUsers()
+    {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    public Client getClient(int id)
+    {
+        return clients.get(id);
+    }
+
+    public Collection<Client> getClients()
+    {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+
+    public Project getProject(int id)
+    {
+        return projects.get(id);
+    }
+
+    public Collection<Project> getProjects()
+    {
+        return Collections.unmodifiableCollection(projects.values());
+    }
+
+    public Collection<Project> getProjectsByClient(int clientId)
+    {
+        return projectsByClient.get(clientId);
+    }
+
+    public Task getTask(int id)
+    {
+        return tasks.get(id);
+    }
+
+    public Collection<Task> getTasks()
+    {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    public UserAssignment getUserAssignment(int id)
+    {
+        return userAssignments.get(id);
+    }
+
+    public Collection<UserAssignment> getUserAssignments()
+    {
+        return Collections.unmodifiableCollection(userAssignments.values());
+    }
+
+    public Collection<UserAssignment> getUserAssignmentsByProject(int projectId)
+    {
+        return userAssignmentsByProject.get(projectId);
+    }
+
+    public Collection<UserAssignment> getUserAssignmentsByUser(int userId)
+    {
+        return userAssignmentsByUser.get(userId);
+    }
+
+    public TaskAssignment getTaskAssignment(int id)
+    {
+        return taskAssignments.get(id);
+    }
+
+    public Collection<TaskAssignment> getTaskAssignments()
+    {
+        return Collections.unmodifiableCollection(taskAssignments.values());
+    }
+
+    public Collection<TaskAssignment> getTaskAssignmentsByProject(int projectId)
+    {
+        return taskAssignmentsByProject.get(projectId);
+    }
+
+    public Collection<TaskAssignment> getTaskAssignmentsByTask(int taskId)
+    {
+        return taskAssignmentsByTask.get(taskId);
+    }
+
+    public DayEntry getDayEntry(int id)
+    {
+        return dayEntries.get(id);
+    }
+
+    public Collection<DayEntry> getDayEntries()
+    {
+        return Collections.unmodifiableCollection(dayEntries.values());
+    }
+
+    /**
+     * @return the day entries spent from {@code from} up to and including {@code to}
+     */
+    public Collection<DayEntry> getDayEntries(LocalDate from, LocalDate to)
+    {
+        return from.isAfter(to) ? Collections.<DayEntry>emptyList()
+                : Collections.unmodifiableCollection(dayEntriesByDay.subMap(firstPosition(from), true, lastPosition(to), true).values());
+    }
+
+    public Collection<DayEntry> getDayEntriesByProject(int projectId)
+    {
+        return dayEntriesByProject.get(projectId);
+    }
+
+    /**
+     * @return the day entries of the project spent from {@code from} up to and including {@code to}
+     */
+    public Collection<DayEntry> getDayEntriesByProject(int projectId, LocalDate from, LocalDate to)
+    {
+        return dayEntriesByProject.get(projectId, firstPosition(from), lastPosition(to));
+    }
+
+    public Collection<DayEntry> getDayEntriesByUser(int userId)
+    {
+        return dayEntriesByUser.get(userId);
+    }
+
+    /**
+     * @return the day entries of the user spent from {@code from} up to and including {@code to}
+     */
+    public Collection<DayEntry> getDayEntriesByUser(int userId, LocalDate from, LocalDate to)
+    {
+        return dayEntriesByUser.get(userId, firstPosition(from), lastPosition(to));
+    }
+
+    public Invoice getInvoice(int id)
+    {
+        return invoices.get(id);
+    }
+
+    public Collection<Invoice> getInvoices()
+    {
+        return Collections.unmodifiableCollection(invoices.values());
+    }
+
+    public Invoice getInvoiceByNumber(String number)
+    {
+        return number != null ? invoicesByNumber.get(number) : null;
+    }
+
+    public Collection<Invoice> getInvoicesByClient(int clientId)
+    {
+        return invoicesByClient.get(clientId);
+    }
+
+    public Collection<Invoice> getInvoicesByState(String state)
+    {
+        return invoicesByState.get(state);
+    }
+
+    void put(User user)
+    {
+        if (user.getId() != null)
+            users.put(user.getId(), user);
+    }
+
+    void put(Client client)
+    {
+        if (client.getId() != null)
+            clients.put(client.getId(), client);
+    }
+
+    synchronized void put(Project project)
+    {
+        if (project.getId() != null)
+            projectsByClient.update(projects.put(project.getId(), project), project);
+    }
+
+    void put(Task task)
+    {
+        if (task.getId() != null)
+            tasks.put(task.getId(), task);
+    }
+
+    synchronized void put(UserAssignment assignment)
+    {
+        if (assignment.getId() != null)
+        {
+            UserAssignment previous = userAssignments.put(assignment.getId(), assignment);
+            userAssignmentsByProject.update(previous, assignment);
+            userAssignmentsByUser.update(previous, assignment);
+        }
+    }
+
+    synchronized void put(TaskAssignment assignment)
+    {
+        if (assignment.getId() != null)
+        {
+            TaskAssignment previous = taskAssignments.put(assignment.getId(), assignment);
+            taskAssignmentsByProject.update(previous, assignment);
+            taskAssignmentsByTask.update(previous, assignment);
+        }
+    }
+
+    synchronized void put(DayEntry entry)
+    {
+        if (entry.getId() != null)
+        {
+            DayEntry previous = dayEntries.put(entry.getId(), entry);
+            dayEntriesByProject.update(previous, entry);
+            dayEntriesByUser.update(previous, entry);
+            dayEntriesByDay.put(position(entry), entry);
+            if (previous != null && previous != entry)
+                dayEntriesByDay.remove(position(previous), previous);
+        }
+    }
+
+    synchronized void put(Invoice invoice)
+    {
+        if (invoice.getId() != null)
+        {
+            Invoice previous = invoices.put(invoice.getId(), invoice);
+            invoicesByClient.update(previous, invoice);
+            invoicesByState.update(previous, invoice);
+            if (invoice.getNumber() != null)
+                invoicesByNumber.put(invoice.getNumber(), invoice);
+            if (previous != null && previous != invoice && previous.getNumber() != null)
+                invoicesByNumber.remove(previous.getNumber(), previous);
+        }
+    }
+
+    /**
+     * Orders day entries by spent-at day and then by id, with entries without a day first.
+     */
+    private static long position(DayEntry entry)
+    {
+        LocalDate spentAt = entry.getSpentAtLocalDate();
+        long day = spentAt != null ? spentAt.toEpochDay() : Integer.MIN_VALUE;
+        return day << 32 | (entry.getId() & 0xFFFFFFFFL);
+    }
+
+    private static long firstPosition(LocalDate day)
+    {
+        return day.toEpochDay() << 32;
+    }
+
+    private static long lastPosition(LocalDate day)
+    {
+        return day.toEpochDay() << 32 | 0xFFFFFFFFL;
+    }
+}
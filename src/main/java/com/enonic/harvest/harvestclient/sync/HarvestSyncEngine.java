@@ -0,0 +1,200 @@
+package com.enonic.harvest.harvestclient.sync;
+
+import com.enonic.harvest.harvestclient.HarvestClient;
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.*;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps a {@link HarvestReplica} up to date using the updated_since filters of the Harvest API.
+ *
+ * For every entity type (and for assignments and day entries, every project) the engine remembers
+ * the latest updated-at it has seen. The first sync downloads everything; later syncs only request
+ * entities updated since that watermark. Watermarks can be read and restored to carry them over
+ * between processes.
+ */
+public class HarvestSyncEngine
+{
+    public static final String USERS = "users";
+    public static final String CLIENTS = "clients";
+    public static final String PROJECTS = "projects";
+    public static final String TASKS = "tasks";
+    public static final String INVOICES = "invoices";
+    public static final String USER_ASSIGNMENTS = "user-assignments:";
+    public static final String TASK_ASSIGNMENTS = "task-assignments:";
+    public static final String DAY_ENTRIES = "day-entries:";
+
+    private final HarvestClient client;
+    private final HarvestReplica replica;
+    private final ConcurrentMap<String, Date> watermarks = new ConcurrentHashMap<String, Date>();
+
+    public HarvestSyncEngine(HarvestClient client)
+    {
+        this(client, new HarvestReplica());
+    }
+
+    public HarvestSyncEngine(HarvestClient client, HarvestReplica replica)
+    {
+        this.client = client;
+        this.replica = replica;
+    }
+
+    public HarvestReplica getReplica()
+    {
+        return replica;
+    }
+
+    /**
+     * Syncs users, clients, projects, tasks, the assignments of every known project, and invoices.
+     *
+     * @return the number of entities received
+     */
+    public synchronized int sync()
+            throws HarvestClientException
+    {
+        int count = syncUsers() + syncClients() + syncProjects() + syncTasks();
+
+        for (Project project : new ArrayList<Project>(replica.getProjects()))
+        {
+            count += syncUserAssignments(project.getId());
+            count += syncTaskAssignments(project.getId());
+        }
+
+        return count + syncInvoices();
+    }
+
+    public synchronized int syncUsers()
+            throws HarvestClientException
+    {
+        Date since = watermarks.get(USERS);
+        UserCollection users = since == null ? client.getUsers() : client.getUsers(since);
+        return merge(USERS, users, User::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncClients()
+            throws HarvestClientException
+    {
+        Date since = watermarks.get(CLIENTS);
+        ClientCollection clients = since == null ? client.getClients() : client.getClients(since);
+        return merge(CLIENTS, clients, Client::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncProjects()
+            throws HarvestClientException
+    {
+        Date since = watermarks.get(PROJECTS);
+        ProjectCollection projects = since == null ? client.getProjects() : client.getProjects(since);
+        return merge(PROJECTS, projects, Project::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncTasks()
+            throws HarvestClientException
+    {
+        Date since = watermarks.get(TASKS);
+        TaskCollection tasks = since == null ? client.getTasks() : client.getTasks(since);
+        return merge(TASKS, tasks, Task::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncUserAssignments(int projectId)
+            throws HarvestClientException
+    {
+        String key = USER_ASSIGNMENTS + projectId;
+        Date since = watermarks.get(key);
+        UserAssignmentCollection assignments = since == null ? client.getUserAssignments(projectId) : client.getUserAssignments(projectId, since);
+        return merge(key, assignments, UserAssignment::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncTaskAssignments(int projectId)
+            throws HarvestClientException
+    {
+        String key = TASK_ASSIGNMENTS + projectId;
+        Date since = watermarks.get(key);
+        TaskAssignmentCollection assignments = since == null ? client.getTaskAssignments(projectId) : client.getTaskAssignments(projectId, since);
+        return merge(key, assignments, TaskAssignment::getUpdatedAt, replica::put);
+    }
+
+    /**
+     * Syncs the day entries of a project. The watermark is kept per project, so use the same
+     * (or a wider) date range on every call.
+     */
+    public synchronized int syncDayEntries(int projectId, Date from, Date to)
+            throws HarvestClientException
+    {
+        String key = DAY_ENTRIES + projectId;
+
+        GetDayEntriesByProjectParameters params = new GetDayEntriesByProjectParameters();
+        params.projectId = projectId;
+        params.fromDate = from;
+        params.toDate = to;
+        params.updatedSince = watermarks.get(key);
+
+        return merge(key, client.getDayEntriesByProject(params), DayEntry::getUpdatedAt, replica::put);
+    }
+
+    public synchronized int syncInvoices()
+            throws HarvestClientException
+    {
+        GetRecentInvoicesParameters params = new GetRecentInvoicesParameters();
+        params.setUpdatedSince(watermarks.get(INVOICES));
+
+        List<Invoice> invoices = new ArrayList<Invoice>();
+        for (int page = 1; ; page++)
+        {
+            params.setPage(page);
+            List<Invoice> list = client.getRecentInvoices(params).getList();
+            if (list.isEmpty())
+                break;
+            invoices.addAll(list);
+        }
+
+        return merge(INVOICES, invoices, Invoice::getUpdatedAt, replica::put);
+    }
+
+    /**
+     * @return a snapshot of the current watermarks, keyed by entity type (and project id where applicable)
+     */
+    public Map<String, Date> getWatermarks()
+    {
+        return Collections.unmodifiableMap(new HashMap<String, Date>(watermarks));
+    }
+
+    /**
+     * Restores watermarks saved from an earlier {@link #getWatermarks()}, together with the replica contents they describe.
+     */
+    public synchronized void setWatermarks(Map<String, Date> watermarks)
+    {
+        this.watermarks.clear();
+        this.watermarks.putAll(watermarks);
+    }
+
+    private <T> int merge(String key, Iterable<T> entities, Function<T, Date> updatedAt, Consumer<T> put)
+    {
+        Date watermark = watermarks.get(key);
+        int count = 0;
+
+        for (T entity : entities)
+        {
+            put.accept(entity);
+            Date entityUpdatedAt = updatedAt.apply(entity);
+            if (entityUpdatedAt != null && (watermark == null || entityUpdatedAt.after(watermark)))
+                watermark = entityUpdatedAt;
+            count++;
+        }
+
+        if (watermark != null)
+            watermarks.put(key, watermark);
+        return count;
+    }
+}
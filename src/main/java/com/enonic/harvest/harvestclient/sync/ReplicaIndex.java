@@ -0,0 +1,62 @@
+package com.enonic.harvest.harvestclient.sync;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Secondary index of a {@link HarvestReplica}: the entities with the same key, ordered by a position
+ * such as their id. Entities with a null key are not indexed.
+ *
+ * Updates come from one writer at a time; readers see every entity under its new key before it is
+ * removed from its old one.
+ */
+final class ReplicaIndex<K, V>
+{
+    private final Function<V, K> key;
+    private final ToLongFunction<V> position;
+    private final ConcurrentMap<K, NavigableMap<Long, V>> entries = new ConcurrentHashMap<K, NavigableMap<Long, V>>();
+
+    ReplicaIndex(Function<V, K> key, ToLongFunction<V> position)
+    {
+        this.key = key;
+        this.position = position;
+    }
+
+    /**
+     * Replaces the previous version of an entity, if any, with the new one. The previous version may be
+     * the same instance, e.g. a stored response served again on 304 Not Modified.
+     */
+    void update(V previous, V value)
+    {
+        K valueKey = this.key.apply(value);
+        if (valueKey != null)
+            this.entries.computeIfAbsent(valueKey, k -> new ConcurrentSkipListMap<Long, V>()).put(this.position.applyAsLong(value), value);
+
+        K previousKey = previous != null && previous != value ? this.key.apply(previous) : null;
+        if (previousKey != null)
+            this.entries.get(previousKey).remove(this.position.applyAsLong(previous), previous);
+    }
+
+    Collection<V> get(K key)
+    {
+        NavigableMap<Long, V> keyEntries = key != null ? this.entries.get(key) : null;
+        return keyEntries != null ? Collections.unmodifiableCollection(keyEntries.values()) : Collections.<V>emptyList();
+    }
+
+    /**
+     * @return the entities with the key and a position from {@code from} up to and including {@code to}
+     */
+    Collection<V> get(K key, long from, long to)
+    {
+        NavigableMap<Long, V> keyEntries = key != null ? this.entries.get(key) : null;
+        return keyEntries != null && from <= to
+                ? Collections.unmodifiableCollection(keyEntries.subMap(from, true, to, true).values())
+                : Collections.<V>emptyList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.enonic.harvest.harvestclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ClientExecutorTest
+{
+    private TestServer server;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.respond("/projects", 200, TestXml.collection("projects",
+                TestXml.item("project", "id", 1, "name", "One"),
+                TestXml.item("project", "id", 2, "name", "Two"),
+                TestXml.item("project", "id", 3, "name", "Three")));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.server.close();
+    }
+
+    @Test
+    public void runsBlockingWorkOnOwnPoolByDefault()
+    {
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", this.server.config());
+        try
+        {
+            Map<Integer, String> threads = client.forEachProject(project -> Thread.currentThread().getName());
+
+            assertEquals(3, threads.size());
+            for (String thread : threads.values())
+                assertTrue(thread, thread.startsWith("harvestclient-worker-"));
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    @Test
+    public void usesConfiguredExecutor()
+    {
+        final AtomicInteger tasks = new AtomicInteger();
+        HarvestClientConfig config = this.server.config();
+        config.setExecutor(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                tasks.incrementAndGet();
+                command.run();
+            }
+        });
+
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", config);
+        try
+        {
+            assertEquals(3, client.forEachProject(project -> project.getName()).size());
+            assertEquals(3, tasks.get());
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    @Test
+    public void asyncClientCompletesOnOwnPoolByDefault()
+            throws Exception
+    {
+        final CountDownLatch registered = new CountDownLatch(1);
+        final byte[] tasks = TestXml.collection("tasks", TestXml.item("task", "id", 1, "name", "Task"));
+        this.server.handle("/tasks", exchange -> {
+            try
+            {
+                registered.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            TestServer.send(exchange, 200, tasks);
+        });
+
+        AsyncHarvestClient client = new DefaultAsyncHarvestClient("user", "password", "test", this.server.config());
+        try
+        {
+            CompletableFuture<String> thread = client.getTasks().thenApply(result -> Thread.currentThread().getName());
+            registered.countDown();
+            assertTrue(thread.get(), thread.get().startsWith("harvestclient-async-worker-"));
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+}
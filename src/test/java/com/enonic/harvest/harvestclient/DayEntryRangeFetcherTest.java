@@ -0,0 +1,177 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.MissingParameterException;
+import com.enonic.harvest.harvestclient.models.DayEntry;
+import com.enonic.harvest.harvestclient.models.DayEntryCollection;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class DayEntryRangeFetcherTest
+{
+    @Test
+    public void keepsLastDayWhenFromHasLaterTimeOfDayThanTo()
+            throws Exception
+    {
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(null, DayEntryRangeFetcher.Chunk.DAY, 1);
+        List<Date[]> ranges = fetcher.split(date(2024, 1, 1, 15), date(2024, 1, 3, 0));
+
+        assertEquals(3, ranges.size());
+        assertRange(ranges.get(0), date(2024, 1, 1, 0), date(2024, 1, 1, 0));
+        assertRange(ranges.get(1), date(2024, 1, 2, 0), date(2024, 1, 2, 0));
+        assertRange(ranges.get(2), date(2024, 1, 3, 0), date(2024, 1, 3, 0));
+    }
+
+    @Test
+    public void splitsIntoWholeChunksEndingAtLastDay()
+            throws Exception
+    {
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(null, DayEntryRangeFetcher.Chunk.MONTH, 1);
+        List<Date[]> ranges = fetcher.split(date(2024, 1, 15, 9), date(2024, 3, 10, 8));
+
+        assertEquals(2, ranges.size());
+        assertRange(ranges.get(0), date(2024, 1, 15, 0), date(2024, 2, 14, 0));
+        assertRange(ranges.get(1), date(2024, 2, 15, 0), date(2024, 3, 10, 0));
+    }
+
+    @Test
+    public void reportsMissingDateThroughFuture()
+            throws Exception
+    {
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(null, DayEntryRangeFetcher.Chunk.DAY, 1);
+        GetDayEntriesByProjectParameters params = new GetDayEntriesByProjectParameters();
+        params.fromDate = date(2024, 1, 1, 0);
+
+        try
+        {
+            fetcher.getDayEntriesByProject(params).get();
+            fail("Expected MissingParameterException");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof MissingParameterException);
+        }
+    }
+
+    @Test
+    public void fetchesThousandsOfChunksCompletedInline()
+            throws Exception
+    {
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(client(params -> CompletableFuture.completedFuture(
+                collection(dayEntry(params.fromDate)))), DayEntryRangeFetcher.Chunk.DAY, 4);
+
+        DayEntryCollection entries = fetcher.getDayEntriesByProject(params(date(2000, 1, 1, 0), date(2013, 9, 8, 0))).get(10, TimeUnit.SECONDS);
+
+        assertEquals(5000, entries.getList().size());
+        assertEquals(date(2000, 1, 1, 0), entries.getList().get(0).getSpentAt());
+        assertEquals(date(2013, 9, 8, 0), entries.getList().get(4999).getSpentAt());
+    }
+
+    @Test
+    public void skipsRemainingChunksAfterInlineFailure()
+            throws Exception
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        final HarvestClientException failure = new HarvestClientException("Unavailable.");
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(client(params -> {
+            CompletableFuture<DayEntryCollection> future = new CompletableFuture<DayEntryCollection>();
+            if (requests.incrementAndGet() == 3)
+                future.completeExceptionally(failure);
+            else
+                future.complete(collection(dayEntry(params.fromDate)));
+            return future;
+        }), DayEntryRangeFetcher.Chunk.DAY, 2);
+
+        try
+        {
+            fetcher.getDayEntriesByProject(params(date(2000, 1, 1, 0), date(2013, 9, 8, 0))).get(10, TimeUnit.SECONDS);
+            fail("Expected HarvestClientException");
+        }
+        catch (ExecutionException e)
+        {
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void sortsWithoutChangingSharedCollection()
+            throws Exception
+    {
+        final DayEntryCollection shared = collection(dayEntry(date(2024, 1, 3, 0)), dayEntry(null), dayEntry(date(2024, 1, 1, 0)));
+        final List<DayEntry> original = Arrays.asList(shared.getList().toArray(new DayEntry[0]));
+        DayEntryRangeFetcher fetcher = new DayEntryRangeFetcher(client(params -> CompletableFuture.completedFuture(shared)),
+                DayEntryRangeFetcher.Chunk.MONTH, 1);
+
+        List<DayEntry> entries = fetcher.getDayEntriesByProject(params(date(2024, 1, 1, 0), date(2024, 1, 3, 0))).get().getList();
+
+        assertEquals(original, shared.getList());
+        assertEquals(Arrays.asList(original.get(2), original.get(0), original.get(1)), entries);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroParallelism()
+    {
+        new DayEntryRangeFetcher(null, DayEntryRangeFetcher.Chunk.DAY, 0);
+    }
+
+    private static AsyncHarvestClient client(final Function<GetDayEntriesByProjectParameters, CompletableFuture<DayEntryCollection>> byProject)
+    {
+        return (AsyncHarvestClient) Proxy.newProxyInstance(AsyncHarvestClient.class.getClassLoader(), new Class<?>[]{AsyncHarvestClient.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("getDayEntriesByProject"))
+                        throw new UnsupportedOperationException(method.getName());
+                    return byProject.apply((GetDayEntriesByProjectParameters) args[0]);
+                });
+    }
+
+    private static GetDayEntriesByProjectParameters params(Date from, Date to)
+    {
+        GetDayEntriesByProjectParameters params = new GetDayEntriesByProjectParameters();
+        params.projectId = 1;
+        params.fromDate = from;
+        params.toDate = to;
+        return params;
+    }
+
+    private static DayEntryCollection collection(DayEntry... entries)
+    {
+        DayEntryCollection collection = new DayEntryCollection();
+        collection.getList().addAll(Arrays.asList(entries));
+        return collection;
+    }
+
+    private static DayEntry dayEntry(Date spentAt)
+    {
+        DayEntry dayEntry = new DayEntry();
+        dayEntry.setSpentAt(spentAt);
+        return dayEntry;
+    }
+
+    private static void assertRange(Date[] range, Date from, Date to)
+    {
+        assertEquals(from, range[0]);
+        assertEquals(to, range[1]);
+    }
+
+    private static Date date(int year, int month, int day, int hour)
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,78 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.MissingParameterException;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByUserParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class DefaultAsyncHarvestClientTest
+{
+    private TestServer server;
+    private AsyncHarvestClient client;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.client = new DefaultAsyncHarvestClient("user", "password", "test", this.server.config());
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void reportsMissingParameterThroughFuture()
+            throws Exception
+    {
+        this.server.respond("/", 500, new byte[0]);
+
+        GetDayEntriesByProjectParameters byProject = new GetDayEntriesByProjectParameters();
+        byProject.projectId = 1;
+        byProject.toDate = new Date();
+
+        GetDayEntriesByUserParameters byUser = new GetDayEntriesByUserParameters();
+        byUser.userId = 1;
+        byUser.fromDate = new Date();
+
+        assertFailsWithMissingParameter(this.client.getDayEntriesByProject(byProject));
+        assertFailsWithMissingParameter(this.client.getDayEntriesByUser(byUser));
+        assertFailsWithMissingParameter(this.client.streamDayEntriesByProject(byProject));
+        assertFailsWithMissingParameter(this.client.streamDayEntriesByUser(byUser));
+        assertEquals(0, this.server.getRequestCount("/"));
+    }
+
+    @Test
+    public void parsesResponse()
+    {
+        this.server.respond("/people/7", 200, TestXml.single(TestXml.item("user", "id", 7, "email", "user@example.com")));
+
+        assertEquals("user@example.com", this.client.getUser(7).join().getEmail());
+    }
+
+    private static void assertFailsWithMissingParameter(CompletableFuture<?> future)
+            throws InterruptedException
+    {
+        try
+        {
+            future.get();
+            fail("Expected MissingParameterException");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof MissingParameterException);
+        }
+    }
+}
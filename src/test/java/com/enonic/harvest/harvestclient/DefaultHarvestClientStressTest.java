@@ -0,0 +1,183 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.Project;
+import com.enonic.harvest.harvestclient.models.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Shares one client between many threads calling a mix of endpoints, and checks that every call got
+ * its own answer: date filters formatted for the calling thread, users parsed from their own
+ * response, and payments posted against the invoice their number maps to.
+ */
+public class DefaultHarvestClientStressTest
+{
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 60;
+    private static final int INVOICES = 50;
+    private static final long BASE_TIME = 1367420645000L;
+
+    private static final Pattern PAYMENT_PATH = Pattern.compile("/invoices/(\\d+)/payments");
+    private static final Pattern REFERENCE = Pattern.compile("ref-\\d+-\\d+");
+
+    private TestServer server;
+    private DefaultHarvestClient client;
+    private final Map<String, Integer> postedReferences = new ConcurrentHashMap<String, Integer>();
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.handle("/people/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/people/".length());
+            TestServer.send(exchange, 200, TestXml.single(TestXml.item("user", "id", id, "email", id + "@example.com")));
+        });
+        this.server.handle("/projects", exchange -> {
+            // Echo the decoded filter so the caller can check what was sent for it
+            String updatedSince = URLDecoder.decode(exchange.getRequestURI().getRawQuery().substring("updated_since=".length()), "UTF-8");
+            TestServer.send(exchange, 200, TestXml.collection("projects", TestXml.item("project", "id", 1, "name", updatedSince)));
+        });
+        this.server.handle("/invoices", exchange -> {
+            Matcher payment = PAYMENT_PATH.matcher(exchange.getRequestURI().getPath());
+            if (payment.matches())
+            {
+                Matcher reference = REFERENCE.matcher(readBody(exchange.getRequestBody()));
+                if (reference.find())
+                    this.postedReferences.put(reference.group(), Integer.valueOf(payment.group(1)));
+                TestServer.send(exchange, 201, new byte[0]);
+                return;
+            }
+
+            List<String> invoices = new ArrayList<String>();
+            if (exchange.getRequestURI().getQuery().contains("page=1&"))
+            {
+                for (int id = 1; id <= INVOICES; id++)
+                    invoices.add(TestXml.item("invoice", "id", id * 10, "number", "INV-" + id));
+            }
+            TestServer.send(exchange, 200, TestXml.collection("invoices", invoices));
+        });
+
+        HarvestClientConfig config = this.server.config();
+        config.setMaxConnectionsTotal(8);
+        config.setMaxConnectionsPerRoute(8);
+        this.client = new DefaultHarvestClient("user", "password", "test", config);
+        assertEquals(INVOICES, this.client.populateInvoiceCache(new Date(BASE_TIME), new Date(BASE_TIME)));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void sharedClientAnswersEveryThreadCorrectly()
+            throws Exception
+    {
+        final Queue<String> failures = new ConcurrentLinkedQueue<String>();
+        final Map<String, Integer> expectedReferences = new ConcurrentHashMap<String, Integer>();
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> done = new ArrayList<Future<?>>();
+
+        for (int t = 0; t < THREADS; t++)
+        {
+            final int thread = t;
+            done.add(threads.submit(() -> {
+                start.await();
+                for (int i = 0; i < CALLS_PER_THREAD; i++)
+                {
+                    int call = thread * CALLS_PER_THREAD + i;
+                    try
+                    {
+                        this.call(call, expectedReferences, failures);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        failures.add(call + ": " + e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : done)
+            future.get(60, TimeUnit.SECONDS);
+        threads.shutdown();
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(expectedReferences, this.postedReferences);
+        assertEquals(THREADS * CALLS_PER_THREAD / 3, this.server.getRequestCount("/people/"));
+        assertEquals(THREADS * CALLS_PER_THREAD / 3, this.server.getRequestCount("/projects"));
+    }
+
+    private void call(int call, Map<String, Integer> expectedReferences, Queue<String> failures)
+    {
+        switch (call % 3)
+        {
+            case 0:
+                User user = this.client.getUser(call);
+                if (user.getId() != call || !(call + "@example.com").equals(user.getEmail()))
+                    failures.add(call + ": got user " + user.getId() + " " + user.getEmail());
+                break;
+            case 1:
+                Date updatedSince = new Date(BASE_TIME + call * 61000L);
+                Project project = this.client.getProjects(updatedSince).iterator().next();
+                if (!formatUtc(updatedSince).equals(project.getName()))
+                    failures.add(call + ": sent updated_since " + project.getName() + " for " + formatUtc(updatedSince));
+                break;
+            default:
+                int invoice = call % INVOICES + 1;
+                String reference = "ref-" + call + "-" + invoice;
+                expectedReferences.put(reference, invoice * 10);
+                this.client.postInvoicePayment("INV-" + invoice, reference, new BigDecimal("10.00"));
+                break;
+        }
+    }
+
+    private static String formatUtc(Date date)
+    {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    private static String readBody(InputStream in)
+            throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            body.write(buffer, 0, read);
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,319 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class EntityPublisherTest
+{
+    @Test
+    public void opensReaderOnFirstRequest()
+    {
+        CountingSource source = new CountingSource(3);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new EntityPublisher<Integer>(source, Runnable::run).subscribe(subscriber);
+        assertEquals(0, source.opened.get());
+
+        subscriber.subscription.request(1);
+        assertEquals(1, source.opened.get());
+    }
+
+    @Test
+    public void deliversExactlyTheRequestedEntities()
+    {
+        CountingSource source = new CountingSource(10);
+        RecordingSubscriber subscriber = subscribe(source);
+
+        subscriber.subscription.request(3);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.entities);
+
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber.entities);
+        assertEquals(0, subscriber.completions);
+        assertFalse(source.reader.closed);
+    }
+
+    @Test
+    public void completesOnceWhenReaderIsExhausted()
+    {
+        CountingSource source = new CountingSource(3);
+        RecordingSubscriber subscriber = subscribe(source);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(1);
+
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.entities);
+        assertEquals(1, subscriber.completions);
+        assertTrue(subscriber.errors.isEmpty());
+        assertTrue(source.reader.closed);
+    }
+
+    @Test
+    public void completesEmptyReaderOnFirstRequest()
+    {
+        RecordingSubscriber subscriber = subscribe(new CountingSource(0));
+
+        subscriber.subscription.request(1);
+
+        assertTrue(subscriber.entities.isEmpty());
+        assertEquals(1, subscriber.completions);
+    }
+
+    @Test
+    public void cancelStopsDeliveryAndClosesReader()
+    {
+        CountingSource source = new CountingSource(10);
+        RecordingSubscriber subscriber = subscribe(source);
+
+        subscriber.subscription.request(2);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        assertEquals(Arrays.asList(1, 2), subscriber.entities);
+        assertTrue(source.reader.closed);
+        assertEquals(0, subscriber.completions);
+        assertTrue(subscriber.errors.isEmpty());
+    }
+
+    @Test
+    public void cancelFromOnNextStopsDelivery()
+    {
+        CountingSource source = new CountingSource(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        {
+            @Override
+            public void onNext(Integer entity)
+            {
+                super.onNext(entity);
+                this.subscription.cancel();
+            }
+        };
+        new EntityPublisher<Integer>(source, Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(5);
+
+        assertEquals(Arrays.asList(1), subscriber.entities);
+        assertTrue(source.reader.closed);
+    }
+
+    @Test
+    public void nonPositiveRequestSignalsError()
+    {
+        CountingSource source = new CountingSource(10);
+        RecordingSubscriber subscriber = subscribe(source);
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(0);
+        subscriber.subscription.request(5);
+
+        assertEquals(Arrays.asList(1), subscriber.entities);
+        assertEquals(1, subscriber.errors.size());
+        assertTrue(subscriber.errors.get(0) instanceof IllegalArgumentException);
+        assertEquals(0, subscriber.completions);
+        assertTrue(source.reader.closed);
+    }
+
+    @Test
+    public void reportsReaderFailureAsError()
+    {
+        final IllegalStateException failure = new IllegalStateException("Broken response.");
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new EntityPublisher<Integer>(() -> {
+            throw failure;
+        }, Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertEquals(Arrays.<Throwable>asList(failure), subscriber.errors);
+    }
+
+    @Test
+    public void requestFromOnNextDoesNotGrowTheStack()
+    {
+        CountingSource source = new CountingSource(100000);
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        {
+            @Override
+            public void onNext(Integer entity)
+            {
+                super.onNext(entity);
+                this.subscription.request(1);
+            }
+        };
+        new EntityPublisher<Integer>(source, Runnable::run).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertEquals(100000, subscriber.entities.size());
+        assertEquals(1, subscriber.completions);
+    }
+
+    @Test
+    public void publishesInvoicesAcrossPages()
+            throws Exception
+    {
+        try (TestServer server = new TestServer())
+        {
+            server.handle("/invoices", exchange -> {
+                int page = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*\\bpage=(\\d+).*", "$1"));
+                List<String> invoices = new ArrayList<String>();
+                if (page == 1)
+                    invoices.addAll(Arrays.asList(TestXml.item("invoice", "id", 1), TestXml.item("invoice", "id", 2)));
+                else if (page == 2)
+                    invoices.add(TestXml.item("invoice", "id", 3));
+                TestServer.send(exchange, 200, TestXml.collection("invoices", invoices));
+            });
+
+            DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", server.config());
+            try
+            {
+                final List<Integer> ids = new ArrayList<Integer>();
+                final CompletableFuture<Integer> completed = new CompletableFuture<Integer>();
+                client.publishInvoices(new GetRecentInvoicesParameters()).subscribe(new Subscriber<Invoice>()
+                {
+                    @Override
+                    public void onSubscribe(Subscription subscription)
+                    {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(Invoice invoice)
+                    {
+                        ids.add(invoice.getId());
+                    }
+
+                    @Override
+                    public void onError(Throwable error)
+                    {
+                        completed.completeExceptionally(error);
+                    }
+
+                    @Override
+                    public void onComplete()
+                    {
+                        completed.complete(ids.size());
+                    }
+                });
+
+                assertEquals(Integer.valueOf(3), completed.get(10, TimeUnit.SECONDS));
+                assertEquals(Arrays.asList(1, 2, 3), ids);
+                assertEquals(3, server.getRequestCount("/invoices"));
+            }
+            finally
+            {
+                client.close();
+            }
+        }
+    }
+
+    private static RecordingSubscriber subscribe(CountingSource source)
+    {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new EntityPublisher<Integer>(source, Runnable::run).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static class CountingSource
+            implements Supplier<Iterator<Integer>>
+    {
+        private final int count;
+        private final AtomicInteger opened = new AtomicInteger();
+        private CountingReader reader;
+
+        CountingSource(int count)
+        {
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<Integer> get()
+        {
+            this.opened.incrementAndGet();
+            this.reader = new CountingReader(this.count);
+            return this.reader;
+        }
+    }
+
+    private static class CountingReader
+            implements Iterator<Integer>, Closeable
+    {
+        private final int count;
+        private int next = 1;
+        private boolean closed;
+
+        CountingReader(int count)
+        {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (this.closed)
+                throw new IllegalStateException("Read after close");
+            return this.next <= this.count;
+        }
+
+        @Override
+        public Integer next()
+        {
+            return this.next++;
+        }
+
+        @Override
+        public void close()
+        {
+            this.closed = true;
+        }
+    }
+
+    private static class RecordingSubscriber
+            implements Subscriber<Integer>
+    {
+        protected Subscription subscription;
+        private final List<Integer> entities = new ArrayList<Integer>();
+        private final List<Throwable> errors = new ArrayList<Throwable>();
+        private int completions;
+
+        @Override
+        public void onSubscribe(Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer entity)
+        {
+            this.entities.add(entity);
+        }
+
+        @Override
+        public void onError(Throwable error)
+        {
+            this.errors.add(error);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            this.completions++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.cache.CachingHarvestClient;
+import com.enonic.harvest.harvestclient.models.UserAssignmentCollection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HarvestClientFactoryTest
+{
+    private TestServer server;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.respond("/projects/1/user_assignments", 200, TestXml.collection("user-assignments",
+                TestXml.item("user-assignment", "id", 11, "project-id", 1, "user-id", 5)));
+        this.server.respond("/projects/2/user_assignments", 200, TestXml.collection("user-assignments",
+                TestXml.item("user-assignment", "id", 21, "project-id", 2, "user-id", 5),
+                TestXml.item("user-assignment", "id", 22, "project-id", 2, "user-id", 6)));
+        this.server.respond("/projects", 200, TestXml.collection("projects", Arrays.asList(
+                TestXml.item("project", "id", 1, "name", "One"),
+                TestXml.item("project", "id", 2, "name", "Two"))));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.server.close();
+    }
+
+    @Test
+    public void runsCallForEachProjectThroughInterface()
+    {
+        try (HarvestClient client = new HarvestClientFactory().create("test", "user", "password", this.server.config()))
+        {
+            assertForEachProject(client);
+        }
+    }
+
+    @Test
+    public void runsCallForEachProjectThroughCachingClient()
+    {
+        try (HarvestClient client = new CachingHarvestClient(new HarvestClientFactory().create("test", "user", "password", this.server.config())))
+        {
+            assertForEachProject(client);
+        }
+    }
+
+    private static void assertForEachProject(HarvestClient client)
+    {
+        Map<Integer, UserAssignmentCollection> assignments = client.forEachProject(project -> client.getUserAssignments(project.getId()));
+
+        assertEquals(2, assignments.size());
+        assertEquals(1, assignments.get(1).getList().size());
+        assertEquals(2, assignments.get(2).getList().size());
+    }
+}
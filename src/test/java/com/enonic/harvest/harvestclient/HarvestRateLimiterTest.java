@@ -0,0 +1,102 @@
+package com.enonic.harvest.harvestclient;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class HarvestRateLimiterTest
+{
+    private static final long TOKEN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong now = new AtomicLong(5000);
+
+    @Test
+    public void handsOutFullBucketWithoutWaiting()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(10, 1000, this.now::get);
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(0, limiter.reserve());
+
+        assertEquals(10, limiter.getAcquireCount());
+        assertEquals(0, limiter.getWaitCount());
+    }
+
+    @Test
+    public void queuesReservationsBehindTheDeficit()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(10, 1000, this.now::get);
+        for (int i = 0; i < 10; i++)
+            limiter.reserve();
+
+        assertEquals(TOKEN_NANOS, limiter.reserve());
+        assertEquals(2 * TOKEN_NANOS, limiter.reserve());
+        assertEquals(3 * TOKEN_NANOS, limiter.reserve());
+
+        assertEquals(13, limiter.getAcquireCount());
+        assertEquals(3, limiter.getWaitCount());
+        assertEquals(600, limiter.getTotalWaitMillis());
+    }
+
+    @Test
+    public void refillsOverTimeUpToCapacity()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(10, 1000, this.now::get);
+        for (int i = 0; i < 12; i++)
+            limiter.reserve();
+
+        // Two tokens pay off the deficit, the next two are available again
+        this.now.addAndGet(4 * TOKEN_NANOS);
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(TOKEN_NANOS, limiter.reserve());
+
+        // A long idle period refills no more than the capacity
+        this.now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        for (int i = 0; i < 10; i++)
+            assertEquals(0, limiter.reserve());
+        assertEquals(TOKEN_NANOS, limiter.reserve());
+    }
+
+    @Test
+    public void pauseDelaysReservationsUntilRetryAfter()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(10, 1000, this.now::get);
+        limiter.pause(2000);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2000) + TOKEN_NANOS, limiter.reserve());
+        assertEquals(1, limiter.getThrottledCount());
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2000) + 2 * TOKEN_NANOS);
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void pausesEvenWithoutPacing()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(0, 1000, this.now::get);
+        for (int i = 0; i < 100; i++)
+            assertEquals(0, limiter.reserve());
+
+        limiter.pause(1500);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), limiter.reserve());
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void shorterPauseDoesNotShortenLongerOne()
+    {
+        HarvestRateLimiter limiter = new HarvestRateLimiter(0, 1000, this.now::get);
+        limiter.pause(3000);
+        limiter.pause(1000);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3000), limiter.reserve());
+        assertEquals(2, limiter.getThrottledCount());
+    }
+}
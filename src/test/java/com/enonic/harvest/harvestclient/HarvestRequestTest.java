@@ -0,0 +1,165 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+public class HarvestRequestTest
+{
+    private TestServer server;
+    private DefaultHarvestClient client;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.client = new DefaultHarvestClient("user", "password", "test", this.server.config());
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void inflatesZlibAndRawDeflateResponses()
+    {
+        byte[] body = TestXml.single(TestXml.item("user", "id", 7, "email", "user@example.com"));
+        this.respondDeflated("/people/7", deflate(body, false));
+        this.respondDeflated("/people/8", deflate(body, true));
+
+        assertEquals("user@example.com", this.client.getUser(7).getEmail());
+        assertEquals("user@example.com", this.client.getUser(8).getEmail());
+    }
+
+    @Test
+    public void endsInflaterOnClose()
+            throws Exception
+    {
+        Inflater inflater = new Inflater();
+        HarvestRequest.InflatingInputStream in = new HarvestRequest.InflatingInputStream(
+                new ByteArrayInputStream(deflate(new byte[]{1, 2, 3}, false)), inflater);
+        assertEquals(1, in.read());
+
+        in.close();
+        in.close();
+
+        try
+        {
+            inflater.getBytesRead();
+            fail("Expected the inflater to be ended");
+        }
+        catch (NullPointerException e)
+        {
+            // Ended inflaters fail on use
+        }
+    }
+
+    @Test
+    public void retriesThrottledResponses()
+    {
+        this.respondThrottled("/people/7", 2, "0");
+
+        assertEquals(Integer.valueOf(7), this.client.getUser(7).getId());
+        assertEquals(3, this.server.getRequestCount("/people/7"));
+        assertEquals(2, this.client.getRateLimiter().getThrottledCount());
+    }
+
+    @Test
+    public void waitsForRetryAfterBeforeRetrying()
+    {
+        this.respondThrottled("/people/7", 1, "1");
+
+        long start = System.nanoTime();
+        this.client.getUser(7);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(2, this.server.getRequestCount("/people/7"));
+    }
+
+    @Test
+    public void givesUpAfterMaxThrottleRetries()
+    {
+        this.respondThrottled("/people/7", Integer.MAX_VALUE, "0");
+        HarvestClientConfig config = this.server.config();
+        config.setMaxThrottleRetries(2);
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", config);
+        try
+        {
+            client.getUser(7);
+            fail("Expected ThrottleLimitReachedException");
+        }
+        catch (ThrottleLimitReachedException e)
+        {
+            // The retry policy does not repeat a request that already used up its throttle retries
+            assertEquals(3, this.server.getRequestCount("/people/7"));
+            assertEquals(2, client.getRateLimiter().getThrottledCount());
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    private void respondThrottled(String path, final int throttled, final String retryAfter)
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        this.server.handle(path, exchange -> {
+            if (requests.incrementAndGet() <= throttled)
+            {
+                exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                TestServer.send(exchange, 503, new byte[0]);
+            }
+            else
+            {
+                TestServer.send(exchange, 200, TestXml.single(TestXml.item("user", "id", 7)));
+            }
+        });
+    }
+
+    private void respondDeflated(String path, final byte[] body)
+    {
+        this.server.handle(path, exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream response = exchange.getResponseBody())
+            {
+                response.write(body);
+            }
+        });
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw)
+    {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try
+        {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished())
+                out.write(buffer, 0, deflater.deflate(buffer));
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+}
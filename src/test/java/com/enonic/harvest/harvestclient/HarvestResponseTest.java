@@ -0,0 +1,175 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.DayEntryReader;
+import com.enonic.harvest.harvestclient.parameters.GetDayEntriesByProjectParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class HarvestResponseTest
+{
+    private static final int CHUNKS = 512;
+
+    private TestServer server;
+    private HarvestClientConfig config;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.config = this.server.config();
+        this.config.setCompression(false);
+        this.config.setLeakDetection(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.server.close();
+    }
+
+    @Test
+    public void stopsDownloadWhenClosedEarly()
+            throws Exception
+    {
+        StringBuilder entries = new StringBuilder();
+        while (entries.length() < 64 * 1024)
+            entries.append(TestXml.item("day-entry", "id", 1, "hours", "1.5", "project-id", 2, "spent-at", "2014-03-12"));
+        final byte[] head = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<day-entries type=\"array\">".getBytes(StandardCharsets.UTF_8);
+        final byte[] chunk = entries.toString().getBytes(StandardCharsets.UTF_8);
+        final byte[] tail = "</day-entries>".getBytes(StandardCharsets.UTF_8);
+        final long length = head.length + (long) chunk.length * CHUNKS + tail.length;
+
+        final AtomicLong written = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        this.server.handle("/projects", exchange -> {
+            exchange.sendResponseHeaders(200, length);
+            try (OutputStream body = exchange.getResponseBody())
+            {
+                body.write(head);
+                for (int i = 0; i < CHUNKS; i++)
+                {
+                    body.write(chunk);
+                    written.addAndGet(chunk.length);
+                }
+                body.write(tail);
+            }
+            catch (IOException e)
+            {
+                // The client dropped the connection
+            }
+            finally
+            {
+                done.countDown();
+            }
+        });
+
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", this.config);
+        try
+        {
+            DayEntryReader reader = client.streamDayEntriesByProject(params());
+            assertTrue(reader.hasNext());
+            assertEquals(Integer.valueOf(1), reader.next().getId());
+            reader.close();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue("Wrote " + written.get() + " bytes", written.get() < (long) chunk.length * CHUNKS / 2);
+            assertEquals(0, client.getLeakDetector().getOpenCount());
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    @Test
+    public void reusesConnectionOfReadResponse()
+            throws Exception
+    {
+        final byte[] users = TestXml.collection("users", TestXml.item("user", "id", 1, "email", "user@example.com"));
+        final Set<Integer> ports = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        this.server.handle("/people", exchange -> {
+            ports.add(exchange.getRemoteAddress().getPort());
+            TestServer.send(exchange, 200, users);
+        });
+
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", this.config);
+        try
+        {
+            for (int i = 0; i < 5; i++)
+                assertEquals(1, client.getUsers().getList().size());
+
+            assertEquals(1, ports.size());
+            assertEquals(0, client.getLeakDetector().getOpenCount());
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    @Test
+    public void reportsResponseThatWasNeverClosed()
+            throws Exception
+    {
+        this.server.respond("/projects", 200, TestXml.collection("day-entries",
+                TestXml.item("day-entry", "id", 1, "hours", "1.5"),
+                TestXml.item("day-entry", "id", 2, "hours", "2.5")));
+
+        DefaultHarvestClient client = new DefaultHarvestClient("user", "password", "test", this.config);
+        try
+        {
+            openAndForget(client);
+            assertEquals(1, client.getLeakDetector().getOpenCount());
+
+            // The JDK's StAX factory keeps its last reader, and so the forgotten stream, for reuse until the next parse
+            DayEntryReader next = client.streamDayEntriesByProject(params());
+            while (next.hasNext())
+                next.next();
+            assertEquals(1, client.getLeakDetector().getOpenCount());
+
+            for (int i = 0; i < 50 && client.getLeakDetector().getLeakCount() == 0; i++)
+            {
+                System.gc();
+                Thread.sleep(20);
+                client.getLeakDetector().report();
+            }
+
+            assertEquals(1, client.getLeakDetector().getLeakCount());
+            assertEquals(0, client.getLeakDetector().getOpenCount());
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    private static void openAndForget(DefaultHarvestClient client)
+    {
+        DayEntryReader reader = client.streamDayEntriesByProject(params());
+        assertTrue(reader.hasNext());
+    }
+
+    private static GetDayEntriesByProjectParameters params()
+    {
+        GetDayEntriesByProjectParameters params = new GetDayEntriesByProjectParameters();
+        params.projectId = 2;
+        params.fromDate = new Date(1388534400000L);
+        params.toDate = new Date(1394582400000L);
+        return params;
+    }
+}
@@ -0,0 +1,110 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.exceptions.ThrottleLimitReachedException;
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HarvestRetryPolicyTest
+{
+    @Test
+    public void retriesConnectionErrorsUntilSuccess()
+    {
+        HarvestRetryPolicy policy = new HarvestRetryPolicy(3, 1, 1, 0.1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        String value = policy.call(() -> {
+            if (calls.incrementAndGet() < 3)
+                throw new HarvestClientException("Could not perform request.", new IOException("Connection reset"));
+            return "ok";
+        });
+
+        assertEquals("ok", value);
+        assertEquals(3, policy.getAttemptCount());
+        assertEquals(2, policy.getRetryCount());
+        assertEquals(1, policy.getRecoveredCount());
+    }
+
+    @Test
+    public void doesNotRetryThrottling()
+    {
+        HarvestRetryPolicy policy = new HarvestRetryPolicy(3, 1, 1, 0.1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        try
+        {
+            policy.call(() -> {
+                calls.incrementAndGet();
+                throw new ThrottleLimitReachedException();
+            });
+            fail("Expected ThrottleLimitReachedException");
+        }
+        catch (ThrottleLimitReachedException e)
+        {
+            assertEquals(1, calls.get());
+            assertEquals(1, policy.getFailedCount());
+        }
+    }
+
+    @Test
+    public void doesNotRetryClientErrors()
+    {
+        assertFalse(HarvestRetryPolicy.isRetryable(new UnexpectedStatusException(404, "/people", 0)));
+        assertTrue(HarvestRetryPolicy.isRetryable(new UnexpectedStatusException(502, "/people", 0)));
+    }
+
+    @Test
+    public void stopsWhenBudgetIsSpent()
+    {
+        HarvestRetryPolicy policy = new HarvestRetryPolicy(100, 0, 0, 0);
+        final AtomicInteger calls = new AtomicInteger();
+
+        try
+        {
+            policy.call(() -> {
+                calls.incrementAndGet();
+                throw new UnexpectedStatusException(500, "/people", 0);
+            });
+            fail("Expected UnexpectedStatusException");
+        }
+        catch (UnexpectedStatusException e)
+        {
+            // The initial budget allows ten retries
+            assertEquals(11, calls.get());
+            assertEquals(1, policy.getBudgetDeniedCount());
+        }
+    }
+
+    @Test
+    public void throttledGetIsSentOncePerThrottleRetry()
+            throws Exception
+    {
+        try (TestServer server = new TestServer())
+        {
+            server.respond("/people", 503, new byte[0]);
+            HarvestClientConfig config = server.config();
+            config.setMaxThrottleRetries(2);
+            config.setMaxGetAttempts(3);
+
+            HarvestClient client = new DefaultHarvestClient("user", "password", "test", config);
+            try
+            {
+                client.getUsers();
+                fail("Expected ThrottleLimitReachedException");
+            }
+            catch (ThrottleLimitReachedException e)
+            {
+                assertEquals(3, server.getRequestCount("/people"));
+            }
+            finally
+            {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class HarvestUrlsTest
+{
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp()
+    {
+        this.defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+    }
+
+    @After
+    public void tearDown()
+    {
+        TimeZone.setDefault(this.defaultZone);
+    }
+
+    @Test
+    public void formatsUpdatedSinceInUtc()
+            throws Exception
+    {
+        // 2013-05-01T15:04:05Z
+        Date updatedSince = new Date(1367420645000L);
+
+        assertEquals("/people?updated_since=2013-05-01+15%3A04", HarvestUrls.users(updatedSince));
+        assertEquals("/projects/7/task_assignments?updated_since=2013-05-01+15%3A04", HarvestUrls.taskAssignments(7, updatedSince));
+    }
+
+    @Test
+    public void formatsInvoiceUpdatedSinceInUtc()
+    {
+        GetRecentInvoicesParameters params = new GetRecentInvoicesParameters();
+        params.setPage(2);
+        params.setUpdatedSince(new Date(1367420645000L));
+
+        assertEquals("/invoices?page=2&updated_since=2013-05-01+15%3A04", HarvestUrls.recentInvoices(params));
+    }
+
+    @Test
+    public void formatsUpdatedSinceOnAnotherThreadInUtc()
+            throws Exception
+    {
+        final String[] url = new String[1];
+        Thread thread = new Thread(() -> {
+            try
+            {
+                url[0] = HarvestUrls.clients(new Date(1367420645000L));
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals("/clients?updated_since=2013-05-01+15%3A04", url[0]);
+    }
+}
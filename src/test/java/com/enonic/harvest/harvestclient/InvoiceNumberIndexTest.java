@@ -0,0 +1,89 @@
+package com.enonic.harvest.harvestclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InvoiceNumberIndexTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestServer server;
+    private HarvestClient client;
+    private Path file;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.handle("/invoices", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            byte[] body = query != null && query.contains("page=1")
+                    ? TestXml.collection("invoices",
+                            TestXml.item("invoice", "id", 11, "number", "2014-1", "updated-at", "2014-03-12T09:41:27Z"),
+                            TestXml.item("invoice", "id", 12, "number", "2014-2", "updated-at", "2014-03-13T09:41:27Z"))
+                    : TestXml.collection("invoices");
+            TestServer.send(exchange, 200, body);
+        });
+        this.client = new DefaultHarvestClient("user", "password", "test", this.server.config());
+        this.file = this.folder.getRoot().toPath().resolve("invoices.idx");
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void updatesSavesAndReopens()
+    {
+        InvoiceNumberIndex index = InvoiceNumberIndex.open(this.file);
+        assertEquals(0, index.size());
+        assertEquals(2, index.update(this.client));
+        assertEquals(Integer.valueOf(12), index.get("2014-2"));
+
+        InvoiceNumberIndex reopened = InvoiceNumberIndex.open(this.file);
+        assertEquals(2, reopened.size());
+        assertEquals(Integer.valueOf(11), reopened.get("2014-1"));
+        assertEquals(index.getWatermark(), reopened.getWatermark());
+        assertEquals(1394703687000L, reopened.getWatermark().getTime());
+    }
+
+    @Test
+    public void replacesFileItWasOpenedFrom()
+    {
+        InvoiceNumberIndex index = InvoiceNumberIndex.open(this.file);
+        index.update(this.client);
+
+        InvoiceNumberIndex reopened = InvoiceNumberIndex.open(this.file);
+        reopened.save();
+        reopened.save();
+
+        assertEquals(2, InvoiceNumberIndex.open(this.file).size());
+    }
+
+    @Test
+    public void ignoresCorruptFile()
+            throws Exception
+    {
+        InvoiceNumberIndex.open(this.file).update(this.client);
+        byte[] bytes = Files.readAllBytes(this.file);
+        Files.write(this.file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        InvoiceNumberIndex index = InvoiceNumberIndex.open(this.file);
+        assertEquals(0, index.size());
+        assertNull(index.getWatermark());
+    }
+}
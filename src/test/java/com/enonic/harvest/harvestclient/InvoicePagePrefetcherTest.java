@@ -0,0 +1,177 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.models.InvoiceCollection;
+import com.enonic.harvest.harvestclient.parameters.GetRecentInvoicesParameters;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class InvoicePagePrefetcherTest
+{
+    private static final Date FROM = new Date(1388534400000L);
+    private static final Date TO = new Date(1420070400000L);
+
+    private final Map<Integer, CompletableFuture<InvoiceCollection>> pages = new HashMap<Integer, CompletableFuture<InvoiceCollection>>();
+    private final List<Integer> requested = new ArrayList<Integer>();
+    private final List<String> events = new ArrayList<String>();
+
+    private final InvoiceCacheListener listener = new InvoiceCacheListener()
+    {
+        @Override
+        public void pageLoaded(int page, int invoices, int total)
+        {
+            events.add("page " + page + ": " + invoices + "/" + total);
+        }
+
+        @Override
+        public void completed(int total)
+        {
+            events.add("completed: " + total);
+        }
+    };
+
+    @Test
+    public void stopsAtTheFirstEmptyPage()
+    {
+        this.page(1).complete(invoices(1, 2));
+        // A short page is not the end; only an empty page is
+        this.page(2).complete(invoices(3));
+        this.page(3).complete(invoices());
+        this.page(4).complete(invoices(4));
+
+        InvoicePagePrefetcher prefetcher = this.prefetcher(2);
+        Map<String, Integer> cache = prefetcher.start().join();
+
+        assertEquals(3, cache.size());
+        assertEquals(Integer.valueOf(30), cache.get("INV-3"));
+        assertNull(cache.get("INV-4"));
+        assertEquals(3, prefetcher.getTotal());
+        assertEquals(Arrays.asList("page 1: 2/2", "page 2: 1/3", "completed: 3"), this.events);
+        assertEquals(Arrays.asList(1, 2, 3, 4), this.requested);
+    }
+
+    @Test
+    public void cancelsPagesRequestedPastTheEmptyPage()
+    {
+        InvoicePagePrefetcher prefetcher = this.prefetcher(3);
+        CompletableFuture<Map<String, Integer>> result = prefetcher.start();
+        assertEquals(Arrays.asList(1, 2, 3), this.requested);
+
+        this.page(1).complete(invoices());
+
+        assertTrue(result.join().isEmpty());
+        assertTrue(this.page(2).isCancelled());
+        assertTrue(this.page(3).isCancelled());
+        assertEquals(Arrays.asList("completed: 0"), this.events);
+    }
+
+    @Test
+    public void reportsPagesInOrderWhenTheyCompleteOutOfOrder()
+    {
+        InvoicePagePrefetcher prefetcher = this.prefetcher(3);
+        CompletableFuture<Map<String, Integer>> result = prefetcher.start();
+
+        this.page(3).complete(invoices(5));
+        this.page(2).complete(invoices(3, 4));
+        assertTrue(this.events.isEmpty());
+
+        this.page(1).complete(invoices(1, 2));
+        assertEquals(Arrays.asList("page 1: 2/2", "page 2: 2/4", "page 3: 1/5"), this.events);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), this.requested);
+        assertFalse(result.isDone());
+
+        this.page(4).complete(invoices());
+        assertEquals(5, result.join().size());
+        assertTrue(this.page(5).isCancelled());
+        assertTrue(this.page(6).isCancelled());
+    }
+
+    @Test
+    public void failsWithTheErrorOfAPrefetchedPage()
+    {
+        HarvestClientException failure = new HarvestClientException("Unavailable.");
+        InvoicePagePrefetcher prefetcher = this.prefetcher(3);
+        CompletableFuture<Map<String, Integer>> result = prefetcher.start();
+
+        this.page(2).completeExceptionally(failure);
+        assertFalse(result.isDone());
+
+        this.page(1).complete(invoices(1));
+        try
+        {
+            result.join();
+            fail("Expected HarvestClientException");
+        }
+        catch (CompletionException e)
+        {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue(this.page(3).isCancelled());
+        assertTrue(this.page(4).isCancelled());
+        assertEquals(Arrays.asList("page 1: 1/1"), this.events);
+    }
+
+    @Test
+    public void failsWhenAPageCannotBeRequested()
+    {
+        final IllegalStateException failure = new IllegalStateException("Closed.");
+        InvoicePagePrefetcher prefetcher = new InvoicePagePrefetcher(FROM, TO, 2, params -> {
+            throw failure;
+        }, null);
+
+        try
+        {
+            prefetcher.start().join();
+            fail("Expected IllegalStateException");
+        }
+        catch (CompletionException e)
+        {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroPagesInFlight()
+    {
+        new InvoicePagePrefetcher(FROM, TO, 0, params -> null, null);
+    }
+
+    private InvoicePagePrefetcher prefetcher(int pagesInFlight)
+    {
+        return new InvoicePagePrefetcher(FROM, TO, pagesInFlight, (GetRecentInvoicesParameters params) -> {
+            assertEquals(FROM, params.getFromDate());
+            assertEquals(TO, params.getToDate());
+            this.requested.add(params.getPage());
+            return this.page(params.getPage());
+        }, this.listener);
+    }
+
+    private CompletableFuture<InvoiceCollection> page(int page)
+    {
+        return this.pages.computeIfAbsent(page, p -> new CompletableFuture<InvoiceCollection>());
+    }
+
+    private static InvoiceCollection invoices(int... ids)
+    {
+        InvoiceCollection invoices = new InvoiceCollection();
+        for (int id : ids)
+        {
+            Invoice invoice = new Invoice();
+            invoice.setId(id * 10);
+            invoice.setNumber("INV-" + id);
+            invoices.getList().add(invoice);
+        }
+        return invoices;
+    }
+}
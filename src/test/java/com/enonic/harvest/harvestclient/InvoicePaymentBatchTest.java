@@ -0,0 +1,142 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import com.enonic.harvest.harvestclient.parameters.PostInvoicePaymentParameters;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InvoicePaymentBatchTest
+{
+    @Test
+    public void postsThousandsOfPaymentsThroughDirectExecutor()
+            throws Exception
+    {
+        List<PostInvoicePaymentParameters> payments = new ArrayList<PostInvoicePaymentParameters>();
+        for (int i = 0; i < 5000; i++)
+            payments.add(new PostInvoicePaymentParameters(i, "ref-" + i, BigDecimal.ONE));
+
+        final AtomicInteger sent = new AtomicInteger();
+        InvoicePaymentBatch batch = new InvoicePaymentBatch(payments, Collections.<String, Integer>emptyMap(), 4,
+                (invoiceId, body) -> CompletableFuture.supplyAsync(() -> sent.incrementAndGet() % 2, Runnable::run));
+
+        InvoicePaymentBatchResult result = batch.start().get(10, TimeUnit.SECONDS);
+
+        assertEquals(5000, sent.get());
+        assertEquals(5000, result.getPostedCount());
+        assertEquals(2500, result.getThrottleRetries());
+        assertEquals(Integer.valueOf(4999), result.getResults().get(4999).getInvoiceId());
+    }
+
+    @Test
+    public void recordsEveryOutcomeInPaymentOrder()
+    {
+        Map<String, Integer> invoiceIds = new HashMap<String, Integer>();
+        invoiceIds.put("INV-1", 10);
+        invoiceIds.put("INV-3", 30);
+        final HarvestClientException rejected = new HarvestClientException("Rejected.");
+        final IllegalStateException unsent = new IllegalStateException("Closed.");
+
+        List<PostInvoicePaymentParameters> payments = Arrays.asList(
+                new PostInvoicePaymentParameters("INV-1", "posted", BigDecimal.TEN),
+                new PostInvoicePaymentParameters("INV-2", "unresolved", BigDecimal.TEN),
+                new PostInvoicePaymentParameters("INV-3", "rejected", BigDecimal.TEN),
+                new PostInvoicePaymentParameters(40, "unsent", BigDecimal.TEN));
+
+        InvoicePaymentBatch batch = new InvoicePaymentBatch(payments, invoiceIds, 2, (invoiceId, body) -> {
+            CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+            switch (invoiceId)
+            {
+                case 10:
+                    assertTrue(body, body.contains("posted"));
+                    future.complete(2);
+                    break;
+                case 30:
+                    future.completeExceptionally(rejected);
+                    break;
+                default:
+                    throw unsent;
+            }
+            return future;
+        });
+
+        InvoicePaymentBatchResult result = batch.start().join();
+
+        assertEquals(1, result.getPostedCount());
+        assertEquals(1, result.getUnresolvedCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(2, result.getThrottleRetries());
+
+        InvoicePaymentResult posted = result.getResults().get(0);
+        assertEquals(InvoicePaymentResult.Status.POSTED, posted.getStatus());
+        assertEquals(Integer.valueOf(10), posted.getInvoiceId());
+        assertEquals(2, posted.getThrottleRetries());
+        assertNull(posted.getError());
+
+        InvoicePaymentResult unresolved = result.getResults().get(1);
+        assertEquals(InvoicePaymentResult.Status.UNRESOLVED, unresolved.getStatus());
+        assertSame(payments.get(1), unresolved.getPayment());
+        assertNull(unresolved.getInvoiceId());
+        assertEquals("Unable to find invoice number INV-2.", unresolved.getError().getMessage());
+
+        InvoicePaymentResult failed = result.getResults().get(2);
+        assertEquals(InvoicePaymentResult.Status.FAILED, failed.getStatus());
+        assertEquals(Integer.valueOf(30), failed.getInvoiceId());
+        assertSame(rejected, failed.getError());
+
+        assertEquals(InvoicePaymentResult.Status.FAILED, result.getResults().get(3).getStatus());
+        assertSame(unsent, result.getResults().get(3).getError());
+    }
+
+    @Test
+    public void keepsAtMostMaxInFlightPending()
+            throws Exception
+    {
+        List<PostInvoicePaymentParameters> payments = new ArrayList<PostInvoicePaymentParameters>();
+        for (int i = 0; i < 50; i++)
+            payments.add(new PostInvoicePaymentParameters(i, "ref-" + i, BigDecimal.ONE));
+
+        final BlockingQueue<CompletableFuture<Integer>> pending = new LinkedBlockingQueue<CompletableFuture<Integer>>();
+        InvoicePaymentBatch batch = new InvoicePaymentBatch(payments, Collections.<String, Integer>emptyMap(), 3, (invoiceId, body) -> {
+            CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+            pending.add(future);
+            return future;
+        });
+
+        CompletableFuture<InvoicePaymentBatchResult> result = batch.start();
+        for (int i = 0; i < 50; i++)
+        {
+            assertFalse(result.isDone());
+            assertTrue(pending.size() <= 3);
+            CompletableFuture<Integer> next = pending.poll(5, TimeUnit.SECONDS);
+            CompletableFuture.runAsync(() -> next.complete(0)).join();
+        }
+
+        assertEquals(50, result.get(5, TimeUnit.SECONDS).getPostedCount());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void completesEmptyBatch()
+    {
+        InvoicePaymentBatch batch = new InvoicePaymentBatch(Collections.<PostInvoicePaymentParameters>emptyList(),
+                Collections.<String, Integer>emptyMap(), 4, (invoiceId, body) -> {
+                    throw new AssertionError("Nothing to send");
+                });
+
+        assertTrue(batch.start().join().getResults().isEmpty());
+    }
+}
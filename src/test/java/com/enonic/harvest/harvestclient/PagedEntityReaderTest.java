@@ -0,0 +1,110 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.models.EntityReader;
+import com.enonic.harvest.harvestclient.models.Project;
+import com.enonic.harvest.harvestclient.models.ProjectCollection;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PagedEntityReaderTest
+{
+    private final Map<Integer, List<Integer>> pages = new HashMap<Integer, List<Integer>>();
+    private final List<Integer> opened = new ArrayList<Integer>();
+    private final List<TrackingStream> streams = new ArrayList<TrackingStream>();
+
+    @Test
+    public void readsPagesUntilTheFirstEmptyPage()
+    {
+        this.pages.put(1, Arrays.asList(1, 2));
+        this.pages.put(2, Arrays.asList(3));
+        this.pages.put(4, Arrays.asList(9));
+
+        assertEquals(Arrays.asList(1, 2, 3), ids(this.reader(1)));
+        assertEquals(Arrays.asList(1, 2, 3), this.opened);
+        for (TrackingStream stream : this.streams)
+            assertTrue(stream.closed);
+    }
+
+    @Test
+    public void startsAtTheGivenPage()
+    {
+        this.pages.put(1, Arrays.asList(1));
+        this.pages.put(2, Arrays.asList(2, 3));
+
+        assertEquals(Arrays.asList(2, 3), ids(this.reader(2)));
+        assertEquals(Arrays.asList(2, 3), this.opened);
+    }
+
+    @Test
+    public void readsNothingFromEmptyFirstPage()
+    {
+        PagedEntityReader<Project> reader = this.reader(1);
+
+        assertFalse(reader.hasNext());
+        assertFalse(reader.hasNext());
+        assertEquals(Arrays.asList(1), this.opened);
+    }
+
+    @Test
+    public void closeClosesTheCurrentPage()
+    {
+        this.pages.put(1, Arrays.asList(1, 2));
+        this.pages.put(2, Arrays.asList(3));
+        PagedEntityReader<Project> reader = this.reader(1);
+
+        assertEquals(Integer.valueOf(1), reader.next().getId());
+        reader.close();
+
+        assertFalse(reader.hasNext());
+        assertEquals(Arrays.asList(1), this.opened);
+        assertTrue(this.streams.get(0).closed);
+    }
+
+    private PagedEntityReader<Project> reader(int firstPage)
+    {
+        return new PagedEntityReader<Project>(page -> {
+            this.opened.add(page);
+            List<String> items = new ArrayList<String>();
+            for (Integer id : this.pages.getOrDefault(page, Collections.<Integer>emptyList()))
+                items.add(TestXml.item("project", "id", id, "name", "Project " + id));
+
+            TrackingStream stream = new TrackingStream(TestXml.collection("projects", items));
+            this.streams.add(stream);
+            return EntityReader.fromInputStream(stream, Project.class, "project", ProjectCollection.class);
+        }, firstPage);
+    }
+
+    private static List<Integer> ids(PagedEntityReader<Project> reader)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        while (reader.hasNext())
+            ids.add(reader.next().getId());
+        return ids;
+    }
+
+    private static class TrackingStream
+            extends ByteArrayInputStream
+    {
+        private boolean closed;
+
+        TrackingStream(byte[] bytes)
+        {
+            super(bytes);
+        }
+
+        @Override
+        public void close()
+        {
+            this.closed = true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.enonic.harvest.harvestclient;
+
+import com.enonic.harvest.harvestclient.exceptions.UnexpectedStatusException;
+import com.enonic.harvest.harvestclient.models.ProjectCollection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RequestCoalescerTest
+{
+    private static final int CALLERS = 8;
+
+    private TestServer server;
+    private DefaultHarvestClient client;
+    private ExecutorService callers;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.handle("/projects", exchange -> {
+            try
+            {
+                this.release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            TestServer.send(exchange, this.status.get(), TestXml.collection("projects", TestXml.item("project", "id", 1)));
+        });
+
+        HarvestClientConfig config = this.server.config();
+        config.setRequestCoalescing(true);
+        this.client = new DefaultHarvestClient("user", "password", "test", config);
+        this.callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.release.countDown();
+        this.callers.shutdownNow();
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void concurrentCallersShareOneRequestAndResult()
+            throws Exception
+    {
+        List<Future<ProjectCollection>> results = this.callConcurrently();
+
+        ProjectCollection first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<ProjectCollection> result : results)
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+
+        RequestCoalescer coalescer = this.client.getRequestCoalescer();
+        assertEquals(1, this.server.getRequestCount("/projects"));
+        assertEquals(1, coalescer.getRequestCount());
+        assertEquals(CALLERS - 1, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+
+        // The URL is forgotten once its request completes
+        assertNotSame(first, this.client.getProjects());
+        assertEquals(2, this.server.getRequestCount("/projects"));
+        assertEquals(2, coalescer.getRequestCount());
+        assertEquals(CALLERS - 1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void concurrentCallersShareTheFailure()
+            throws Exception
+    {
+        this.status.set(404);
+        List<Future<ProjectCollection>> results = this.callConcurrently();
+
+        Throwable first = null;
+        for (Future<ProjectCollection> result : results)
+        {
+            try
+            {
+                result.get(10, TimeUnit.SECONDS);
+                fail("Expected UnexpectedStatusException");
+            }
+            catch (ExecutionException e)
+            {
+                assertTrue(e.getCause() instanceof UnexpectedStatusException);
+                if (first == null)
+                    first = e.getCause();
+                assertSame(first, e.getCause());
+            }
+        }
+
+        assertEquals(1, this.server.getRequestCount("/projects"));
+        assertEquals(0, this.client.getRequestCoalescer().getInFlightCount());
+    }
+
+    @Test
+    public void asyncCallersShareOneRequest()
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CompletableFuture<String> request = new CompletableFuture<String>();
+
+        CompletableFuture<String> first = coalescer.callAsync("/projects", () -> request);
+        CompletableFuture<String> second = coalescer.callAsync("/projects", () -> {
+            throw new AssertionError("Sent twice");
+        });
+        CompletableFuture<String> other = coalescer.callAsync("/clients", () -> CompletableFuture.completedFuture("clients"));
+        assertEquals(1, coalescer.getInFlightCount());
+
+        second.cancel(false);
+        request.complete("projects");
+
+        assertEquals("projects", first.join());
+        assertEquals("clients", other.join());
+        assertEquals(2, coalescer.getRequestCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void asyncCallersShareTheFailure()
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CompletableFuture<String> request = new CompletableFuture<String>();
+        IllegalStateException failure = new IllegalStateException("Unavailable.");
+
+        CompletableFuture<String> first = coalescer.callAsync("/projects", () -> request);
+        CompletableFuture<String> second = coalescer.callAsync("/projects", () -> request);
+        request.completeExceptionally(failure);
+
+        for (CompletableFuture<String> result : Arrays.asList(first, second))
+        {
+            try
+            {
+                result.join();
+                fail("Expected IllegalStateException");
+            }
+            catch (RuntimeException e)
+            {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    /**
+     * Starts every caller and releases the response once all but the first are waiting on its request.
+     */
+    private List<Future<ProjectCollection>> callConcurrently()
+            throws InterruptedException
+    {
+        List<Future<ProjectCollection>> results = new ArrayList<Future<ProjectCollection>>();
+        for (int i = 0; i < CALLERS; i++)
+            results.add(this.callers.submit(() -> this.client.getProjects()));
+
+        RequestCoalescer coalescer = this.client.getRequestCoalescer();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (coalescer.getCoalescedCount() < CALLERS - 1 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+
+        this.release.countDown();
+        return results;
+    }
+}
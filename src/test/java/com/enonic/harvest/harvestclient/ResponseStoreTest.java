@@ -0,0 +1,34 @@
+package com.enonic.harvest.harvestclient;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResponseStoreTest
+{
+    @Test
+    public void dropsLeastRecentlyUsedUrlWhenFull()
+    {
+        ResponseStore store = new ResponseStore(2);
+        store.put("/a", "\"a\"", null, "A", false);
+        store.put("/b", "\"b\"", null, "B", false);
+        store.get("/a");
+        store.put("/c", "\"c\"", null, "C", false);
+
+        assertEquals(2, store.size());
+        assertEquals("A", store.get("/a").value);
+        assertNull(store.get("/b"));
+        assertEquals("\"c\"", store.get("/c").etag);
+    }
+
+    @Test
+    public void doesNotKeepResponsesWithoutValidators()
+    {
+        ResponseStore store = new ResponseStore(2);
+        store.put("/a", "\"a\"", null, "A", false);
+        store.put("/a", null, null, "A2", true);
+
+        assertNull(store.get("/a"));
+        assertEquals(1, store.getModifiedCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.enonic.harvest.harvestclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process HTTP server standing in for Harvest. Handlers are registered by path prefix, and
+ * requests are counted by the prefix that served them.
+ */
+public class TestServer
+        implements AutoCloseable
+{
+    static
+    {
+        // Without it the server's separate header and body writes wait on delayed acks, ~40 ms a request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+    public TestServer()
+            throws IOException
+    {
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "test-http-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    public void respond(String path, int status, byte[] body)
+    {
+        this.handle(path, exchange -> send(exchange, status, body));
+    }
+
+    public void handle(final String path, final HttpHandler handler)
+    {
+        final AtomicInteger count = new AtomicInteger();
+        this.requestCounts.put(path, count);
+        this.server.createContext(path, exchange -> {
+            count.incrementAndGet();
+            try
+            {
+                handler.handle(exchange);
+            }
+            finally
+            {
+                exchange.close();
+            }
+        });
+    }
+
+    public int getRequestCount(String path)
+    {
+        AtomicInteger count = this.requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * @return a config sending requests to this server, without rate limiting or retry delays
+     */
+    public HarvestClientConfig config()
+    {
+        HarvestClientConfig config = new HarvestClientConfig();
+        config.setBaseUrl("http://127.0.0.1:" + this.server.getAddress().getPort());
+        config.setRequestsPerPeriod(0);
+        config.setRetryInitialDelay(1);
+        config.setRetryMaxDelay(1);
+        config.setDefaultRetryAfter(1);
+        return config;
+    }
+
+    @Override
+    public void close()
+    {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    public static void send(HttpExchange exchange, int status, byte[] body)
+            throws IOException
+    {
+        try (InputStream request = exchange.getRequestBody())
+        {
+            while (request.read() != -1)
+            {
+                // Drain the request so the connection can be reused
+            }
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0)
+        {
+            try (OutputStream response = exchange.getResponseBody())
+            {
+                response.write(body);
+            }
+        }
+    }
+}
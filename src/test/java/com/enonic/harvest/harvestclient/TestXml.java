@@ -0,0 +1,50 @@
+package com.enonic.harvest.harvestclient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds Harvest-shaped XML responses for tests.
+ */
+public final class TestXml
+{
+    private TestXml()
+    {
+    }
+
+    /**
+     * @param fields element names and their text, alternating
+     */
+    public static String item(String name, Object... fields)
+    {
+        StringBuilder xml = new StringBuilder();
+        xml.append('<').append(name).append('>');
+        for (int i = 0; i < fields.length; i += 2)
+            xml.append('<').append(fields[i]).append('>').append(escape(String.valueOf(fields[i + 1]))).append("</").append(fields[i]).append('>');
+        return xml.append("</").append(name).append('>').toString();
+    }
+
+    public static byte[] single(String item)
+    {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + item).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] collection(String root, Iterable<String> items)
+    {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append('<').append(root).append(" type=\"array\">");
+        for (String item : items)
+            xml.append(item);
+        return xml.append("</").append(root).append('>').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] collection(String root, String... items)
+    {
+        return collection(root, Arrays.asList(items));
+    }
+
+    private static String escape(String text)
+    {
+        return text.replace("&", "&amp;").replace("<", "&lt;");
+    }
+}
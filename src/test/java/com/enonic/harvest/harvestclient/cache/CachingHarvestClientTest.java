@@ -0,0 +1,78 @@
+package com.enonic.harvest.harvestclient.cache;
+
+import com.enonic.harvest.harvestclient.DefaultHarvestClient;
+import com.enonic.harvest.harvestclient.TestServer;
+import com.enonic.harvest.harvestclient.TestXml;
+import com.enonic.harvest.harvestclient.models.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachingHarvestClientTest
+{
+    private TestServer server;
+    private CachingHarvestClient client;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.handle("/people", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = path.equals("/people")
+                    ? TestXml.collection("users", TestXml.item("user", "id", 1), TestXml.item("user", "id", 2), TestXml.item("user", "id", 3))
+                    : TestXml.single(TestXml.item("user", "id", path.substring("/people/".length())));
+            TestServer.send(exchange, 200, body);
+        });
+
+        HarvestCacheConfig config = new HarvestCacheConfig();
+        config.setMaximumSize(2);
+        this.client = new CachingHarvestClient(new DefaultHarvestClient("user", "password", "test", this.server.config()), config);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void servesRepeatedLookupsFromCache()
+    {
+        User user = this.client.getUser(7);
+
+        assertSame(user, this.client.getUser(7));
+        assertEquals(1, this.server.getRequestCount("/people"));
+        assertEquals(1, this.client.getUserCache().getHitCount());
+        assertEquals(1, this.client.getUserCache().getMissCount());
+    }
+
+    @Test
+    public void cachesListedEntitiesWithinMaximumSize()
+    {
+        assertEquals(3, this.client.getUsers().getList().size());
+        assertEquals(2, this.client.getUserCache().size());
+        assertEquals(1, this.client.getUserCache().getEvictionCount());
+
+        this.client.getUser(3);
+        assertEquals(1, this.server.getRequestCount("/people"));
+
+        // The first listed user was evicted and is fetched again
+        this.client.getUser(1);
+        assertEquals(2, this.server.getRequestCount("/people"));
+    }
+
+    @Test
+    public void fetchesAgainAfterInvalidation()
+    {
+        this.client.getUser(7);
+        this.client.invalidateAll();
+        this.client.getUser(7);
+
+        assertEquals(2, this.server.getRequestCount("/people"));
+    }
+}
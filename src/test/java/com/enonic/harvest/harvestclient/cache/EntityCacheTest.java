@@ -0,0 +1,119 @@
+package com.enonic.harvest.harvestclient.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class EntityCacheTest
+{
+    private final AtomicLong now = new AtomicLong(1000);
+
+    @Test
+    public void countsHitsAndMisses()
+    {
+        EntityCache<String> cache = new EntityCache<String>(0, 10, this.now::get);
+
+        assertNull(cache.get(1));
+        cache.put(1, "one");
+        assertEquals("one", cache.get(1));
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(0, cache.getExpirationCount());
+    }
+
+    @Test
+    public void expiresEntriesAfterTtl()
+    {
+        EntityCache<String> cache = new EntityCache<String>(100, 10, this.now::get);
+        cache.put(1, "one");
+
+        this.advance(100);
+        assertEquals("one", cache.get(1));
+
+        this.advance(1);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void putRestartsTtl()
+    {
+        EntityCache<String> cache = new EntityCache<String>(100, 10, this.now::get);
+        cache.put(1, "one");
+
+        this.advance(80);
+        cache.put(1, "uno");
+        this.advance(80);
+
+        assertEquals("uno", cache.get(1));
+    }
+
+    @Test
+    public void neverExpiresWithZeroTtl()
+    {
+        EntityCache<String> cache = new EntityCache<String>(0, 10, this.now::get);
+        cache.put(1, "one");
+
+        this.advance(TimeUnit.DAYS.toMillis(365));
+
+        assertEquals("one", cache.get(1));
+        assertEquals(0, cache.getExpirationCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBeyondMaximumSize()
+    {
+        EntityCache<String> cache = new EntityCache<String>(0, 3, this.now::get);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+
+        // Reading 1 makes 2 the least recently used
+        assertEquals("one", cache.get(1));
+        cache.put(4, "four");
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(2));
+        assertEquals("one", cache.get(1));
+        assertEquals("three", cache.get(3));
+        assertEquals("four", cache.get(4));
+    }
+
+    @Test
+    public void ignoresNullValuesAndInvalidates()
+    {
+        EntityCache<String> cache = new EntityCache<String>(0, 10, this.now::get);
+        cache.put(1, null);
+        cache.put(2, "two");
+        cache.put(3, "three");
+        assertEquals(2, cache.size());
+
+        cache.invalidate(2);
+        assertNull(cache.get(2));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroMaximumSize()
+    {
+        new EntityCache<String>(0, 0);
+    }
+
+    private void advance(long millis)
+    {
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
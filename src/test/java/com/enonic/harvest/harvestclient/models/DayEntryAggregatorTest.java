@@ -0,0 +1,285 @@
+package com.enonic.harvest.harvestclient.models;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class DayEntryAggregatorTest
+{
+    private static final DayEntryAggregator.GroupBy PROJECT = DayEntryAggregator.GroupBy.PROJECT;
+    private static final DayEntryAggregator.GroupBy TASK = DayEntryAggregator.GroupBy.TASK;
+    private static final DayEntryAggregator.GroupBy USER = DayEntryAggregator.GroupBy.USER;
+    private static final DayEntryAggregator.GroupBy DAY = DayEntryAggregator.GroupBy.DAY;
+    private static final DayEntryAggregator.GroupBy WEEK = DayEntryAggregator.GroupBy.WEEK;
+    private static final DayEntryAggregator.GroupBy MONTH = DayEntryAggregator.GroupBy.MONTH;
+
+    @Test
+    public void sumsHoursByProject()
+    {
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        entries.add(dayEntry(1, 10, 100, date(2014, 3, 12), "2.5", true));
+        entries.add(dayEntry(2, 10, 100, date(2014, 3, 13), "1.25", false));
+        entries.add(dayEntry(3, 10, 101, date(2014, 3, 14), "4", false));
+        entries.add(dayEntry(4, 20, 100, date(2014, 3, 14), "0.5", true));
+
+        Map<DayEntryGroup, HoursSummary> groups = new DayEntryAggregator(PROJECT).aggregate(entries);
+
+        assertEquals(2, groups.size());
+        HoursSummary project10 = groups.get(new DayEntryGroup(10, null, null, null));
+        assertEquals(3, project10.getCount());
+        assertEquals(1, project10.getBilledCount());
+        assertEquals(2, project10.getUnbilledCount());
+        assertHours("7.75", project10.getHours());
+        assertHours("2.5", project10.getBilledHours());
+        assertHours("5.25", project10.getUnbilledHours());
+        assertHours("1.25", project10.getMinHours());
+        assertHours("4", project10.getMaxHours());
+
+        HoursSummary project20 = groups.get(new DayEntryGroup(20, null, null, null));
+        assertEquals(1, project20.getCount());
+        assertHours("0.5", project20.getBilledHours());
+    }
+
+    @Test
+    public void groupsByPeriodInDefaultTimeZone()
+    {
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        // Wednesday, Sunday and the following Monday
+        entries.add(dayEntry(1, 10, 100, date(2014, 3, 12), "1", false));
+        entries.add(dayEntry(2, 10, 100, date(2014, 3, 16), "2", false));
+        entries.add(dayEntry(3, 10, 100, date(2014, 3, 17), "3", false));
+        entries.add(dayEntry(4, 10, 100, date(2014, 4, 1), "4", false));
+
+        Map<DayEntryGroup, HoursSummary> weeks = new DayEntryAggregator(WEEK).aggregate(entries);
+        assertHours("3", weeks.get(new DayEntryGroup(null, null, null, LocalDate.of(2014, 3, 10))).getHours());
+        assertHours("3", weeks.get(new DayEntryGroup(null, null, null, LocalDate.of(2014, 3, 17))).getHours());
+        assertHours("4", weeks.get(new DayEntryGroup(null, null, null, LocalDate.of(2014, 3, 31))).getHours());
+
+        Map<DayEntryGroup, HoursSummary> months = new DayEntryAggregator(MONTH).aggregate(entries);
+        assertEquals(2, months.size());
+        assertHours("6", months.get(new DayEntryGroup(null, null, null, LocalDate.of(2014, 3, 1))).getHours());
+        assertHours("4", months.get(new DayEntryGroup(null, null, null, LocalDate.of(2014, 4, 1))).getHours());
+
+        Map<DayEntryGroup, HoursSummary> days = new DayEntryAggregator(DAY).aggregate(entries);
+        assertEquals(4, days.size());
+        assertEquals(LocalDate.of(2014, 3, 12), days.keySet().iterator().next().getPeriod());
+    }
+
+    @Test
+    public void ordersGroupsWithAbsentValuesFirst()
+    {
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        entries.add(dayEntry(1, 20, 100, date(2014, 3, 12), "1", false));
+        entries.add(dayEntry(2, null, 100, date(2014, 3, 12), null, false));
+        entries.add(dayEntry(3, 10, 100, date(2014, 3, 12), "2", false));
+
+        Map<DayEntryGroup, HoursSummary> groups = new DayEntryAggregator(PROJECT).aggregate(entries);
+
+        List<Integer> projects = new ArrayList<Integer>();
+        for (DayEntryGroup group : groups.keySet())
+            projects.add(group.getProjectId());
+        assertEquals(Arrays.asList(null, 10, 20), projects);
+
+        HoursSummary absent = groups.get(new DayEntryGroup(null, null, null, null));
+        assertEquals(1, absent.getCount());
+        assertHours("0", absent.getHours());
+        assertNull(absent.getMinHours());
+        assertNull(absent.getMaxHours());
+    }
+
+    @Test
+    public void sumsHoursOfAnyScaleExactly()
+    {
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        entries.add(dayEntry(1, 10, 100, date(2014, 3, 12), "0.333", false));
+        entries.add(dayEntry(2, 10, 100, date(2014, 3, 12), "1E+1", false));
+        entries.add(dayEntry(3, 10, 100, date(2014, 3, 12), "2.5E+2", true));
+        entries.add(dayEntry(4, 10, 100, date(2014, 3, 12), "0.1234567891", false));
+
+        HoursSummary summary = new DayEntryAggregator().aggregate(entries).values().iterator().next();
+
+        assertHours("260.456456789", summary.getHours());
+        assertHours("250", summary.getBilledHours());
+        assertHours("0.123456789", summary.getMinHours());
+        assertHours("250", summary.getMaxHours());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void rejectsHoursOverflowingLong()
+    {
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        entries.add(dayEntry(1, 10, 100, date(2014, 3, 12), "0.5", false));
+        entries.add(dayEntry(2, 10, 100, date(2014, 3, 12), "12345678901234567890", false));
+
+        new DayEntryAggregator().aggregate(entries);
+    }
+
+    @Test
+    public void matchesReferenceSumsInParallelAndSequentially()
+    {
+        List<DayEntry> entries = randomEntries(20000, 40, 2014);
+        DayEntryAggregator.GroupBy[][] groupings = {
+                {PROJECT}, {PROJECT, MONTH}, {USER, WEEK}, {TASK, DAY}, {PROJECT, TASK, USER}, {}};
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (DayEntryAggregator.GroupBy[] groupBy : groupings)
+            {
+                Map<DayEntryGroup, Reference> expected = reference(entries, groupBy);
+
+                DayEntryAggregator sequential = new DayEntryAggregator(groupBy);
+                assertMatches(expected, sequential.aggregate(entries));
+
+                DayEntryAggregator parallel = new DayEntryAggregator(groupBy);
+                parallel.setPool(pool);
+                parallel.setSequentialThreshold(997);
+                assertMatches(expected, parallel.aggregate(entries));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void matchesReferenceSumsForWideIdRanges()
+    {
+        // Ids spread over a billion values do not fit a dense layout, so groups are hashed
+        List<DayEntry> entries = randomEntries(5000, 1000000000, 2014);
+        DayEntryAggregator.GroupBy[] groupBy = {PROJECT, USER};
+
+        DayEntryAggregator aggregator = new DayEntryAggregator(groupBy);
+        aggregator.setSequentialThreshold(500);
+        assertMatches(reference(entries, groupBy), aggregator.aggregate(entries));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTwoPeriods()
+    {
+        new DayEntryAggregator(PROJECT, WEEK, MONTH);
+    }
+
+    private static List<DayEntry> randomEntries(int count, int idRange, int year)
+    {
+        Random random = new Random(42);
+        List<DayEntry> entries = new ArrayList<DayEntry>();
+        for (int i = 0; i < count; i++)
+        {
+            Integer projectId = random.nextInt(50) == 0 ? null : 1 + random.nextInt(idRange);
+            String hours = random.nextInt(100) == 0 ? null : BigDecimal.valueOf(random.nextInt(1000), random.nextInt(3)).toPlainString();
+            DayEntry dayEntry = dayEntry(i, projectId, 1 + random.nextInt(idRange), date(year, 1 + random.nextInt(12), 1 + random.nextInt(28)), hours, random.nextBoolean());
+            dayEntry.setTaskId(1 + random.nextInt(Math.min(idRange, 15)));
+            entries.add(dayEntry);
+        }
+        return entries;
+    }
+
+    private static Map<DayEntryGroup, Reference> reference(List<DayEntry> entries, DayEntryAggregator.GroupBy[] groupBy)
+    {
+        Map<DayEntryGroup, Reference> groups = new HashMap<DayEntryGroup, Reference>();
+        for (DayEntry dayEntry : entries)
+        {
+            Integer projectId = null;
+            Integer taskId = null;
+            Integer userId = null;
+            LocalDate period = null;
+            LocalDate day = dayEntry.getSpentAt().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            for (DayEntryAggregator.GroupBy dimension : groupBy)
+            {
+                switch (dimension)
+                {
+                    case PROJECT: projectId = dayEntry.getProjectId(); break;
+                    case TASK: taskId = dayEntry.getTaskId(); break;
+                    case USER: userId = dayEntry.getUserId(); break;
+                    case DAY: period = day; break;
+                    case WEEK: period = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)); break;
+                    case MONTH: period = day.withDayOfMonth(1); break;
+                }
+            }
+
+            Reference reference = groups.computeIfAbsent(new DayEntryGroup(projectId, taskId, userId, period), k -> new Reference());
+            reference.count++;
+            if (dayEntry.isBilled())
+                reference.billedCount++;
+            BigDecimal hours = dayEntry.getHours();
+            if (hours != null)
+            {
+                reference.hours = reference.hours.add(hours);
+                if (dayEntry.isBilled())
+                    reference.billedHours = reference.billedHours.add(hours);
+                reference.min = reference.min == null || hours.compareTo(reference.min) < 0 ? hours : reference.min;
+                reference.max = reference.max == null || hours.compareTo(reference.max) > 0 ? hours : reference.max;
+            }
+        }
+        return groups;
+    }
+
+    private static void assertMatches(Map<DayEntryGroup, Reference> expected, Map<DayEntryGroup, HoursSummary> actual)
+    {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<DayEntryGroup, HoursSummary> group : actual.entrySet())
+        {
+            Reference reference = expected.get(group.getKey());
+            HoursSummary summary = group.getValue();
+            String message = group.getKey().toString();
+            assertEquals(message, reference.count, summary.getCount());
+            assertEquals(message, reference.billedCount, summary.getBilledCount());
+            assertEquals(message, 0, reference.hours.compareTo(summary.getHours()));
+            assertEquals(message, 0, reference.billedHours.compareTo(summary.getBilledHours()));
+            assertEquals(message, reference.min == null, summary.getMinHours() == null);
+            if (reference.min != null)
+            {
+                assertEquals(message, 0, reference.min.compareTo(summary.getMinHours()));
+                assertEquals(message, 0, reference.max.compareTo(summary.getMaxHours()));
+            }
+        }
+    }
+
+    private static void assertHours(String expected, BigDecimal actual)
+    {
+        assertEquals(expected + " vs " + actual, 0, new BigDecimal(expected).compareTo(actual));
+    }
+
+    private static Date date(int year, int month, int day)
+    {
+        return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static DayEntry dayEntry(int id, Integer projectId, int userId, Date spentAt, String hours, boolean billed)
+    {
+        DayEntry dayEntry = new DayEntry();
+        dayEntry.setId(id);
+        dayEntry.setProjectId(projectId);
+        dayEntry.setUserId(userId);
+        dayEntry.setSpentAt(spentAt);
+        dayEntry.setHours(hours != null ? new BigDecimal(hours) : null);
+        dayEntry.setBilled(billed);
+        return dayEntry;
+    }
+
+    private static final class Reference
+    {
+        long count;
+        long billedCount;
+        BigDecimal hours = BigDecimal.ZERO;
+        BigDecimal billedHours = BigDecimal.ZERO;
+        BigDecimal min;
+        BigDecimal max;
+    }
+}
@@ -0,0 +1,169 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.TestXml;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DayEntryTableTest
+{
+    @Test
+    public void readsSameValuesAsDayEntryCollection()
+    {
+        byte[] xml = dayEntries(1, 40);
+
+        DayEntryTable table = DayEntryTable.fromInputStream(new ByteArrayInputStream(xml));
+        List<DayEntry> entries = DayEntryCollection.fromInputStream(new ByteArrayInputStream(xml)).getList();
+
+        assertEquals(entries.size(), table.size());
+        for (int row = 0; row < table.size(); row++)
+        {
+            DayEntry expected = entries.get(row);
+            assertSameDayEntry(expected, table.row(row).toDayEntry());
+            assertEquals(expected.getId().intValue(), table.getId(row));
+            assertEquals(expected.getProjectId().intValue(), table.getProjectId(row));
+            assertEquals(expected.getSpentAt().getTime(), table.getSpentAtMillis(row));
+            assertEquals(expected.getHours().doubleValue(), table.getHoursAsDouble(row), 0);
+            assertEquals(expected.isBilled(), table.isBilled(row));
+            assertEquals(expected.getSpentAtLocalDate(), table.row(row).getSpentAtLocalDate());
+            assertEquals(expected.getUpdatedAtInstant(), table.row(row).getUpdatedAtInstant());
+        }
+    }
+
+    @Test
+    public void appendsPages()
+    {
+        DayEntryTable table = DayEntryTable.fromInputStream(new ByteArrayInputStream(dayEntries(1, 20)));
+        assertSame(table, table.append(new ByteArrayInputStream(dayEntries(21, 40))));
+
+        assertEquals(40, table.size());
+        int expectedId = 1;
+        for (DayEntryTable.Row row : table)
+            assertEquals(Integer.valueOf(expectedId++), row.getId());
+    }
+
+    @Test
+    public void storesAbsentValues()
+    {
+        DayEntryTable table = new DayEntryTable();
+        table.add(new DayEntry());
+
+        assertEquals(DayEntryTable.NO_ID, table.getId(0));
+        assertEquals(DayEntryTable.NO_ID, table.getProjectId(0));
+        assertEquals(DayEntryTable.NO_TIME, table.getSpentAtMillis(0));
+        assertTrue(Double.isNaN(table.getHoursAsDouble(0)));
+        assertNull(table.getHours(0));
+        assertNull(table.getNotes(0));
+
+        DayEntryTable.Row row = table.row(0);
+        assertNull(row.getId());
+        assertNull(row.getTaskId());
+        assertNull(row.getSpentAt());
+        assertNull(row.getSpentAtLocalDate());
+        assertNull(row.getUpdatedAtInstant());
+        assertSameDayEntry(new DayEntry(), row.toDayEntry());
+    }
+
+    @Test
+    public void keepsHoursExactAtAnyScale()
+    {
+        String[] values = {"2.75", "8", "0.333333", "1E+2", "-1.5", "12345678901234567890.5", "1E-200"};
+        DayEntryTable table = new DayEntryTable();
+        for (String value : values)
+            table.add(dayEntry(1, value, null));
+
+        for (int row = 0; row < values.length; row++)
+        {
+            BigDecimal expected = new BigDecimal(values[row]);
+            assertEquals(values[row], expected, table.getHours(row));
+            assertEquals(values[row], expected.doubleValue(), table.getHoursAsDouble(row), 0);
+        }
+    }
+
+    @Test
+    public void storesEachDistinctNoteOnce()
+    {
+        DayEntryTable table = new DayEntryTable();
+        for (int i = 0; i < 30; i++)
+            table.add(dayEntry(i, "1", i % 3 == 0 ? null : "Note " + (i % 4)));
+
+        assertEquals(4, table.getDistinctNotesCount());
+        assertNull(table.getNotes(0));
+        assertEquals("Note 1", table.getNotes(1));
+        assertSame(table.getNotes(1), table.getNotes(5));
+    }
+
+    @Test
+    public void growsAndTrimsColumns()
+    {
+        DayEntryTable table = new DayEntryTable(1);
+        for (int i = 0; i < 100; i++)
+            table.add(dayEntry(i, "1." + i, null));
+        table.trimToSize();
+
+        assertEquals(100, table.size());
+        assertEquals(99, table.getId(99));
+        assertEquals(new BigDecimal("1.99"), table.getHours(99));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsRowsPastSize()
+    {
+        DayEntryTable table = new DayEntryTable(16);
+        table.add(dayEntry(1, "1", null));
+
+        table.getId(1);
+    }
+
+    private static DayEntry dayEntry(int id, String hours, String notes)
+    {
+        DayEntry dayEntry = new DayEntry();
+        dayEntry.setId(id);
+        dayEntry.setHours(new BigDecimal(hours));
+        dayEntry.setNotes(notes);
+        dayEntry.setSpentAt(new Date(1394582400000L));
+        return dayEntry;
+    }
+
+    private static byte[] dayEntries(int firstId, int lastId)
+    {
+        List<String> items = new ArrayList<String>();
+        for (int id = firstId; id <= lastId; id++)
+        {
+            items.add(TestXml.item("day-entry",
+                    "id", id,
+                    "hours", (id % 16) * 0.5 + 0.25,
+                    "notes", "Ticket #" + (id % 5) + " & review",
+                    "project-id", 1000 + id % 7,
+                    "spent-at", String.format("2014-%02d-%02d", 1 + id % 12, 1 + id % 28),
+                    "task-id", 2000 + id % 3,
+                    "user-id", 3000 + id % 4,
+                    "is-billed", id % 3 == 0,
+                    "is-closed", id % 5 == 0,
+                    "updated-at", "2014-03-12T09:41:27Z",
+                    "created-at", "2014-03-12T08:00:00Z"));
+        }
+        return TestXml.collection("day-entries", items);
+    }
+
+    private static void assertSameDayEntry(DayEntry expected, DayEntry actual)
+    {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getHours(), actual.getHours());
+        assertEquals(expected.getNotes(), actual.getNotes());
+        assertEquals(expected.getProjectId(), actual.getProjectId());
+        assertEquals(expected.getSpentAt(), actual.getSpentAt());
+        assertEquals(expected.getTaskId(), actual.getTaskId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.isBilled(), actual.isBilled());
+        assertEquals(expected.isClosed(), actual.isClosed());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+    }
+}
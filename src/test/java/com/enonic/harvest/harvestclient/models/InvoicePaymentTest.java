@@ -0,0 +1,40 @@
+package com.enonic.harvest.harvestclient.models;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+public class InvoicePaymentTest
+{
+    @Test
+    public void formatsPaidAtWithCalendarYearAroundNewYear()
+    {
+        // 29 December 2014 falls in the first week of week-year 2015
+        assertTrue(paidAt(2014, Calendar.DECEMBER, 29).startsWith("2014-12-29T10:30:00"));
+        assertTrue(paidAt(2016, Calendar.JANUARY, 1).startsWith("2016-01-01T10:30:00"));
+    }
+
+    @Test
+    public void marshalsPaidAt()
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2014, Calendar.DECEMBER, 30, 10, 30);
+        InvoicePayment payment = new InvoicePayment();
+        payment.setPaidAt(calendar.getTime());
+
+        assertTrue(InvoicePayment.marshal(payment).contains("<paid-at>2014-12-30T10:30:00"));
+    }
+
+    private static String paidAt(int year, int month, int day)
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 10, 30);
+        InvoicePayment payment = new InvoicePayment();
+        payment.setPaidAt(calendar.getTime());
+        return payment.getPaidAt();
+    }
+}
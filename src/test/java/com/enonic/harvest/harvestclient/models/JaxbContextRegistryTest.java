@@ -0,0 +1,45 @@
+package com.enonic.harvest.harvestclient.models;
+
+import com.enonic.harvest.harvestclient.TestXml;
+import com.enonic.harvest.harvestclient.exceptions.HarvestClientException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class JaxbContextRegistryTest
+{
+    @Test
+    public void unmarshalsRootElement()
+    {
+        User user = User.fromInputStream(new ByteArrayInputStream(TestXml.single(TestXml.item("user", "id", 7, "email", "user@example.com"))));
+
+        assertEquals(Integer.valueOf(7), user.getId());
+        assertEquals("user@example.com", user.getEmail());
+    }
+
+    @Test
+    public void unmarshalsTypeWithoutRootElement()
+    {
+        InvoiceMessage message = InvoiceMessage.fromInputStream(new ByteArrayInputStream(TestXml.single(TestXml.item("invoice-message", "id", 3, "body", "Hello"))));
+
+        assertEquals(Integer.valueOf(3), message.getId());
+        assertEquals("Hello", message.getBody());
+    }
+
+    @Test
+    public void reportsParseErrorWithType()
+    {
+        try
+        {
+            Task.fromInputStream(new ByteArrayInputStream("<task>".getBytes(StandardCharsets.UTF_8)));
+            fail("Expected HarvestClientException");
+        }
+        catch (HarvestClientException e)
+        {
+            assertEquals("Unable to parse XML into Task.", e.getMessage());
+        }
+    }
+}
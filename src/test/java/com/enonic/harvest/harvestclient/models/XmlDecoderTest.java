@@ -0,0 +1,224 @@
+package com.enonic.harvest.harvestclient.models;
+
+import org.junit.Test;
+
+import javax.xml.bind.Unmarshaller;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the hand-written decoders set every field to the value JAXB gives it, for responses
+ * shaped like Harvest's: typed and nil attributes, empty elements, entities, unknown elements and
+ * whitespace between elements.
+ */
+public class XmlDecoderTest
+{
+    private static final String DAY_ENTRIES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<day-entries type=\"array\">\n"
+            + "  <day-entry>\n"
+            + "    <id type=\"integer\">195168</id>\n"
+            + "    <hours type=\"float\">2.75</hours>\n"
+            + "    <notes>Fixed &lt;b&gt; tags &amp; reviewed #42</notes>\n"
+            + "    <project-id type=\"integer\">1001</project-id>\n"
+            + "    <spent-at type=\"date\">2014-03-12</spent-at>\n"
+            + "    <task-id type=\"integer\">2001</task-id>\n"
+            + "    <user-id type=\"integer\">3001</user-id>\n"
+            + "    <is-billed type=\"boolean\">true</is-billed>\n"
+            + "    <is-closed type=\"boolean\">false</is-closed>\n"
+            + "    <timer-started-at type=\"datetime\" nil=\"true\"></timer-started-at>\n"
+            + "    <updated-at type=\"datetime\">2014-03-12T09:41:27Z</updated-at>\n"
+            + "    <created-at type=\"datetime\">2014-03-12T08:00:00Z</created-at>\n"
+            + "  </day-entry>\n"
+            + "  <day-entry>\n"
+            + "    <id type=\"integer\">195169</id>\n"
+            + "    <hours type=\"float\">0.0</hours>\n"
+            + "    <notes nil=\"true\"></notes>\n"
+            + "    <project-id type=\"integer\">1002</project-id>\n"
+            + "    <spent-at type=\"date\">2014-12-31</spent-at>\n"
+            + "    <task-id type=\"integer\">2002</task-id>\n"
+            + "    <user-id type=\"integer\">3002</user-id>\n"
+            + "    <is-billed type=\"boolean\">false</is-billed>\n"
+            + "    <is-closed type=\"boolean\">true</is-closed>\n"
+            + "    <adjustment-record type=\"boolean\">false</adjustment-record>\n"
+            + "    <updated-at type=\"datetime\">2014-12-31T23:59:59Z</updated-at>\n"
+            + "    <created-at type=\"datetime\">2014-12-31T23:00:00Z</created-at>\n"
+            + "  </day-entry>\n"
+            + "  <day-entry>\n"
+            + "    <id type=\"integer\">195170</id>\n"
+            + "    <hours type=\"float\"> 8.0 </hours>\n"
+            + "    <notes/>\n"
+            + "    <spent-at type=\"date\">2014-01-01</spent-at>\n"
+            + "  </day-entry>\n"
+            + "</day-entries>\n";
+
+    private static final String PROJECTS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<projects type=\"array\">\n"
+            + "  <project>\n"
+            + "    <id type=\"integer\">1001</id>\n"
+            + "    <name>Website &amp; app</name>\n"
+            + "    <client-id type=\"integer\">101</client-id>\n"
+            + "    <code>WEB</code>\n"
+            + "    <active type=\"boolean\">true</active>\n"
+            + "    <notes>Phase one\nPhase two</notes>\n"
+            + "    <billable type=\"boolean\">true</billable>\n"
+            + "    <bill-by>Project</bill-by>\n"
+            + "    <hourly-rate type=\"decimal\">1150.0</hourly-rate>\n"
+            + "    <budget-by>project</budget-by>\n"
+            + "    <budget type=\"decimal\">400.0</budget>\n"
+            + "    <cost-budget type=\"decimal\">80000.0</cost-budget>\n"
+            + "    <cost-budget-include-expenses type=\"boolean\">false</cost-budget-include-expenses>\n"
+            + "    <notify-when-over-budget type=\"boolean\">true</notify-when-over-budget>\n"
+            + "    <over-budget-notification-percentage type=\"decimal\">80.0</over-budget-notification-percentage>\n"
+            + "    <over-budget-notified-at type=\"date\">2014-03-01</over-budget-notified-at>\n"
+            + "    <show-budget-to-all type=\"boolean\">false</show-budget-to-all>\n"
+            + "    <hint-earliest-record-at type=\"date\">2013-01-02</hint-earliest-record-at>\n"
+            + "    <hint-latest-record-at type=\"date\">2014-03-11</hint-latest-record-at>\n"
+            + "    <estimate-by>none</estimate-by>\n"
+            + "    <updated-at type=\"datetime\">2014-03-12T09:41:27Z</updated-at>\n"
+            + "    <created-at type=\"datetime\">2013-01-02T10:00:00Z</created-at>\n"
+            + "  </project>\n"
+            + "  <project>\n"
+            + "    <id type=\"integer\">1002</id>\n"
+            + "    <name>Internal</name>\n"
+            + "    <client-id type=\"integer\">102</client-id>\n"
+            + "    <code></code>\n"
+            + "    <active type=\"boolean\">false</active>\n"
+            + "    <notes nil=\"true\"/>\n"
+            + "    <billable type=\"boolean\">false</billable>\n"
+            + "    <bill-by>none</bill-by>\n"
+            + "    <hourly-rate type=\"decimal\" nil=\"true\"></hourly-rate>\n"
+            + "    <budget-by>none</budget-by>\n"
+            + "    <budget type=\"decimal\" nil=\"true\"></budget>\n"
+            + "    <over-budget-notified-at type=\"date\" nil=\"true\"></over-budget-notified-at>\n"
+            + "    <hint-earliest-record-at type=\"date\" nil=\"true\"></hint-earliest-record-at>\n"
+            + "    <updated-at type=\"datetime\">2014-03-12T09:41:27Z</updated-at>\n"
+            + "    <created-at type=\"datetime\">2013-01-02T10:00:00Z</created-at>\n"
+            + "  </project>\n"
+            + "</projects>\n";
+
+    private static final String INVOICES = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<invoices type=\"array\">\n"
+            + "  <invoice>\n"
+            + "    <id type=\"integer\">501</id>\n"
+            + "    <amount type=\"decimal\">12500.00</amount>\n"
+            + "    <due-amount type=\"decimal\">0.0</due-amount>\n"
+            + "    <due-at type=\"date\">2014-04-12</due-at>\n"
+            + "    <due-at-human-format>NET 30</due-at-human-format>\n"
+            + "    <period-start type=\"date\">2014-02-01</period-start>\n"
+            + "    <period-end type=\"date\">2014-02-28</period-end>\n"
+            + "    <client-id type=\"integer\">101</client-id>\n"
+            + "    <subject>February &amp; March</subject>\n"
+            + "    <currency>Norwegian Krone - NOK</currency>\n"
+            + "    <issued-at type=\"date\">2014-03-12</issued-at>\n"
+            + "    <created-by-id type=\"integer\">3001</created-by-id>\n"
+            + "    <notes>Thank you</notes>\n"
+            + "    <number>2014-501</number>\n"
+            + "    <purchase-order>PO-7</purchase-order>\n"
+            + "    <client-key>abc501</client-key>\n"
+            + "    <state>open</state>\n"
+            + "    <tax type=\"decimal\">25.0</tax>\n"
+            + "    <tax2 type=\"decimal\" nil=\"true\"></tax2>\n"
+            + "    <tax-amount type=\"decimal\">2500.0</tax-amount>\n"
+            + "    <tax-amount2 type=\"decimal\">0.0</tax-amount2>\n"
+            + "    <discount-amount type=\"decimal\">0.0</discount-amount>\n"
+            + "    <discount type=\"decimal\" nil=\"true\"></discount>\n"
+            + "    <recurring-invoice-id type=\"integer\" nil=\"true\"></recurring-invoice-id>\n"
+            + "    <estimate-id type=\"integer\" nil=\"true\"></estimate-id>\n"
+            + "    <retainer-id type=\"integer\" nil=\"true\"></retainer-id>\n"
+            + "    <csv-line-items><![CDATA[kind,description\nService,Work]]></csv-line-items>\n"
+            + "    <updated-at type=\"datetime\">2014-03-12T09:41:27Z</updated-at>\n"
+            + "    <created-at type=\"datetime\">2014-03-12T09:40:00Z</created-at>\n"
+            + "  </invoice>\n"
+            + "  <invoice>\n"
+            + "    <id type=\"integer\">502</id>\n"
+            + "    <amount type=\"decimal\">99.5</amount>\n"
+            + "    <number>2014-502</number>\n"
+            + "    <state>paid</state>\n"
+            + "    <subject></subject>\n"
+            + "    <recurring-invoice-id type=\"integer\">12</recurring-invoice-id>\n"
+            + "    <updated-at type=\"datetime\">2014-03-13T00:00:00Z</updated-at>\n"
+            + "  </invoice>\n"
+            + "</invoices>\n";
+
+    @Test
+    public void decodesDayEntriesLikeJaxb()
+            throws Exception
+    {
+        DayEntryCollection decoded = DayEntryCollection.fromInputStream(stream(DAY_ENTRIES));
+
+        assertEquals(3, decoded.getList().size());
+        assertEquals(new BigDecimal("2.75"), decoded.getList().get(0).getHours());
+        assertEquals("Fixed <b> tags & reviewed #42", decoded.getList().get(0).getNotes());
+        assertSameFields(jaxb(DayEntryCollection.class, DAY_ENTRIES).getList(), decoded.getList());
+    }
+
+    @Test
+    public void decodesProjectsLikeJaxb()
+            throws Exception
+    {
+        ProjectCollection decoded = ProjectCollection.fromInputStream(stream(PROJECTS));
+
+        assertEquals(2, decoded.getList().size());
+        assertEquals("Website & app", decoded.getList().get(0).getName());
+        assertEquals(new BigDecimal("1150.0"), decoded.getList().get(0).getHourlyRate());
+        assertSameFields(jaxb(ProjectCollection.class, PROJECTS).getList(), decoded.getList());
+    }
+
+    @Test
+    public void decodesInvoicesLikeJaxb()
+            throws Exception
+    {
+        InvoiceCollection decoded = InvoiceCollection.fromInputStream(stream(INVOICES));
+
+        assertEquals(2, decoded.getList().size());
+        assertEquals("2014-501", decoded.getList().get(0).getNumber());
+        assertEquals(Integer.valueOf(12), decoded.getList().get(1).getRecurringInvoiceId());
+        assertSameFields(jaxb(InvoiceCollection.class, INVOICES).getList(), decoded.getList());
+    }
+
+    private static <T> T jaxb(Class<T> type, String xml)
+            throws Exception
+    {
+        Unmarshaller unmarshaller = JaxbContextRegistry.acquireUnmarshaller(type);
+        try
+        {
+            return type.cast(unmarshaller.unmarshal(stream(xml)));
+        }
+        finally
+        {
+            JaxbContextRegistry.releaseUnmarshaller(type, unmarshaller);
+        }
+    }
+
+    private static ByteArrayInputStream stream(String xml)
+    {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameFields(List<?> expected, List<?> actual)
+            throws IllegalAccessException
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            for (Field field : expected.get(i).getClass().getDeclaredFields())
+            {
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+
+                field.setAccessible(true);
+                Object jaxb = field.get(expected.get(i));
+                Object decoded = field.get(actual.get(i));
+                assertTrue(String.format("Entity %d field %s: JAXB %s, decoder %s", i, field.getName(), jaxb, decoded),
+                        Objects.equals(jaxb, decoded));
+            }
+        }
+    }
+}
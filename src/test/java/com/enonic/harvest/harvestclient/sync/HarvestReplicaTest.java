@@ -0,0 +1,152 @@
+package com.enonic.harvest.harvestclient.sync;
+
+import com.enonic.harvest.harvestclient.models.DayEntry;
+import com.enonic.harvest.harvestclient.models.Invoice;
+import com.enonic.harvest.harvestclient.models.Project;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HarvestReplicaTest
+{
+    private final HarvestReplica replica = new HarvestReplica();
+
+    @Test
+    public void movesProjectToItsNewClient()
+    {
+        this.replica.put(project(1, 10));
+        this.replica.put(project(2, 10));
+        this.replica.put(project(1, 20));
+
+        assertEquals(Arrays.asList(2), ids(this.replica.getProjectsByClient(10)));
+        assertEquals(Arrays.asList(1), ids(this.replica.getProjectsByClient(20)));
+        assertEquals(Integer.valueOf(20), this.replica.getProject(1).getClientId());
+    }
+
+    @Test
+    public void keepsIndexesWhenTheSameInstanceIsPutAgain()
+    {
+        // A response answered with 304 Not Modified hands back the same parsed entities
+        Project project = project(1, 10);
+        DayEntry entry = dayEntry(5, 1, LocalDate.of(2014, 3, 12));
+        Invoice invoice = invoice(7, "2014-7", "open");
+        for (int i = 0; i < 2; i++)
+        {
+            this.replica.put(project);
+            this.replica.put(entry);
+            this.replica.put(invoice);
+        }
+
+        assertEquals(Arrays.asList(1), ids(this.replica.getProjectsByClient(10)));
+        assertEquals(Arrays.asList(5), dayEntryIds(this.replica.getDayEntriesByProject(1)));
+        assertEquals(Arrays.asList(5), dayEntryIds(this.replica.getDayEntries(LocalDate.of(2014, 3, 12), LocalDate.of(2014, 3, 12))));
+        assertSame(invoice, this.replica.getInvoiceByNumber("2014-7"));
+        assertEquals(1, this.replica.getInvoicesByState("open").size());
+    }
+
+    @Test
+    public void findsDayEntriesInDateRanges()
+    {
+        this.replica.put(dayEntry(3, 1, LocalDate.of(2014, 3, 12)));
+        this.replica.put(dayEntry(1, 1, LocalDate.of(2014, 3, 13)));
+        this.replica.put(dayEntry(2, 1, LocalDate.of(2014, 3, 12)));
+        this.replica.put(dayEntry(4, 2, LocalDate.of(2014, 3, 14)));
+        this.replica.put(dayEntry(5, 1, null));
+
+        assertEquals(Arrays.asList(5, 2, 3, 1), dayEntryIds(this.replica.getDayEntriesByProject(1)));
+        assertEquals(Arrays.asList(2, 3, 1), dayEntryIds(this.replica.getDayEntriesByProject(1, LocalDate.of(2014, 3, 1), LocalDate.of(2014, 3, 13))));
+        assertEquals(Arrays.asList(1, 4), dayEntryIds(this.replica.getDayEntries(LocalDate.of(2014, 3, 13), LocalDate.of(2014, 3, 14))));
+        assertTrue(this.replica.getDayEntries(LocalDate.of(2014, 3, 14), LocalDate.of(2014, 3, 13)).isEmpty());
+        assertTrue(this.replica.getDayEntriesByProject(1, LocalDate.of(2014, 3, 14), LocalDate.of(2014, 3, 13)).isEmpty());
+    }
+
+    @Test
+    public void movesDayEntryToItsNewDayAndProject()
+    {
+        this.replica.put(dayEntry(1, 1, LocalDate.of(2014, 3, 12)));
+        this.replica.put(dayEntry(1, 2, LocalDate.of(2014, 4, 1)));
+
+        assertTrue(this.replica.getDayEntriesByProject(1).isEmpty());
+        assertTrue(this.replica.getDayEntries(LocalDate.of(2014, 3, 12), LocalDate.of(2014, 3, 12)).isEmpty());
+        assertEquals(Arrays.asList(1), dayEntryIds(this.replica.getDayEntriesByProject(2, LocalDate.of(2014, 4, 1), LocalDate.of(2014, 4, 1))));
+        assertEquals(1, this.replica.getDayEntries().size());
+    }
+
+    @Test
+    public void followsRenumberedInvoices()
+    {
+        this.replica.put(invoice(1, "A", "draft"));
+        this.replica.put(invoice(2, "B", "draft"));
+
+        // Invoice 2 takes over number A before invoice 1 is seen with its new number
+        this.replica.put(invoice(2, "A", "open"));
+        this.replica.put(invoice(1, "C", "open"));
+
+        assertEquals(Integer.valueOf(2), this.replica.getInvoiceByNumber("A").getId());
+        assertNull(this.replica.getInvoiceByNumber("B"));
+        assertEquals(Integer.valueOf(1), this.replica.getInvoiceByNumber("C").getId());
+        assertTrue(this.replica.getInvoicesByState("draft").isEmpty());
+        assertEquals(Arrays.asList(1, 2), invoiceIds(this.replica.getInvoicesByState("open")));
+    }
+
+    static Project project(int id, Integer clientId)
+    {
+        Project project = new Project();
+        project.setId(id);
+        project.setClientId(clientId);
+        return project;
+    }
+
+    private static DayEntry dayEntry(int id, int projectId, LocalDate spentAt)
+    {
+        DayEntry entry = new DayEntry();
+        entry.setId(id);
+        entry.setProjectId(projectId);
+        entry.setUserId(100);
+        if (spentAt != null)
+            entry.setSpentAt(Date.from(spentAt.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        return entry;
+    }
+
+    private static Invoice invoice(int id, String number, String state)
+    {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setClientId(10);
+        invoice.setNumber(number);
+        invoice.setState(state);
+        return invoice;
+    }
+
+    static List<Integer> ids(Collection<Project> projects)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Project project : projects)
+            ids.add(project.getId());
+        return ids;
+    }
+
+    private static List<Integer> dayEntryIds(Collection<DayEntry> entries)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (DayEntry entry : entries)
+            ids.add(entry.getId());
+        return ids;
+    }
+
+    private static List<Integer> invoiceIds(Collection<Invoice> invoices)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Invoice invoice : invoices)
+            ids.add(invoice.getId());
+        return ids;
+    }
+}
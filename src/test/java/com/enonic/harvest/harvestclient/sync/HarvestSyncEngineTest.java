@@ -0,0 +1,85 @@
+package com.enonic.harvest.harvestclient.sync;
+
+import com.enonic.harvest.harvestclient.DefaultHarvestClient;
+import com.enonic.harvest.harvestclient.HarvestClientConfig;
+import com.enonic.harvest.harvestclient.TestServer;
+import com.enonic.harvest.harvestclient.TestXml;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class HarvestSyncEngineTest
+{
+    private TestServer server;
+    private DefaultHarvestClient client;
+    private final AtomicReference<byte[]> projects = new AtomicReference<byte[]>();
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        this.server = new TestServer();
+        this.server.handle("/projects", exchange -> {
+            byte[] body = this.projects.get();
+            String etag = "\"" + Arrays.hashCode(body) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            TestServer.send(exchange, 200, body);
+        });
+
+        HarvestClientConfig config = this.server.config();
+        config.setResponseStoreSize(16);
+        this.client = new DefaultHarvestClient("user", "password", "test", config);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Test
+    public void movesProjectBetweenClientsAcrossSyncs()
+    {
+        HarvestSyncEngine engine = new HarvestSyncEngine(this.client);
+
+        this.projects.set(projects(project(1, 10, "2014-03-12T09:00:00Z"), project(2, 10, "2014-03-12T09:00:00Z")));
+        assertEquals(2, engine.syncProjects());
+        assertEquals(Arrays.asList(1, 2), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(10)));
+
+        this.projects.set(projects(project(1, 20, "2014-03-13T09:00:00Z")));
+        assertEquals(1, engine.syncProjects());
+        assertEquals(Arrays.asList(2), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(10)));
+        assertEquals(Arrays.asList(1), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(20)));
+
+        // Nothing changed: the watermark stays, so the second of these repeats the first one's URL and
+        // is answered from the response store with the same entities
+        assertEquals(1, engine.syncProjects());
+        assertEquals(1, engine.syncProjects());
+        assertEquals(1, this.client.getResponseStore().getNotModifiedCount());
+        assertEquals(Arrays.asList(2), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(10)));
+        assertEquals(Arrays.asList(1), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(20)));
+        assertEquals(Collections.emptyList(), HarvestReplicaTest.ids(engine.getReplica().getProjectsByClient(30)));
+    }
+
+    private static String project(int id, int clientId, String updatedAt)
+    {
+        return TestXml.item("project", "id", id, "client-id", clientId, "name", "Project " + id, "updated-at", updatedAt);
+    }
+
+    private static byte[] projects(String... items)
+    {
+        return TestXml.collection("projects", items);
+    }
+}